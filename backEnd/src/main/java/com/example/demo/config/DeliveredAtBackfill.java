@@ -0,0 +1,42 @@
+package com.example.demo.config;
+
+import com.example.demo.service.ProductChangeCounter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Fills work_orders.delivered_at for orders delivered before the column existed. Their last
+ * update is the closest record of the delivery left, so it is taken as the delivery time.
+ * Only touches delivered rows still without one, so it is a no-op after the first start.
+ */
+@Component
+public class DeliveredAtBackfill implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(DeliveredAtBackfill.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ProductChangeCounter changeCounter;
+
+    public DeliveredAtBackfill(JdbcTemplate jdbcTemplate, ProductChangeCounter changeCounter) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.changeCounter = changeCounter;
+    }
+
+    @Override
+    @Transactional
+    public void run(ApplicationArguments args) {
+        int rows = jdbcTemplate.update("""
+            UPDATE work_orders SET delivered_at = update_at
+            WHERE status = 'ENTREGADO' AND delivered_at IS NULL AND update_at IS NOT NULL
+            """);
+        if (rows > 0) {
+            changeCounter.bulkChanged();
+            log.info("Backfilled delivered_at for {} work orders", rows);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.demo.config;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Products, work orders, materials and payments used to take IDENTITY ids and now draw
+ * pooled blocks of 50 from sequences (so Hibernate can batch their inserts). On startup
+ * each sequence is moved past the table's current max id, so the first block handed out
+ * never collides with rows written under IDENTITY (or, for product_details, with the ids
+ * ProductDetailMigration copied from products). Runs once the EntityManagerFactory has
+ * applied ddl-auto and before any request can insert.
+ */
+@Component
+@DependsOn({"entityManagerFactory", "productDetailMigration"})
+public class IdSequenceAligner {
+
+    private static final Logger log = LoggerFactory.getLogger(IdSequenceAligner.class);
+
+    // table -> sequence (must match the @SequenceGenerator on each entity)
+    private static final Map<String, String> SEQUENCES = Map.of(
+            "products", "products_seq",
+            "work_orders", "work_orders_seq",
+            "product_materials", "product_materials_seq",
+            "pagos", "pagos_seq",
+            "product_details", "product_details_seq"
+    );
+
+    private static final int ALLOCATION_SIZE = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public IdSequenceAligner(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void align() {
+        String database = jdbcTemplate.execute(
+                (ConnectionCallback<String>) c -> c.getMetaData().getDatabaseProductName());
+        boolean postgres = "PostgreSQL".equalsIgnoreCase(database);
+
+        SEQUENCES.forEach((table, sequence) -> {
+            Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+            if (maxId == null || maxId == 0) return;
+            long floor = maxId + ALLOCATION_SIZE;
+
+            if (postgres) {
+                // never move a sequence backwards: other instances may already hold blocks from it
+                jdbcTemplate.queryForObject(
+                        "SELECT setval('" + sequence + "', GREATEST(?, (SELECT last_value FROM " + sequence + ")))",
+                        Long.class, floor);
+            } else {
+                jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " RESTART WITH " + floor);
+            }
+            log.debug("Aligned {} past {}.id = {}", sequence, table, maxId);
+        });
+    }
+}
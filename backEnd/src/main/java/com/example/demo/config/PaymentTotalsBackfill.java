@@ -0,0 +1,58 @@
+package com.example.demo.config;
+
+import com.example.demo.service.ProductChangeCounter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Fills products.total_paid / deposit_paid / saldo / pagostatus for rows created before
+ * those columns existed. Only touches rows whose totals are still NULL, so it is a no-op
+ * once every product has been backfilled. Status rules mirror Product.refreshPaymentStatus().
+ */
+@Component
+public class PaymentTotalsBackfill implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(PaymentTotalsBackfill.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ProductChangeCounter changeCounter;
+
+    public PaymentTotalsBackfill(JdbcTemplate jdbcTemplate, ProductChangeCounter changeCounter) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.changeCounter = changeCounter;
+    }
+
+    @Override
+    @Transactional
+    public void run(ApplicationArguments args) {
+        int totals = jdbcTemplate.update("""
+            UPDATE products SET
+              total_paid = COALESCE((SELECT SUM(pg.valor) FROM pagos pg WHERE pg.product_id = products.id), 0),
+              deposit_paid = COALESCE((SELECT SUM(pg.valor) FROM pagos pg
+                                       WHERE pg.product_id = products.id AND pg.type = 'DEPOSIT'), 0)
+            WHERE total_paid IS NULL OR deposit_paid IS NULL
+            """);
+
+        int balances = jdbcTemplate.update("""
+            UPDATE products SET
+              saldo = COALESCE(precio, 0) - total_paid,
+              pagostatus = CASE
+                WHEN pagostatus = 'CANCELADO' THEN pagostatus
+                WHEN total_paid < 0 THEN 'REEMBOLSO'
+                WHEN total_paid = 0 THEN NULL
+                WHEN total_paid >= COALESCE(precio, 0) THEN 'ABONADO'
+                ELSE 'PAGO_SEÑA'
+              END
+            WHERE saldo IS NULL
+            """);
+
+        // Cached list responses predate these balances
+        if (totals > 0 || balances > 0) changeCounter.bulkChanged();
+        if (totals > 0) log.info("Backfilled payment totals for {} products", totals);
+    }
+}
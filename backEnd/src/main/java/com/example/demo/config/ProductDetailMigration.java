@@ -0,0 +1,76 @@
+package com.example.demo.config;
+
+import com.example.demo.service.ProductChangeCounter;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Moves medidas / pintura / laqueado / foto / notas from products into product_details for
+ * rows written before the split. Each detail row reuses its product's id, then the legacy
+ * columns are nulled so products rows shrink. ddl-auto never drops columns, so they remain
+ * but stay empty. Idempotent: only rows without a detail_id that still hold text are moved.
+ * Instances starting together take turns on a transaction-scoped advisory lock (PostgreSQL),
+ * so the second one finds the rows already moved instead of inserting the same ids again.
+ * Runs once ddl-auto has been applied and before IdSequenceAligner, which then moves
+ * product_details_seq past the copied ids.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class ProductDetailMigration {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductDetailMigration.class);
+
+    private static final String HAS_LEGACY_TEXT = "(medidas IS NOT NULL OR pintura IS NOT NULL"
+            + " OR laqueado IS NOT NULL OR foto IS NOT NULL OR notas IS NOT NULL)";
+
+    // pg_advisory_xact_lock key, any constant no other code locks on
+    private static final long MIGRATION_LOCK = 0x70726f645f646574L;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ProductChangeCounter changeCounter;
+
+    public ProductDetailMigration(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                  ProductChangeCounter changeCounter) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.changeCounter = changeCounter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    public void migrate() {
+        Integer legacyColumns = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.columns"
+                        + " WHERE lower(table_name) = 'products' AND lower(column_name) = 'notas'",
+                Integer.class);
+        if (legacyColumns == null || legacyColumns == 0) return; // schema created after the split
+
+        String database = jdbcTemplate.execute(
+                (ConnectionCallback<String>) c -> c.getMetaData().getDatabaseProductName());
+        boolean postgres = "PostgreSQL".equalsIgnoreCase(database);
+
+        Integer moved = transactionTemplate.execute(status -> {
+            // held until commit; the statements below then see what another instance moved
+            if (postgres) jdbcTemplate.queryForList("SELECT pg_advisory_xact_lock(?)", MIGRATION_LOCK);
+            int n = jdbcTemplate.update("""
+                INSERT INTO product_details (id, medidas, pintura, laqueado, foto, notas)
+                SELECT id, medidas, pintura, laqueado, foto, notas FROM products
+                WHERE detail_id IS NULL AND\s""" + HAS_LEGACY_TEXT);
+            jdbcTemplate.update("""
+                UPDATE products
+                SET detail_id = id, medidas = NULL, pintura = NULL, laqueado = NULL, foto = NULL, notas = NULL
+                WHERE detail_id IS NULL AND\s""" + HAS_LEGACY_TEXT);
+            if (n > 0) changeCounter.bulkChanged();
+            return n;
+        });
+
+        if (moved != null && moved > 0) log.info("Moved detail columns of {} products to product_details", moved);
+    }
+}
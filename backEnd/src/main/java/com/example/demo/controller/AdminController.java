@@ -1,18 +1,42 @@
 package com.example.demo.controller;
 
+import com.example.demo.dto.CsvImportResult;
+import com.example.demo.exceptions.BadRequestException;
 import com.example.demo.model.AppUser;
-import com.example.demo.model.Status;
+import com.example.demo.model.BackgroundJob;
+import com.example.demo.model.BackgroundJobStatus;
+import com.example.demo.model.CsvImport;
+import com.example.demo.model.JobRun;
+import com.example.demo.repository.JobLockRepo;
+import com.example.demo.repository.JobRunRepo;
 import com.example.demo.repository.UserRepo;
+import com.example.demo.service.AdminSummaryService;
 import com.example.demo.service.AppUserService;
-import com.example.demo.service.ProductService;
-import com.example.demo.service.WorkOrderService;
+import com.example.demo.service.BackgroundJobService;
+import com.example.demo.service.CostAutomationService;
+import com.example.demo.service.CsvImportService;
+import com.example.demo.service.FinanceAnalyticsSnapshot;
+import com.example.demo.service.FinanceRollupService;
+import com.example.demo.service.LedgerExportService;
+import com.example.demo.service.PriceIndexService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -28,10 +52,33 @@ public class AdminController {
     private UserRepo userRepo;
 
     @Autowired
-    private ProductService productService;
+    private AdminSummaryService adminSummaryService;
 
     @Autowired
-    private WorkOrderService workOrderService;
+    private FinanceRollupService financeRollupService;
+
+    @Autowired
+    private FinanceAnalyticsSnapshot financeAnalyticsSnapshot;
+
+    @Autowired
+    private LedgerExportService ledgerExportService;
+
+    @Autowired
+    private PriceIndexService priceIndexService;
+
+    @Autowired
+    private CostAutomationService costAutomationService;
+
+    @Autowired
+    private BackgroundJobService backgroundJobService;
+
+    @Autowired
+    private CsvImportService csvImportService;
+
+    @Autowired
+    private JobLockRepo jobLockRepo;
+    @Autowired
+    private JobRunRepo jobRunRepo;
 
 
 
@@ -63,38 +110,123 @@ public class AdminController {
         return ResponseEntity.ok(user);
     }
 
-    @GetMapping("/summary")
-    public ResponseEntity<Map<String, Object>> getSummary() {
-        Map<String, Object> summary = new HashMap<>();
+    // Recompute the finance rollup and the in-memory snapshot from raw rows (backfill, or after direct DB edits)
+    @PostMapping("/finance/rollup/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildFinanceRollup() {
+        int rows = financeRollupService.rebuild();
+        financeAnalyticsSnapshot.reseed();
+        return ResponseEntity.ok(Map.of("rows", rows));
+    }
+
+    // Accounting export: ?year=2025, or ?from=&to=. Streams, so a whole year never sits in memory
+    @GetMapping("/finance/ledger")
+    public ResponseEntity<StreamingResponseBody> exportLedger(
+            @RequestParam(required = false) Integer year,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        if (year != null) {
+            from = LocalDate.of(year, 1, 1);
+            to = LocalDate.of(year, 12, 31);
+        }
+        if (from == null || to == null || to.isBefore(from)) {
+            throw new BadRequestException("Provide year, or from and to with from <= to");
+        }
+        LocalDate start = from, end = to;
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("ledger_" + start + "_" + end + ".csv").build().toString())
+                .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                .body(out -> ledgerExportService.writeCsv(start, end, out));
+    }
 
-        // === 1. Total Users ===
-        long totalUsers = appUserService.countUsers();
+    @GetMapping("/finance/price-index")
+    public ResponseEntity<Map<String, BigDecimal>> getPriceIndex() {
+        return ResponseEntity.ok(priceIndexService.list());
+    }
 
-        // === 2. Total Orders ===
-        long totalOrders = productService.countOrders();
+    // Body: "YYYY-MM,value" lines (e.g. INDEC's CPI pasted from a spreadsheet); existing months are replaced
+    @PutMapping(value = "/finance/price-index", consumes = {"text/csv", MediaType.TEXT_PLAIN_VALUE})
+    public ResponseEntity<Map<String, Object>> loadPriceIndex(@RequestBody String body) {
+        int months = financeRollupService.loadPriceIndex(PriceIndexService.parseCsv(body));
+        return ResponseEntity.ok(Map.of("months", months));
+    }
 
-        // === 3. Finished Orders ===
-        long finishedOrders = workOrderService.countByType(Status.TERMINADO);
+    // Same as the nightly run; safe to repeat, occurrences already generated are skipped
+    @PostMapping("/costs/recurring/run")
+    public ResponseEntity<Map<String, Object>> runRecurringCosts() {
+        return costAutomationService.runNow()
+                .map(inserted -> ResponseEntity.ok(Map.<String, Object>of("inserted", inserted)))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.CONFLICT)
+                        .body(Map.of("error", "Recurring costs are being generated by another instance")));
+    }
 
-        // === 4. Due This Week ===
-        LocalDate today = LocalDate.now();
-        LocalDate endOfWeek = today.plusDays(7);
-        long dueThisWeek = workOrderService.countDueBetween(today, endOfWeek);
+    // Leases of the scheduled jobs and their latest runs, newest first
+    @GetMapping("/jobs")
+    public ResponseEntity<Map<String, Object>> getJobs(@RequestParam(required = false) String job,
+                                                       @RequestParam(defaultValue = "50") int limit) {
+        Limit max = Limit.of(Math.max(1, Math.min(limit, 500)));
+        List<JobRun> runs = job != null
+                ? jobRunRepo.findByJobNameOrderByStartedAtDesc(job, max)
+                : jobRunRepo.findAllByOrderByStartedAtDesc(max);
+        return ResponseEntity.ok(Map.of("locks", jobLockRepo.findAll(), "runs", runs));
+    }
 
-        // === 5. Orders by Status ===
-        Map<String, Long> ordersByStatus = workOrderService.countOrdersByStatus();
+    // ---------------- BACKGROUND JOBS ----------------
 
+    @GetMapping("/background-jobs/types")
+    public ResponseEntity<Map<String, String>> getBackgroundJobTypes() {
+        return ResponseEntity.ok(backgroundJobService.types());
+    }
 
-        // === 7. Top Products ===
-        List<Object[]> topProducts = productService.findTopProducts();
+    @GetMapping("/background-jobs")
+    public ResponseEntity<List<BackgroundJob>> getBackgroundJobs(@RequestParam(required = false) BackgroundJobStatus status,
+                                                                 @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(backgroundJobService.list(status, Math.max(1, Math.min(limit, 500))));
+    }
 
-        summary.put("totalUsers", totalUsers);
-        summary.put("totalOrders", totalOrders);
-        summary.put("finishedOrders", finishedOrders);
-        summary.put("dueThisWeek", dueThisWeek);
-        summary.put("ordersByStatus", ordersByStatus);
-        summary.put("topProducts", topProducts);
+    // The job with its chunks: progress is done/failed over total, retries show in attempts and lastError
+    @GetMapping("/background-jobs/{id}")
+    public ResponseEntity<Map<String, Object>> getBackgroundJob(@PathVariable long id) {
+        BackgroundJob job = backgroundJobService.get(id);
+        if (job == null) return ResponseEntity.notFound().build();
+        return ResponseEntity.ok(Map.of("job", job, "chunks", backgroundJobService.chunks(id)));
+    }
 
-        return ResponseEntity.ok(summary);
+    // Queues a job and returns at once; poll the job for progress
+    @PostMapping("/background-jobs/{type}")
+    public ResponseEntity<BackgroundJob> startBackgroundJob(@PathVariable String type, Authentication authentication) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(backgroundJobService.enqueue(type, authentication != null ? authentication.getName() : null));
+    }
+
+    @DeleteMapping("/background-jobs/{id}")
+    public ResponseEntity<Void> cancelBackgroundJob(@PathVariable long id) {
+        return backgroundJobService.cancel(id) ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
+    }
+
+    // ---------------- CSV IMPORTS ----------------
+
+    // Raw CSV body (curl --data-binary @file). Send a key to make the import resumable: if the
+    // upload breaks off, sending the same file with the same key continues after the committed rows
+    @PostMapping(value = "/imports/costs", consumes = {"text/csv", MediaType.TEXT_PLAIN_VALUE, MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public ResponseEntity<CsvImportResult> importCosts(InputStream body, @RequestParam(required = false) String key,
+                                                       Authentication authentication) throws IOException {
+        return ResponseEntity.ok(csvImportService.importCosts(body, key, authentication != null ? authentication.getName() : null));
+    }
+
+    @PostMapping(value = "/imports/payments", consumes = {"text/csv", MediaType.TEXT_PLAIN_VALUE, MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public ResponseEntity<CsvImportResult> importPayments(InputStream body, @RequestParam(required = false) String key,
+                                                          Authentication authentication) throws IOException {
+        return ResponseEntity.ok(csvImportService.importPayments(body, key, authentication != null ? authentication.getName() : null));
+    }
+
+    @GetMapping("/imports")
+    public ResponseEntity<List<CsvImport>> getImports(@RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(csvImportService.recent(Math.max(1, Math.min(limit, 500))));
+    }
+
+    @GetMapping("/summary")
+    public ResponseEntity<Map<String, Object>> getSummary() {
+        return ResponseEntity.ok(adminSummaryService.getSummary());
     }
 }
\ No newline at end of file
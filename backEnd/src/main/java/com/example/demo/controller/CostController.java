@@ -1,16 +1,19 @@
 package com.example.demo.controller;
 
+import com.example.demo.dto.CursorPage;
 import com.example.demo.model.Costs;
+import com.example.demo.model.RecurringCost;
 import com.example.demo.repository.CostRepo;
+import com.example.demo.service.CostService;
+import com.example.demo.service.RecurringCostService;
+import com.example.demo.utils.Cursors;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -21,24 +24,58 @@ public class CostController {
     @Autowired
     private CostRepo costRepo;
 
+    @Autowired
+    private CostService costService;
+
+    @Autowired
+    private RecurringCostService recurringCostService;
+
     @GetMapping
-    public Page<Costs> getAll(
+    public Object getAll(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor
     ) {
+        // Cursor mode (opt-in): ?cursor= for the first slice, then the returned nextCursor
+        if (cursor != null) {
+            return getAllAfter(cursor, Math.max(size, 1));
+        }
         Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "date"));
         return costRepo.findAll(pageable);
     }
 
+    private CursorPage<Costs> getAllAfter(String cursor, int size) {
+        Cursors.Position after = Cursors.decode(cursor);
+        List<Costs> rows = Cursors.nullsLast(after, size + 1,
+                (keyed, limit) -> keyed == null
+                        ? costRepo.findFirstSlice(limit)
+                        : costRepo.findSliceAfter(keyed.keyAsDate(), keyed.id(), limit),
+                costRepo::findUndatedSliceAfter);
+        return CursorPage.from(rows, size, c -> c, c -> Cursors.encode(c.getDate(), c.getId()));
+    }
+
     @PostMapping
     public Costs create(@RequestBody Costs cost) {
-        if (cost.getCreatedAt() == null) cost.setCreatedAt(LocalDateTime.now());
-        return costRepo.save(cost);
+        return costService.create(cost);
+    }
+
+    // Active recurring cost templates (created by posting a cost with a recurring frequency)
+    @GetMapping("/recurring")
+    public List<RecurringCost> getRecurring() {
+        return recurringCostService.findActive();
+    }
+
+    // Stops future occurrences; generated ones are kept
+    @DeleteMapping("/recurring/{id}")
+    public ResponseEntity<?> stopRecurring(@PathVariable Long id) {
+        return recurringCostService.deactivate(id)
+                ? ResponseEntity.ok().build()
+                : ResponseEntity.notFound().build();
     }
 
     @DeleteMapping("/{id}")
     public ResponseEntity<?> delete(@PathVariable Long id) {
-        costRepo.deleteById(id);
+        costService.delete(id);
         return ResponseEntity.ok().build();
     }
 }
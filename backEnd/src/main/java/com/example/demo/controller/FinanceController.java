@@ -1,8 +1,16 @@
 // src/main/java/com/example/demo/controller/FinanceController.java
 package com.example.demo.controller;
 
+import com.example.demo.dto.CashForecastResponse;
 import com.example.demo.dto.FinanceDashboardResponse;
+import com.example.demo.dto.FinanceSeriesResponse;
+import com.example.demo.dto.SellerMatrixResponse;
+import com.example.demo.dto.SeriesComparison;
+import com.example.demo.dto.SeriesGranularity;
+import com.example.demo.service.CashForecastService;
+import com.example.demo.service.FinanceSeriesService;
 import com.example.demo.service.FinanceService;
+import com.example.demo.service.PriceIndexService;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -18,10 +26,17 @@ import java.util.Map;
 public class FinanceController {
 
     private final FinanceService financeService;
+    private final FinanceSeriesService financeSeriesService;
+    private final CashForecastService cashForecastService;
+    private final PriceIndexService priceIndexService;
     private static final ZoneId AR = ZoneId.of("America/Argentina/Buenos_Aires");
 
-    public FinanceController(FinanceService financeService) {
+    public FinanceController(FinanceService financeService, FinanceSeriesService financeSeriesService,
+                             CashForecastService cashForecastService, PriceIndexService priceIndexService) {
         this.financeService = financeService;
+        this.financeSeriesService = financeSeriesService;
+        this.cashForecastService = cashForecastService;
+        this.priceIndexService = priceIndexService;
     }
 
     @GetMapping
@@ -31,12 +46,63 @@ public class FinanceController {
 
             // or explicit date range
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
-            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+
+            // inflation-adjusted to base=YYYY-MM (default: latest month of the price index)
+            @RequestParam(defaultValue = "false") boolean adjust,
+            @RequestParam(required = false) String base
     ) {
         DateRange range = resolveRange(month, from, to);
+        if (adjust) return financeService.adjustedDashboard(range.from(), range.to(), parseMonth(base));
         return financeService.dashboard(range.from(), range.to());
     }
 
+    // e.g. ?from=2025-01-01&to=2025-12-31&granularity=month&compare=yoy
+    @GetMapping("/series")
+    public FinanceSeriesResponse getSeries(
+            @RequestParam(required = false) String month,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "month") String granularity,
+            @RequestParam(defaultValue = "none") String compare,
+            @RequestParam(defaultValue = "false") boolean adjust,
+            @RequestParam(required = false) String base
+    ) {
+        DateRange range = resolveRange(month, from, to);
+        return financeSeriesService.series(range.from(), range.to(),
+                SeriesGranularity.parse(granularity), SeriesComparison.parse(compare),
+                adjust ? priceIndexService.resolveBase(parseMonth(base)) : null);
+    }
+
+    // e.g. ?days=90&granularity=week — expected cash in (open balances) and out (recurring costs)
+    @GetMapping("/forecast")
+    public CashForecastResponse getForecast(
+            @RequestParam(defaultValue = "90") int days,
+            @RequestParam(defaultValue = "week") String granularity
+    ) {
+        return cashForecastService.forecast(days, SeriesGranularity.parse(granularity));
+    }
+
+    // e.g. ?from=2025-01&to=2025-12 — defaults to the last twelve months
+    @GetMapping("/sellers")
+    public SellerMatrixResponse getSellerMatrix(
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to
+    ) {
+        YearMonth end = to != null && !to.isBlank() ? YearMonth.parse(to.trim()) : YearMonth.from(LocalDate.now(AR));
+        YearMonth start = from != null && !from.isBlank() ? YearMonth.parse(from.trim()) : end.minusMonths(11);
+        return financeService.sellerMatrix(start, end);
+    }
+
+    @GetMapping("/cache-stats")
+    public Map<String, Object> getCacheStats() {
+        return financeService.cacheStats();
+    }
+
+    private static YearMonth parseMonth(String month) {
+        return month != null && !month.isBlank() ? YearMonth.parse(month.trim()) : null;
+    }
+
     private DateRange resolveRange(String month, LocalDate from, LocalDate to) {
         // Highest priority: explicit from/to
         if (from != null && to != null) {
@@ -3,7 +3,6 @@ package com.example.demo.controller;
 import com.example.demo.dto.CreateInventoryItemRequest;
 import com.example.demo.dto.InventoryItemResponse;
 import com.example.demo.service.InventoryService;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
@@ -24,11 +23,16 @@ public class InventoryController {
     }
 
     @GetMapping
-    public ResponseEntity<Page<InventoryItemResponse>> getAll(
+    public ResponseEntity<?> getAll(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
-            @RequestParam(required = false) String name
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) String cursor
     ) {
+        // Cursor mode (opt-in): ?cursor= for the first slice, then the returned nextCursor
+        if (cursor != null) {
+            return ResponseEntity.ok(inventoryService.getAllAfter(name, cursor, Math.max(size, 1)));
+        }
         Pageable pageable = PageRequest.of(page, size, Sort.by("name"));
         if (name != null && !name.isBlank()) {
             return ResponseEntity.ok(inventoryService.searchByName(name, pageable));
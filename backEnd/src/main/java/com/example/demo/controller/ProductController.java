@@ -5,6 +5,7 @@ import com.example.demo.dto.ProductMaterialRequest;
 import com.example.demo.dto.ProductMaterialResponse;
 import com.example.demo.dto.ProductResponse;
 import com.example.demo.dto.ProductUpdateDto;
+import com.example.demo.dto.ProductView;
 import com.example.demo.exceptions.ResourceNotFoundException;
 import com.example.demo.model.Product;
 import com.example.demo.model.ProductType;
@@ -13,6 +14,7 @@ import com.example.demo.service.FileStorageService;
 import com.example.demo.service.ProductMaterialService;
 import com.example.demo.service.ProductService;
 import com.example.demo.service.WorkOrderService;
+import com.example.demo.utils.ConditionalGet;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -21,6 +23,7 @@ import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import org.springframework.web.multipart.MultipartFile;
 
@@ -53,23 +56,40 @@ public class ProductController {
 
 
     @GetMapping
-    public ResponseEntity<Page<ProductResponse>> getAllProducts(
+    public ResponseEntity<?> getAllProducts(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "detail") String view,
+            WebRequest request
     ) {
+        String etag = productService.listEtag();
+        if (request.checkNotModified(etag)) return ConditionalGet.notModified(etag);
+        ProductView productView = ProductView.parse(view);
+        // Cursor mode (opt-in): ?cursor= for the first slice, then the returned nextCursor
+        if (cursor != null) {
+            return ConditionalGet.ok(etag, productService.getAllAfter(cursor, Math.max(size, 1), productView));
+        }
         Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "startDate"));
+        if (productView == ProductView.SUMMARY) {
+            return ConditionalGet.ok(etag, productService.getAllSummaries(pageable));
+        }
         Page<ProductResponse> products = productService.getAll(pageable);
-        return ResponseEntity.ok(products);
+        return ConditionalGet.ok(etag, products);
     }
 
 
     @GetMapping("/search")
-    public ResponseEntity<Page<ProductResponse>> searchProducts(
+    public ResponseEntity<? extends Page<?>> searchProducts(
             @RequestParam String q,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "detail") String view
     ) {
         Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "startDate"));
+        if (ProductView.parse(view) == ProductView.SUMMARY) {
+            return ResponseEntity.ok(productService.searchSummaries(q, pageable));
+        }
         return ResponseEntity.ok(productService.searchByTitle(q, pageable));
     }
 
@@ -82,12 +102,15 @@ public class ProductController {
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<ProductResponse> getProduct(@PathVariable Long id) throws ResourceNotFoundException {
+    public ResponseEntity<ProductResponse> getProduct(@PathVariable Long id, WebRequest request) throws ResourceNotFoundException {
+        // Version check first: an unchanged product costs one narrow query and no serialization
+        String etag = productService.etagFor(id);
+        if (request.checkNotModified(etag)) return ConditionalGet.notModified(etag);
         ProductResponse product = productService.getById(id);
         if (product == null) {
             return ResponseEntity.notFound().build();
         }
-        return ResponseEntity.ok(product);
+        return ConditionalGet.ok(etag, product);
     }
 
     @PutMapping("/{id}")
@@ -134,18 +157,14 @@ public class ProductController {
     }
 
     @GetMapping("/due-this-week")
-    public ResponseEntity<List<ProductResponse>> getProductsDueThisWeek() {
-       List<ProductResponse> productsDueThisWeek = productService.getProductsDueThisWeek();
-        return ResponseEntity.ok(productsDueThisWeek);
+    public ResponseEntity<List<ProductResponse>> getProductsDueThisWeek(WebRequest request) {
+        return ConditionalGet.respond(request, productService.listEtag(), productService::getProductsDueThisWeek);
     }
 
     @PostMapping("/add-existing")
     public ResponseEntity<Product> addExistingOrder(@RequestBody Map<String, String> request) {
         String titulo = request.get("titulo");
-        Product product = productService.findByTitle(titulo);
-
-        product.setFechaEstimada(LocalDate.now().plusDays(3)); // middle of this week
-        productService.guardar(product);
+        Product product = productService.reschedule(titulo, LocalDate.now().plusDays(3)); // middle of this week
 
         return ResponseEntity.ok(product);
     }
@@ -157,18 +176,16 @@ public class ProductController {
     }
 
     @GetMapping("/past-due")
-    public ResponseEntity<List<ProductResponse>> getProductsPastDue() {
-        List<ProductResponse> productsDueThisWeek = productService.getProductsPastDue();
-        return ResponseEntity.ok(productsDueThisWeek);
+    public ResponseEntity<List<ProductResponse>> getProductsPastDue(WebRequest request) {
+        return ConditionalGet.respond(request, productService.listEtag(), productService::getProductsPastDue);
     }
     @GetMapping("/not-picked-up")
-    public ResponseEntity<List<ProductResponse>> getProductsNotPickedUp() {
-        List<ProductResponse> productsDueThisWeek = productService.getProductsNotPickedUp();
-        return ResponseEntity.ok(productsDueThisWeek);
+    public ResponseEntity<List<ProductResponse>> getProductsNotPickedUp(WebRequest request) {
+        return ConditionalGet.respond(request, productService.listEtag(), productService::getProductsNotPickedUp);
     }
 
     @GetMapping("/filter")
-    public ResponseEntity<Page<ProductResponse>> filterProducts(
+    public ResponseEntity<?> filterProducts(
             @RequestParam(required = false) String titulo,
             @RequestParam(required = false) String productType,
             @RequestParam(required = false) String material,
@@ -176,12 +193,28 @@ public class ProductController {
             @RequestParam(required = false) String workOrderStatus,
             @RequestParam(required = false) String from,
             @RequestParam(required = false) String to,
+            @RequestParam(required = false) Boolean outstanding,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "detail") String view,
+            WebRequest request
     ) {
+        String etag = productService.listEtag();
+        if (request.checkNotModified(etag)) return ConditionalGet.notModified(etag);
+        ProductView productView = ProductView.parse(view);
+        if (cursor != null) {
+            return ConditionalGet.ok(etag, productService.searchWithFiltersAfter(
+                    titulo, productType, material, color, workOrderStatus, from, to, outstanding,
+                    cursor, Math.max(size, 1), productView));
+        }
         Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "startDate"));
-        return ResponseEntity.ok(productService.searchWithFilters(
-                titulo, productType, material, color, workOrderStatus, from, to, pageable));
+        if (productView == ProductView.SUMMARY) {
+            return ConditionalGet.ok(etag, productService.searchWithFiltersSummaries(
+                    titulo, productType, material, color, workOrderStatus, from, to, outstanding, pageable));
+        }
+        return ConditionalGet.ok(etag, productService.searchWithFilters(
+                titulo, productType, material, color, workOrderStatus, from, to, outstanding, pageable));
     }
 
     @GetMapping("/{id}/materials")
@@ -6,9 +6,11 @@ import com.example.demo.model.Status;
 import com.example.demo.model.WorkOrder;
 import com.example.demo.service.ProductService;
 import com.example.demo.service.WorkOrderService;
+import com.example.demo.utils.ConditionalGet;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -34,8 +36,8 @@ public class WorkOrderController {
     }
 
     @GetMapping
-    public ResponseEntity<List<WorkOrder>> getAll() {
-        return ResponseEntity.ok(workOrderService.getAll());
+    public ResponseEntity<List<WorkOrder>> getAll(WebRequest request) {
+        return ConditionalGet.respond(request, productService.listEtag(), workOrderService::getAll);
     }
 
     @GetMapping("/product/{productId}")
@@ -43,9 +45,8 @@ public class WorkOrderController {
         return ResponseEntity.ok(workOrderService.getByProductId(productId));
     }
     @GetMapping("/late")
-    public ResponseEntity<List<WorkOrder>> getLateProducts(){
-        List<WorkOrder> lateProducts = workOrderService.getLateProducts();
-        return ResponseEntity.ok(lateProducts);
+    public ResponseEntity<List<WorkOrder>> getLateProducts(WebRequest request){
+        return ConditionalGet.respond(request, productService.listEtag(), workOrderService::getLateProducts);
     }
 
     @GetMapping("/statuses")
@@ -0,0 +1,12 @@
+package com.example.demo.dto;
+
+public interface AdminSummaryRow {
+    long getTotalUsers();
+    long getTotalOrders();
+    long getDueThisWeek();
+    long getCreado();
+    long getProduccion();
+    long getTerminado();
+    long getEntregado();
+    long getAtrasado();
+}
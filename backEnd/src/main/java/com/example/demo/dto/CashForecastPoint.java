@@ -0,0 +1,12 @@
+package com.example.demo.dto;
+
+import java.math.BigDecimal;
+
+// One forecast bucket; cumulative is the running net since the start of the forecast
+public record CashForecastPoint(
+        String period,
+        BigDecimal inflow,
+        BigDecimal outflow,
+        BigDecimal net,
+        BigDecimal cumulative
+) {}
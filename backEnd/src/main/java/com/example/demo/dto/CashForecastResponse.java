@@ -0,0 +1,22 @@
+package com.example.demo.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Expected cash from today on. Inflows are outstanding order balances on their delivery date,
+ * outflows the upcoming occurrences of recurring costs. Balances whose date already passed, or
+ * that have no date, can't be placed on a day and are reported apart from the points.
+ */
+public record CashForecastResponse(
+        LocalDate from,
+        LocalDate to,
+        String granularity,
+        List<CashForecastPoint> points,
+        BigDecimal totalInflow,
+        BigDecimal totalOutflow,
+        BigDecimal net,
+        BigDecimal overdueReceivables,
+        BigDecimal unscheduledReceivables
+) {}
@@ -0,0 +1,4 @@
+package com.example.demo.dto;
+
+/** A rejected CSV row: its line in the file (1 = header) and why. */
+public record CsvImportError(long line, String message) {}
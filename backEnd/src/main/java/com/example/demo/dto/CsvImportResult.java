@@ -0,0 +1,20 @@
+package com.example.demo.dto;
+
+import java.util.List;
+
+/**
+ * Outcome of one import request. The row counts are for this request (skipped = rows already
+ * committed by an earlier attempt of the same import); the totals span every attempt. Errors
+ * are capped, failed has the full count.
+ */
+public record CsvImportResult(
+        long importId,
+        String status,
+        long rowsRead,
+        long skipped,
+        long inserted,
+        long failed,
+        long totalInserted,
+        long totalFailed,
+        List<CsvImportError> errors
+) {}
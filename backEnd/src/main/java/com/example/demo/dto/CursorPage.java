@@ -0,0 +1,27 @@
+package com.example.demo.dto;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One slice of a keyset-paginated listing. {@code nextCursor} is null on the last slice;
+ * otherwise it is passed back as {@code ?cursor=} to fetch the following rows.
+ */
+public record CursorPage<T>(
+        List<T> content,
+        int size,
+        String nextCursor
+) {
+    /**
+     * Builds a slice from rows fetched with a limit of {@code size + 1}: the extra row only
+     * signals that another slice exists and is not returned.
+     */
+    public static <E, T> CursorPage<T> from(List<E> rows, int size,
+                                            Function<E, T> mapper,
+                                            Function<E, String> cursorOf) {
+        boolean hasNext = rows.size() > size;
+        List<E> slice = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = hasNext ? cursorOf.apply(slice.get(slice.size() - 1)) : null;
+        return new CursorPage<>(slice.stream().map(mapper).toList(), size, nextCursor);
+    }
+}
@@ -0,0 +1,6 @@
+package com.example.demo.dto;
+
+import java.math.BigDecimal;
+
+// One slice of the expenses pie: cost type name and its total for the range
+public record ExpenseBreakdownRow(String name, BigDecimal value) {}
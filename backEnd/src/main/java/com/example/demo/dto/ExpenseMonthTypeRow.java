@@ -0,0 +1,9 @@
+package com.example.demo.dto;
+
+import java.math.BigDecimal;
+
+public interface ExpenseMonthTypeRow {
+    String getMonth();     // 'YYYY-MM'
+    String getCostType();  // null for untyped costs
+    BigDecimal getTotal();
+}
@@ -5,6 +5,7 @@ import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 
+/** Dashboard totals for a range; {@code adjustedTo} is the base month ('YYYY-MM') of inflation-adjusted figures, null for nominal ones. */
 public record FinanceDashboardResponse(
         LocalDate from,
         LocalDate to,
@@ -12,9 +13,10 @@ public record FinanceDashboardResponse(
         BigDecimal tDep,
         BigDecimal tExp,
         BigDecimal tRev,
-        List<Map<String,Object>> expenseBreakdown,
+        List<ExpenseBreakdownRow> expenseBreakdown,
         List<Map<String,Object>> userStats,
         BigDecimal tCogs,
         BigDecimal grossProfit,
-        BigDecimal netProfit
+        BigDecimal netProfit,
+        String adjustedTo
 ) {}
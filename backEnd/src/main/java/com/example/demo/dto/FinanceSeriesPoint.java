@@ -0,0 +1,13 @@
+package com.example.demo.dto;
+
+import java.math.BigDecimal;
+
+// One bucket of the finance series; period is the bucket start date
+public record FinanceSeriesPoint(
+        String period,
+        BigDecimal income,
+        BigDecimal cashIn,
+        BigDecimal expenses,
+        BigDecimal cogs,
+        BigDecimal netProfit
+) {}
@@ -0,0 +1,27 @@
+package com.example.demo.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finance series for one range. With a comparison, {@code previous} holds the shifted range
+ * bucketed the same way (aligned by position) and {@code changePct} the percent change of each
+ * total, null where the baseline is zero. {@code adjustedTo} is the base month ('YYYY-MM') when
+ * amounts are inflation-adjusted, null when nominal.
+ */
+public record FinanceSeriesResponse(
+        String granularity,
+        LocalDate from,
+        LocalDate to,
+        String adjustedTo,
+        List<FinanceSeriesPoint> points,
+        FinanceSeriesPoint totals,
+        String compare,
+        LocalDate previousFrom,
+        LocalDate previousTo,
+        List<FinanceSeriesPoint> previous,
+        FinanceSeriesPoint previousTotals,
+        Map<String, BigDecimal> changePct
+) {}
@@ -0,0 +1,8 @@
+package com.example.demo.dto;
+
+import java.math.BigDecimal;
+
+public interface PeriodAmountRow {
+    String getPeriod();    // bucket start, 'YYYY-MM-DD'
+    BigDecimal getTotal();
+}
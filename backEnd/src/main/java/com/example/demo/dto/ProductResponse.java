@@ -1,11 +1,11 @@
 package com.example.demo.dto;
 
+import com.example.demo.model.PaymentStatus;
 import com.example.demo.model.Product;
 import com.example.demo.dto.ProductMaterialResponse;
 import com.example.demo.model.ProductType;
 import com.example.demo.model.Status;
 import com.example.demo.model.WorkOrder;
-import com.example.demo.model.OrderPayments;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -38,26 +38,30 @@ public record ProductResponse(
         String clientPhone,
         BigDecimal cogsAmount,
         BigDecimal calculatedCogs,
-        List<ProductMaterialResponse> materials
+        List<ProductMaterialResponse> materials,
+        BigDecimal balance,
+        PaymentStatus pagoStatus
 ) {
 
+    /** Single-product responses, with the text columns kept in product_details. */
     public static ProductResponse from(Product p) {
-        WorkOrder wo = p.getWorkOrder();
+        return from(p, true);
+    }
+
+    /**
+     * List rows: same shape, but medidas, pintura, laqueado, foto and notas stay null so the
+     * lazy detail row is never loaded (one extra query per product otherwise).
+     */
+    public static ProductResponse listItem(Product p) {
+        return from(p, false);
+    }
 
-        BigDecimal totalPaid = BigDecimal.ZERO;
-        BigDecimal depositPaid = BigDecimal.ZERO;
+    private static ProductResponse from(Product p, boolean withDetail) {
+        WorkOrder wo = p.getWorkOrder();
 
-        if (p.getOrderPayments() != null) {
-            for (OrderPayments pay : p.getOrderPayments()) {
-                BigDecimal amount = pay.getAmount();
-                if (amount != null) {
-                    totalPaid = totalPaid.add(amount);
-                    if ("DEPOSIT".equals(pay.getPaymentType())) {
-                        depositPaid = depositPaid.add(amount);
-                    }
-                }
-            }
-        }
+        // Denormalized on the product; the pagos rows are not loaded
+        BigDecimal totalPaid = p.getTotalPaid() != null ? p.getTotalPaid() : BigDecimal.ZERO;
+        BigDecimal depositPaid = p.getDepositPaid() != null ? p.getDepositPaid() : BigDecimal.ZERO;
 
         BigDecimal daysLate = null;
         if (wo.getUpdateAt() != null && wo.getStatus() == Status.TERMINADO || wo.getStatus() == Status.ATRASADO) {
@@ -82,17 +86,17 @@ public record ProductResponse(
                 p.getId(),
                 p.getTitulo(),
                 p.getProductType(),
-                p.getMedidas(),
+                withDetail ? p.getMedidas() : null,
                 p.getMaterial(),
-                p.getPintura(),
+                withDetail ? p.getPintura() : null,
                 p.getColor(),
-                p.getLaqueado(),
+                withDetail ? p.getLaqueado() : null,
                 p.getCantidad(),
                 p.getStartDate(),
                 p.getFechaEntrega(),
                 p.getFechaEstimada(),
-                p.getFoto(),
-                p.getNotas(),
+                withDetail ? p.getFoto() : null,
+                withDetail ? p.getNotas() : null,
                 p.getPrecio(),
                 p.getOwner().getId(),
                 wo.getId(),
@@ -103,7 +107,9 @@ public record ProductResponse(
                 p.getClientPhone(),
                 p.getCogsAmount(),
                 calculatedCogs,
-                materialResponses
+                materialResponses,
+                p.getBalance(),
+                p.getPagoStatus()
         );
     }
 }
@@ -0,0 +1,73 @@
+package com.example.demo.dto;
+
+import com.example.demo.model.PaymentStatus;
+import com.example.demo.model.Product;
+import com.example.demo.model.ProductType;
+import com.example.demo.model.Status;
+import com.example.demo.model.WorkOrder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Compact row for list views (?view=summary): no materials, no COGS, no free-text fields.
+ * Balances come from the denormalized totals on products, so no payment rows are read.
+ */
+public record ProductSummaryResponse(
+        Long id,
+        String titulo,
+        ProductType productType,
+        Long workOrderId,
+        Status workOrderStatus,
+        LocalDate startDate,
+        LocalDate fechaEntrega,
+        LocalDate fechaEstimada,
+        BigDecimal precio,
+        BigDecimal totalPaid,
+        BigDecimal depositPaid,
+        BigDecimal balance,
+        PaymentStatus pagoStatus,
+        BigDecimal daysLate
+) {
+
+    // Target of the JPQL constructor expression in ProductRepo.filterSummaries
+    public ProductSummaryResponse(Long id, String titulo, ProductType productType,
+                                  Long workOrderId, Status workOrderStatus, LocalDateTime workOrderUpdateAt,
+                                  LocalDate startDate, LocalDate fechaEntrega, LocalDate fechaEstimada,
+                                  BigDecimal precio, BigDecimal totalPaid, BigDecimal depositPaid,
+                                  BigDecimal balance, PaymentStatus pagoStatus) {
+        this(id, titulo, productType, workOrderId, workOrderStatus, startDate, fechaEntrega, fechaEstimada,
+                precio, nz(totalPaid), nz(depositPaid), balance, pagoStatus,
+                daysLate(workOrderStatus, workOrderUpdateAt));
+    }
+
+    public static ProductSummaryResponse from(Product p) {
+        WorkOrder wo = p.getWorkOrder();
+        return new ProductSummaryResponse(
+                p.getId(),
+                p.getTitulo(),
+                p.getProductType(),
+                wo != null ? wo.getId() : null,
+                wo != null ? wo.getStatus() : null,
+                wo != null ? wo.getUpdateAt() : null,
+                p.getStartDate(),
+                p.getFechaEntrega(),
+                p.getFechaEstimada(),
+                p.getPrecio(),
+                p.getTotalPaid(),
+                p.getDepositPaid(),
+                p.getBalance(),
+                p.getPagoStatus()
+        );
+    }
+
+    // Days since the order was finished or flagged late
+    private static BigDecimal daysLate(Status status, LocalDateTime updateAt) {
+        if (updateAt == null || (status != Status.TERMINADO && status != Status.ATRASADO)) return null;
+        return BigDecimal.valueOf(ChronoUnit.DAYS.between(updateAt, LocalDateTime.now()));
+    }
+
+    private static BigDecimal nz(BigDecimal v) { return v == null ? BigDecimal.ZERO : v; }
+}
@@ -0,0 +1,11 @@
+package com.example.demo.dto;
+
+/** Representation requested by list endpoints through {@code ?view=}. */
+public enum ProductView {
+    SUMMARY, DETAIL;
+
+    /** Unknown or missing values fall back to DETAIL, the historical response. */
+    public static ProductView parse(String view) {
+        return "summary".equalsIgnoreCase(view) ? SUMMARY : DETAIL;
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.demo.dto;
+
+import java.math.BigDecimal;
+
+public interface RollupTotalRow {
+    String getMetric();
+    String getCostType();
+    BigDecimal getTotal();
+    BigDecimal getTotalReal();   // in price-index units
+}
@@ -0,0 +1,17 @@
+package com.example.demo.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Seller × month performance in columnar form: {@code values[m][i]} is metric {@code metrics[m]}
+ * for month {@code months[i]}, zero where the seller had no activity, so each row of a seller
+ * plots straight as a series.
+ */
+public record SellerMatrixResponse(
+        List<String> months,
+        List<String> metrics,
+        List<Seller> sellers
+) {
+    public record Seller(long sellerId, String userName, BigDecimal[][] values) {}
+}
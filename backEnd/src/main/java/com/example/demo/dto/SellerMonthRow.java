@@ -0,0 +1,15 @@
+package com.example.demo.dto;
+
+import java.math.BigDecimal;
+
+public interface SellerMonthRow {
+    Long getSellerId();
+    String getUserName();
+    String getMonth();            // 'YYYY-MM'
+    BigDecimal getUnits();
+    BigDecimal getIncome();
+    BigDecimal getOrders();
+    BigDecimal getCollected();
+    BigDecimal getDeliveries();
+    BigDecimal getOnTime();
+}
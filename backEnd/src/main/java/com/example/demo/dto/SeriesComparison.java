@@ -0,0 +1,27 @@
+package com.example.demo.dto;
+
+import com.example.demo.exceptions.BadRequestException;
+
+import java.time.LocalDate;
+
+/** Baseline requested by {@code /api/finance/series?compare=}: the same range a year or a month earlier. */
+public enum SeriesComparison {
+    NONE, YOY, MOM;
+
+    public static SeriesComparison parse(String value) {
+        if (value == null || value.isBlank()) return NONE;
+        try {
+            return valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("compare must be none, yoy or mom");
+        }
+    }
+
+    public LocalDate shift(LocalDate date) {
+        return switch (this) {
+            case NONE -> date;
+            case YOY -> date.minusYears(1);
+            case MOM -> date.minusMonths(1);
+        };
+    }
+}
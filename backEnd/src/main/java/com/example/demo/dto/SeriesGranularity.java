@@ -0,0 +1,45 @@
+package com.example.demo.dto;
+
+import com.example.demo.exceptions.BadRequestException;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+
+/** Bucket size requested by {@code /api/finance/series?granularity=}. Weeks start on Monday. */
+public enum SeriesGranularity {
+    DAY, WEEK, MONTH;
+
+    public static SeriesGranularity parse(String value) {
+        if (value == null || value.isBlank()) return MONTH;
+        try {
+            return valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("granularity must be day, week or month");
+        }
+    }
+
+    /**
+     * Unit the series queries truncate to. Weeks are folded from days on our side because
+     * date_trunc('week') starts on Sunday in some databases and on Monday in others.
+     */
+    public String queryUnit() {
+        return this == MONTH ? "month" : "day";
+    }
+
+    public LocalDate bucketStart(LocalDate date) {
+        return switch (this) {
+            case DAY -> date;
+            case WEEK -> date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTH -> date.withDayOfMonth(1);
+        };
+    }
+
+    public LocalDate next(LocalDate bucketStart) {
+        return switch (this) {
+            case DAY -> bucketStart.plusDays(1);
+            case WEEK -> bucketStart.plusWeeks(1);
+            case MONTH -> bucketStart.plusMonths(1);
+        };
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.demo.exceptions;
+
+/** Something the client has to fix in its request; answered with 400 and the message. */
+public class BadRequestException extends RuntimeException {
+    public BadRequestException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
+
+import java.time.LocalDateTime;
+
+/**
+ * One requested run of a background job type, split into chunks (background_job_chunks) that the
+ * worker pools of every instance claim independently. The counters are bumped with SQL as chunks
+ * finish, so they double as the progress report.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "background_jobs", indexes = {@Index(columnList = "created_at")})
+public class BackgroundJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private long id;
+
+    @Column(name = "type", nullable = false, length = 64)
+    private String type;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    private BackgroundJobStatus status;
+
+    @Column(name = "requested_by", length = 100)
+    private String requestedBy;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    @ColumnDefault("0")
+    @Column(name = "total_chunks", nullable = false)
+    private int totalChunks;
+
+    @ColumnDefault("0")
+    @Column(name = "done_chunks", nullable = false)
+    private int doneChunks;
+
+    @ColumnDefault("0")
+    @Column(name = "failed_chunks", nullable = false)
+    private int failedChunks;
+
+    // Rows the finished chunks reported as processed
+    @ColumnDefault("0")
+    @Column(name = "items_processed", nullable = false)
+    private long itemsProcessed;
+}
@@ -0,0 +1,64 @@
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
+
+import java.time.LocalDateTime;
+
+/**
+ * A partition of a BackgroundJob: an id range (both ends inclusive, null for "everything") that
+ * one worker runs in one go. Claimed with a conditional UPDATE that sets the owner and a lease;
+ * a chunk whose owner died is claimed again once the lease runs out.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "background_job_chunks", indexes = {
+        @Index(columnList = "status, next_attempt_at"),
+        @Index(columnList = "job_id")})
+public class BackgroundJobChunk {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "background_job_chunks_seq")
+    @SequenceGenerator(name = "background_job_chunks_seq", sequenceName = "background_job_chunks_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "job_id", nullable = false)
+    private long jobId;
+
+    @Column(name = "range_start")
+    private Long rangeStart;
+
+    @Column(name = "range_end")
+    private Long rangeEnd;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    private BackgroundJobStatus status;
+
+    @ColumnDefault("0")
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    // Not claimed before this; pushed back after each failed attempt
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "owner_id", length = 128)
+    private String ownerId;
+
+    @Column(name = "locked_until")
+    private LocalDateTime lockedUntil;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    @ColumnDefault("0")
+    @Column(name = "items_processed", nullable = false)
+    private long itemsProcessed;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+}
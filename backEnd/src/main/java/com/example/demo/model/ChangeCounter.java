@@ -0,0 +1,22 @@
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/** A named counter bumped in the same transaction as the writes it tracks; one row per name. */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "change_counters")
+public class ChangeCounter {
+
+    @Id
+    @Column(name = "name", length = 64)
+    private String name;
+
+    @Column(name = "value", nullable = false)
+    private long value;
+}
@@ -13,7 +13,9 @@ import java.time.LocalDateTime;
 @Getter
 @Entity
 
-@Table(name = "costos", indexes = {@Index(columnList = "fecha")})
+@Table(name = "costos", indexes = {@Index(columnList = "fecha"), @Index(columnList = "fecha, id")},
+        // one row per occurrence of a recurring cost, however often the generator runs
+        uniqueConstraints = {@UniqueConstraint(columnNames = {"recurring_cost_id", "occurrence_date"})})
 public class Costs {
 
     @Id
@@ -40,4 +42,11 @@ public class Costs {
     @Column(name="asunto")
     private String reason;
 
+    // Set on occurrences of a RecurringCost (including the cost it was created from)
+    @Column(name="recurring_cost_id")
+    private Long recurringCostId;
+
+    @Column(name="occurrence_date")
+    private LocalDate occurrenceDate;
+
 }
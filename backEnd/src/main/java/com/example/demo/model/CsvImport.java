@@ -0,0 +1,60 @@
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress of a CSV import. rows_done counts the data rows already committed (inserted or
+ * rejected) and moves in the same transaction as each batch, so a resumed import skips exactly
+ * those rows. Imports sent with a key are found again by (kind, import_key).
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "csv_imports", indexes = {@Index(columnList = "created_at")},
+        uniqueConstraints = {@UniqueConstraint(columnNames = {"kind", "import_key"})})
+public class CsvImport {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "kind", nullable = false, length = 20)
+    private CsvImportKind kind;
+
+    @Column(name = "import_key", length = 200)
+    private String importKey;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    private CsvImportStatus status;
+
+    @Column(name = "requested_by", length = 100)
+    private String requestedBy;
+
+    @ColumnDefault("0")
+    @Column(name = "rows_done", nullable = false)
+    private long rowsDone;
+
+    @ColumnDefault("0")
+    @Column(name = "inserted", nullable = false)
+    private long inserted;
+
+    @ColumnDefault("0")
+    @Column(name = "failed", nullable = false)
+    private long failed;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+}
@@ -0,0 +1,7 @@
+package com.example.demo.model;
+
+public enum CsvImportStatus {
+    RUNNING,        // a request is streaming it, or one died without noticing
+    INTERRUPTED,    // the upload broke off; resend the file with the same key to go on
+    COMPLETED
+}
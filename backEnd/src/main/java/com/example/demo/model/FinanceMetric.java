@@ -0,0 +1,9 @@
+package com.example.demo.model;
+
+public enum FinanceMetric {
+    INCOME,   // products.precio by start month and seller
+    UNITS,    // products.cantidad by start month and seller
+    COGS,     // products.cogs_amount of delivered orders by start month and seller
+    CASH_IN,  // pagos.valor by payment month
+    EXPENSE   // costos.valor by cost month and type
+}
@@ -0,0 +1,63 @@
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Pre-aggregated finance totals, one row per month x metric x cost type x seller.
+ * Unused dimensions hold sentinels ('' cost type, seller 0) so the key never has NULLs.
+ * Maintained incrementally by FinanceRollupService; rows are written with SQL, this
+ * mapping exists for the schema and for reads.
+ */
+@Getter
+@Setter
+@Entity
+@IdClass(FinanceMonthlyRollup.Key.class)
+@Table(name = "finance_monthly_rollup")
+public class FinanceMonthlyRollup {
+
+    @Id
+    @Column(name = "month_start")
+    private LocalDate monthStart;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(name = "metric", length = 20)
+    private FinanceMetric metric;
+
+    @Id
+    @Column(name = "cost_type", length = 20)
+    private String costType = "";
+
+    @Id
+    @Column(name = "seller_id")
+    private long sellerId;
+
+    @Column(name = "amount", nullable = false, precision = 14, scale = 2)
+    private BigDecimal amount = BigDecimal.ZERO;
+
+    // amount divided by the month's price index (UNITS copied as is); times a base month's
+    // index it gives the amount in that month's money
+    @ColumnDefault("0")
+    @Column(name = "amount_real", nullable = false, precision = 24, scale = 8)
+    private BigDecimal amountReal = BigDecimal.ZERO;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private LocalDate monthStart;
+        private FinanceMetric metric;
+        private String costType;
+        private long sellerId;
+    }
+}
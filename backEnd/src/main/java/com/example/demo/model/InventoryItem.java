@@ -1,5 +1,6 @@
 package com.example.demo.model;
 
+import com.example.demo.service.ProductChangeCounter;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
@@ -9,8 +10,10 @@ import java.time.LocalDateTime;
 @Getter
 @Setter
 @Entity
+@EntityListeners(ProductChangeCounter.class)
 @Table(name = "inventory_items", indexes = {
-    @Index(columnList = "name")
+    @Index(columnList = "name"),
+    @Index(columnList = "name, id")
 })
 public class InventoryItem {
 
@@ -0,0 +1,33 @@
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Lease on a scheduled job, shared by every instance. Taken with a conditional UPDATE (or the
+ * first INSERT) by JobLockService; rows are written with SQL, this mapping exists for the schema
+ * and for reads.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "job_locks")
+public class JobLock {
+
+    @Id
+    @Column(name = "job_name", length = 64)
+    private String jobName;
+
+    @Column(name = "owner_id", nullable = false, length = 128)
+    private String ownerId;
+
+    @Column(name = "locked_at", nullable = false)
+    private LocalDateTime lockedAt;
+
+    // The lease is free once this has passed, even if the owner never released it
+    @Column(name = "locked_until", nullable = false)
+    private LocalDateTime lockedUntil;
+}
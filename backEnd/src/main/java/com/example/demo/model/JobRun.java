@@ -0,0 +1,46 @@
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * One execution of a scheduled job. (job_name, trigger_key) is unique, so a trigger that fires
+ * on several instances runs on only one of them; manual runs have no trigger key.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "job_runs",
+        indexes = {@Index(columnList = "job_name, started_at")},
+        uniqueConstraints = {@UniqueConstraint(columnNames = {"job_name", "trigger_key"})})
+public class JobRun {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private long id;
+
+    @Column(name = "job_name", nullable = false, length = 64)
+    private String jobName;
+
+    @Column(name = "trigger_key", length = 64)
+    private String triggerKey;
+
+    @Column(name = "owner_id", nullable = false, length = 128)
+    private String ownerId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    private JobRunStatus status;
+
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    @Column(name = "error", length = 1000)
+    private String error;
+}
@@ -0,0 +1,35 @@
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/** How far a scheduled job has completed, so a restart can tell whether a run was missed. */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "job_watermarks")
+public class JobWatermark {
+
+    @Id
+    @Column(name = "job_name", length = 64)
+    private String jobName;
+
+    // Last day the job completed for
+    @Column(name = "completed_through", nullable = false)
+    private LocalDate completedThrough;
+
+    @Column(name = "completed_at", nullable = false)
+    private LocalDateTime completedAt;
+
+    public JobWatermark(String jobName, LocalDate completedThrough) {
+        this.jobName = jobName;
+        this.completedThrough = completedThrough;
+        this.completedAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * One month of a consumer price index (e.g. INDEC's CPI), loaded by an admin. Only ratios between
+ * months are used, so the base year of the series doesn't matter as long as it's consistent.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "price_index")
+public class PriceIndex {
+
+    @Id
+    @Column(name = "month_start")
+    private LocalDate monthStart;
+
+    @Column(name = "index_value", nullable = false, precision = 14, scale = 4)
+    private BigDecimal value;
+
+    public PriceIndex(LocalDate monthStart, BigDecimal value) {
+        this.monthStart = monthStart;
+        this.value = value;
+    }
+}
@@ -1,9 +1,11 @@
 package com.example.demo.model;
 
+import com.example.demo.service.ProductChangeCounter;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -12,14 +14,18 @@ import java.util.List;
 @Setter
 @Getter
 @Entity
+@EntityListeners(ProductChangeCounter.class)
 @Table(name = "products", indexes = {
     @Index(columnList = "startdate"),
-    @Index(columnList = "type")
+    @Index(columnList = "startdate, id"),
+    @Index(columnList = "type"),
+    @Index(columnList = "saldo")
 })
 public class Product {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "products_seq")
+    @SequenceGenerator(name = "products_seq", sequenceName = "products_seq", allocationSize = 50)
     private long id;
 
     @Column(name = "titulo")
@@ -29,21 +35,12 @@ public class Product {
     @Column(name = "type")
     private ProductType productType;
 
-    @Column(name = "medidas")
-    private String medidas;
-
     @Column(name = "material")
     private String material;
 
-    @Column(name = "pintura")
-    private String pintura;
-
     @Column(name = "color")
     private String color;
 
-    @Column(name = "laqueado")
-    private String laqueado;
-
     @Column(name = "cantidad")
     private long cantidad;
 
@@ -56,22 +53,28 @@ public class Product {
     @Column(name = "fechaestimada")
     private LocalDate fechaEstimada;
 
-    @Column(name = "foto")
-    private String foto;
-
-    @Column(name = "notas")
-    private String notas;
-
     @Column(name = "precio", nullable = false, precision = 12, scale = 2)
     private BigDecimal precio;
 
     @Column(name = "cogs_amount", precision = 12, scale = 2)
     private BigDecimal cogsAmount;
 
+    // Optimistic-lock version; bumped on every write (and forced on material changes) for ETags
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private long version;
+
     @OneToOne(mappedBy = "product", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @JsonIgnore
     private WorkOrder workOrder;
 
+    // Cold text columns; owning side so the association stays a lazy proxy in list reads
+    @OneToOne(fetch = FetchType.LAZY, cascade = CascadeType.ALL, orphanRemoval = true)
+    @JoinColumn(name = "detail_id")
+    @JsonIgnore
+    private ProductDetail detail;
+
     @OneToMany(mappedBy = "product", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @JsonIgnore
     private List<OrderPayments> orderPayments;
@@ -91,4 +94,74 @@ public class Product {
 
     @Column(name = "client_email")
     private String clientPhone;
+
+    // Running payment totals, kept in step with the pagos rows so list/filter reads never load them
+    @Column(name = "total_paid", precision = 12, scale = 2)
+    private BigDecimal totalPaid = BigDecimal.ZERO;
+
+    @Column(name = "deposit_paid", precision = 12, scale = 2)
+    private BigDecimal depositPaid = BigDecimal.ZERO;
+
+    // precio - total_paid
+    @Column(name = "saldo", precision = 12, scale = 2)
+    private BigDecimal balance;
+
+    // ---------------- DETAIL ----------------
+    // Delegates keep the flat Product API (and its JSON); reading loads the detail row,
+    // writing creates it on first use.
+
+    private ProductDetail detail() {
+        if (detail == null) detail = new ProductDetail();
+        return detail;
+    }
+
+    public String getMedidas() { return detail == null ? null : detail.getMedidas(); }
+
+    public void setMedidas(String medidas) { detail().setMedidas(medidas); }
+
+    public String getPintura() { return detail == null ? null : detail.getPintura(); }
+
+    public void setPintura(String pintura) { detail().setPintura(pintura); }
+
+    public String getLaqueado() { return detail == null ? null : detail.getLaqueado(); }
+
+    public void setLaqueado(String laqueado) { detail().setLaqueado(laqueado); }
+
+    public String getFoto() { return detail == null ? null : detail.getFoto(); }
+
+    public void setFoto(String foto) { detail().setFoto(foto); }
+
+    public String getNotas() { return detail == null ? null : detail.getNotas(); }
+
+    public void setNotas(String notas) { detail().setNotas(notas); }
+
+    /** Adds a payment to the running totals. Call in the same transaction that saves the payment. */
+    public void recordPayment(String paymentType, BigDecimal amount) {
+        if (amount == null) return;
+        totalPaid = nz(totalPaid).add(amount);
+        if ("DEPOSIT".equals(paymentType)) {
+            depositPaid = nz(depositPaid).add(amount);
+        }
+        refreshPaymentStatus();
+    }
+
+    @PrePersist
+    @PreUpdate
+    public void refreshPaymentStatus() {
+        BigDecimal paid = nz(totalPaid);
+        balance = nz(precio).subtract(paid);
+
+        if (pagoStatus == PaymentStatus.CANCELADO) return; // set by hand, never derived
+        if (paid.signum() < 0) {
+            pagoStatus = PaymentStatus.REEMBOLSO;
+        } else if (paid.signum() == 0) {
+            pagoStatus = null;
+        } else if (balance.signum() <= 0) {
+            pagoStatus = PaymentStatus.ABONADO;
+        } else {
+            pagoStatus = PaymentStatus.PAGO_SEÑA;
+        }
+    }
+
+    private static BigDecimal nz(BigDecimal v) { return v == null ? BigDecimal.ZERO : v; }
 }
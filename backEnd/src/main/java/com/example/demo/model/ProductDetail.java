@@ -0,0 +1,37 @@
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Rarely-read free-text columns of a product (measurements, finish, photo URL, notes),
+ * split off so list, status and finance scans over products read narrow rows.
+ * Loaded lazily through {@link Product#getDetail()}.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "product_details")
+public class ProductDetail {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_details_seq")
+    @SequenceGenerator(name = "product_details_seq", sequenceName = "product_details_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "medidas")
+    private String medidas;
+
+    @Column(name = "pintura")
+    private String pintura;
+
+    @Column(name = "laqueado")
+    private String laqueado;
+
+    @Column(name = "foto")
+    private String foto;
+
+    @Column(name = "notas")
+    private String notas;
+}
@@ -1,5 +1,6 @@
 package com.example.demo.model;
 
+import com.example.demo.service.ProductChangeCounter;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.Getter;
@@ -9,13 +10,15 @@ import java.math.BigDecimal;
 @Getter
 @Setter
 @Entity
+@EntityListeners(ProductChangeCounter.class)
 @Table(name = "product_materials", indexes = {
     @Index(columnList = "product_id")
 })
 public class ProductMaterial {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_materials_seq")
+    @SequenceGenerator(name = "product_materials_seq", sequenceName = "product_materials_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -0,0 +1,91 @@
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * A recurring cost: the template every occurrence in costos is generated from. Occurrence k
+ * falls on anchorDate + k periods (not chained from the previous one, so an anchor on the 31st
+ * returns to the 31st after a short month). next_due_date is indexed, so the nightly job reads
+ * only the templates that are due.
+ */
+@Setter
+@Getter
+@Entity
+@Table(name = "recurring_costs", indexes = {@Index(columnList = "next_due_date")})
+public class RecurringCost {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private long id;
+
+    @Column(name = "tipo")
+    @Enumerated(EnumType.STRING)
+    private CostType costType;
+
+    @Column(name = "valor", nullable = false, precision = 12, scale = 2)
+    private BigDecimal amount;
+
+    @Column(name = "asunto")
+    private String reason;
+
+    @Column(name = "frequencia", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private PaymentFrequency frequency;
+
+    // Occurrence 0, the cost the template was created from
+    @Column(name = "anchor_date", nullable = false)
+    private LocalDate anchorDate;
+
+    // Index and date of the next occurrence still to be generated
+    @Column(name = "next_index", nullable = false)
+    private int nextIndex;
+
+    @Column(name = "next_due_date")
+    private LocalDate nextDueDate;
+
+    @Column(name = "active", nullable = false)
+    private boolean active = true;
+
+    @Column(name = "fechacreado")
+    private LocalDateTime createdAt;
+
+    public LocalDate occurrence(int k) {
+        return occurrence(anchorDate, frequency, k);
+    }
+
+    public static LocalDate occurrence(LocalDate anchor, PaymentFrequency frequency, long k) {
+        return switch (frequency) {
+            case WEEKLY -> anchor.plus(k, ChronoUnit.WEEKS);
+            case MONTHLY -> anchor.plusMonths(k);
+            case YEARLY -> anchor.plusYears(k);
+            case ONE_TIME -> throw new IllegalStateException("ONE_TIME costs don't recur");
+        };
+    }
+
+    /** Moves the next occurrence to the first one after {@code date}. */
+    public void advancePast(LocalDate date) {
+        while (!occurrence(nextIndex).isAfter(date)) nextIndex++;
+        nextDueDate = occurrence(nextIndex);
+    }
+
+    /** A new occurrence of this template, keyed by (recurring_cost_id, occurrence_date). */
+    public Costs instance(LocalDate date) {
+        Costs c = new Costs();
+        c.setCostType(costType);
+        c.setDate(date);
+        c.setAmount(amount);
+        c.setReason(reason + " (Auto)");
+        c.setFrequency(frequency);
+        c.setRecurringCostId(id);
+        c.setOccurrenceDate(date);
+        c.setCreatedAt(LocalDateTime.now());
+        return c;
+    }
+}
@@ -1,9 +1,11 @@
 package com.example.demo.model;
 
+import com.example.demo.service.ProductChangeCounter;
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.IdentifierLoadAccess;
 
 import java.time.LocalDateTime;
@@ -12,11 +14,13 @@ import java.time.LocalDateTime;
 @Entity
 @Getter
 @Setter
-@Table(name = "work_orders", indexes = {@Index(columnList = "status")})
+@EntityListeners(ProductChangeCounter.class)
+@Table(name = "work_orders", indexes = {@Index(columnList = "status"), @Index(columnList = "delivered_at")})
 public class WorkOrder {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "work_orders_seq")
+    @SequenceGenerator(name = "work_orders_seq", sequenceName = "work_orders_seq", allocationSize = 50)
     private Long id;
 
     @OneToOne(fetch = FetchType.LAZY)
@@ -30,6 +34,16 @@ public class WorkOrder {
 
     private LocalDateTime updateAt;
 
+    // Set when the order moves to ENTREGADO; unlike updateAt, later edits don't move it
+    @Column(name = "delivered_at")
+    private LocalDateTime deliveredAt;
+
+    // Optimistic-lock version; also feeds the product/work-order ETags
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private long version;
+
 
 
 
@@ -0,0 +1,11 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.BackgroundJobChunk;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface BackgroundJobChunkRepo extends JpaRepository<BackgroundJobChunk, Long> {
+
+    List<BackgroundJobChunk> findByJobIdOrderById(long jobId);
+}
@@ -0,0 +1,15 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.BackgroundJob;
+import com.example.demo.model.BackgroundJobStatus;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface BackgroundJobRepo extends JpaRepository<BackgroundJob, Long> {
+
+    List<BackgroundJob> findAllByOrderByCreatedAtDesc(Limit limit);
+
+    List<BackgroundJob> findByStatusOrderByCreatedAtDesc(BackgroundJobStatus status, Limit limit);
+}
@@ -1,8 +1,11 @@
 package com.example.demo.repository;
 
+import com.example.demo.dto.ExpenseMonthTypeRow;
 import com.example.demo.dto.MonthlyAmountRow;
+import com.example.demo.dto.PeriodAmountRow;
 import com.example.demo.model.Costs;
 import com.example.demo.model.PaymentFrequency;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -28,6 +31,33 @@ public interface CostRepo extends JpaRepository<Costs, Long> {
     List<MonthlyAmountRow> expensesByDate(@Param("from") LocalDate from,
                                           @Param("to") LocalDate to);
 
+    // expensesByDate bucketed by :unit ('day' or 'month')
+    @Query(value = """
+        SELECT to_char(CASE :unit WHEN 'day' THEN date_trunc('day', c.fecha)
+                                  ELSE date_trunc('month', c.fecha) END, 'YYYY-MM-DD') AS period,
+               COALESCE(SUM(c.valor), 0) AS total
+        FROM costos c
+        WHERE c.fecha BETWEEN :from AND :to
+        GROUP BY 1
+        ORDER BY 1
+        """, nativeQuery = true)
+    List<PeriodAmountRow> expensesSeries(@Param("unit") String unit,
+                                         @Param("from") LocalDate from,
+                                         @Param("to") LocalDate to);
+
+    // Monthly totals and the per-type breakdown of FinanceService.dashboard() in one scan
+    @Query(value = """
+        SELECT to_char(date_trunc('month', c.fecha), 'YYYY-MM') AS month,
+               c.tipo AS "costType",
+               COALESCE(SUM(c.valor), 0) AS total
+        FROM costos c
+        WHERE c.fecha BETWEEN :from AND :to
+        GROUP BY 1, 2
+        ORDER BY 1, 2
+        """, nativeQuery = true)
+    List<ExpenseMonthTypeRow> expensesByMonthAndType(@Param("from") LocalDate from,
+                                                     @Param("to") LocalDate to);
+
     @Query(value = "SELECT COALESCE(SUM(c.valor), 0) FROM costos c WHERE c.fecha BETWEEN :from AND :to",
             nativeQuery = true)
     BigDecimal expensesTotal(@Param("from") LocalDate from,
@@ -48,4 +78,24 @@ public interface CostRepo extends JpaRepository<Costs, Long> {
                                                          @Param("to") LocalDate to);
 
     List<Costs> findByFrequencyNot(PaymentFrequency frequency);
+
+    // Recurring costs from before templates existed (see RecurringCostService.migrateLegacy)
+    List<Costs> findByFrequencyNotAndRecurringCostIdIsNull(PaymentFrequency frequency);
+
+    // Keyset (cursor) listing on (fecha, id), newest first; undated costs follow, see Cursors.nullsLast
+    @Query("SELECT c FROM Costs c WHERE c.date IS NOT NULL ORDER BY c.date DESC, c.id DESC")
+    List<Costs> findFirstSlice(Limit limit);
+
+    // Row-value comparison, so the (fecha, id) index is walked from the cursor
+    @Query("""
+        SELECT c FROM Costs c
+        WHERE (c.date, c.id) < (:afterDate, :afterId)
+        ORDER BY c.date DESC, c.id DESC
+        """)
+    List<Costs> findSliceAfter(@Param("afterDate") LocalDate afterDate,
+                               @Param("afterId") long afterId,
+                               Limit limit);
+
+    @Query("SELECT c FROM Costs c WHERE c.date IS NULL AND c.id < :afterId ORDER BY c.id DESC")
+    List<Costs> findUndatedSliceAfter(@Param("afterId") long afterId, Limit limit);
 }
\ No newline at end of file
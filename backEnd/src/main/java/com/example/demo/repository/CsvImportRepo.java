@@ -0,0 +1,16 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.CsvImport;
+import com.example.demo.model.CsvImportKind;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface CsvImportRepo extends JpaRepository<CsvImport, Long> {
+
+    Optional<CsvImport> findByKindAndImportKey(CsvImportKind kind, String importKey);
+
+    List<CsvImport> findAllByOrderByCreatedAtDesc(Limit limit);
+}
@@ -0,0 +1,52 @@
+package com.example.demo.repository;
+
+import com.example.demo.dto.RollupTotalRow;
+import com.example.demo.model.FinanceMonthlyRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+public interface FinanceRollupRepo extends JpaRepository<FinanceMonthlyRollup, FinanceMonthlyRollup.Key> {
+
+    // Totals per metric (and cost type) over whole months; sellers summed away
+    @Query(value = """
+        SELECT r.metric AS "metric", r.cost_type AS "costType", COALESCE(SUM(r.amount), 0) AS "total",
+               COALESCE(SUM(r.amount_real), 0) AS "totalReal"
+        FROM finance_monthly_rollup r
+        WHERE r.month_start BETWEEN :from AND :to
+        GROUP BY r.metric, r.cost_type
+        """, nativeQuery = true)
+    List<RollupTotalRow> totals(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    // Same shape as ProductRepo.getUserPerformanceData
+    @Query(value = """
+        SELECT u.username AS "userName",
+               CAST(COALESCE(SUM(CASE WHEN r.metric = 'UNITS' THEN r.amount ELSE 0 END), 0) AS BIGINT) AS "unitsSold",
+               COALESCE(SUM(CASE WHEN r.metric = 'INCOME' THEN r.amount ELSE 0 END), 0) AS "income"
+        FROM finance_monthly_rollup r
+        JOIN usuarios u ON u.id = r.seller_id
+        WHERE r.month_start BETWEEN :from AND :to
+          AND r.metric IN ('INCOME', 'UNITS')
+        GROUP BY u.username
+        HAVING SUM(ABS(r.amount)) > 0
+        """, nativeQuery = true)
+    List<Map<String, Object>> userStats(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    // userStats with income in index units (amount_real); the caller scales it to a base month
+    @Query(value = """
+        SELECT u.username AS "userName",
+               CAST(COALESCE(SUM(CASE WHEN r.metric = 'UNITS' THEN r.amount ELSE 0 END), 0) AS BIGINT) AS "unitsSold",
+               COALESCE(SUM(CASE WHEN r.metric = 'INCOME' THEN r.amount_real ELSE 0 END), 0) AS "income"
+        FROM finance_monthly_rollup r
+        JOIN usuarios u ON u.id = r.seller_id
+        WHERE r.month_start BETWEEN :from AND :to
+          AND r.metric IN ('INCOME', 'UNITS')
+        GROUP BY u.username
+        HAVING SUM(ABS(r.amount)) > 0
+        """, nativeQuery = true)
+    List<Map<String, Object>> userStatsReal(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
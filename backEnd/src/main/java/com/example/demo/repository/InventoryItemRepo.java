@@ -1,10 +1,12 @@
 package com.example.demo.repository;
 
 import com.example.demo.model.InventoryItem;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -16,4 +18,24 @@ public interface InventoryItemRepo extends JpaRepository<InventoryItem, Long> {
 
     @Query(value = "SELECT * FROM inventory_items WHERE quantity <= min_stock", nativeQuery = true)
     List<InventoryItem> findLowStockItems();
+
+    // Keyset (cursor) listing on (name, id); name is NOT NULL, so a row-value comparison
+    // walks the (name, id) index from the cursor
+    @Query("""
+        SELECT i FROM InventoryItem i
+        WHERE (:name IS NULL OR LOWER(i.name) LIKE LOWER(CONCAT('%', :name, '%')))
+        ORDER BY i.name ASC, i.id ASC
+        """)
+    List<InventoryItem> findFirstSlice(@Param("name") String name, Limit limit);
+
+    @Query("""
+        SELECT i FROM InventoryItem i
+        WHERE (:name IS NULL OR LOWER(i.name) LIKE LOWER(CONCAT('%', :name, '%')))
+          AND (i.name, i.id) > (:afterName, :afterId)
+        ORDER BY i.name ASC, i.id ASC
+        """)
+    List<InventoryItem> findSliceAfter(@Param("name") String name,
+                                       @Param("afterName") String afterName,
+                                       @Param("afterId") long afterId,
+                                       Limit limit);
 }
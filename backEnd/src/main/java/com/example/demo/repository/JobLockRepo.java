@@ -0,0 +1,7 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.JobLock;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface JobLockRepo extends JpaRepository<JobLock, String> {
+}
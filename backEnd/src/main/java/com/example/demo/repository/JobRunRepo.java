@@ -0,0 +1,14 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.JobRun;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface JobRunRepo extends JpaRepository<JobRun, Long> {
+
+    List<JobRun> findByJobNameOrderByStartedAtDesc(String jobName, Limit limit);
+
+    List<JobRun> findAllByOrderByStartedAtDesc(Limit limit);
+}
@@ -0,0 +1,7 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.JobWatermark;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface JobWatermarkRepo extends JpaRepository<JobWatermark, String> {
+}
@@ -1,6 +1,7 @@
 package com.example.demo.repository;
 
 import com.example.demo.dto.MonthlyAmountRow;
+import com.example.demo.dto.PeriodAmountRow;
 import com.example.demo.model.OrderPayments;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
@@ -28,6 +29,20 @@ public interface PaymentRepo extends JpaRepository<OrderPayments, Long> {
     List<MonthlyAmountRow> cashFlowByMonth(@Param("from") LocalDate from,
                                            @Param("to") LocalDate to);
 
+    // cashFlowByMonth bucketed by :unit ('day' or 'month')
+    @Query(value = """
+    SELECT to_char(CASE :unit WHEN 'day' THEN date_trunc('day', p.fecha)
+                              ELSE date_trunc('month', p.fecha) END, 'YYYY-MM-DD') AS period,
+           COALESCE(SUM(p.valor), 0) AS total
+    FROM pagos p
+    WHERE p.fecha BETWEEN :from AND :to
+    GROUP BY 1
+    ORDER BY 1
+    """, nativeQuery = true)
+    List<PeriodAmountRow> cashFlowSeries(@Param("unit") String unit,
+                                         @Param("from") LocalDate from,
+                                         @Param("to") LocalDate to);
+
     // FIX: Changed p.paymentDate and p.date to p.fecha
     @Query(value = """
         SELECT to_char(date_trunc('month', p.fecha), 'YYYY-MM') AS month,
@@ -0,0 +1,9 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.PriceIndex;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.LocalDate;
+
+public interface PriceIndexRepo extends JpaRepository<PriceIndex, LocalDate> {
+}
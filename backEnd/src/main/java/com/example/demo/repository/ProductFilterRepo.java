@@ -0,0 +1,43 @@
+package com.example.demo.repository;
+
+import com.example.demo.dto.ProductSummaryResponse;
+import com.example.demo.model.Product;
+import com.example.demo.model.ProductType;
+import com.example.demo.model.Status;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * The /filter reads. Built in {@link ProductFilterRepoImpl} instead of with {@code @Query} so the
+ * outstanding-balance predicate is only part of the statement when the filter is set.
+ * A null {@code outstanding} means any balance.
+ */
+public interface ProductFilterRepo {
+
+    Page<Product> filterProducts(String titulo, ProductType productType, String material, String color,
+                                 Status workOrderStatus, LocalDate from, LocalDate to, Boolean outstanding,
+                                 Pageable pageable);
+
+    // Lean list projection for ?view=summary: only the columns the order grid shows
+    Page<ProductSummaryResponse> filterSummaries(String titulo, ProductType productType, String material,
+                                                 String color, Status workOrderStatus, LocalDate from,
+                                                 LocalDate to, Boolean outstanding, Pageable pageable);
+
+    // Filtered keyset slices, one statement per cursor position so none of them carries an
+    // "(:afterDate IS NULL OR ...)" branch that would keep the planner off the (startdate, id) index
+    List<Product> filterProductsFirst(String titulo, ProductType productType, String material, String color,
+                                      Status workOrderStatus, LocalDate from, LocalDate to, Boolean outstanding,
+                                      Limit limit);
+
+    List<Product> filterProductsAfter(String titulo, ProductType productType, String material, String color,
+                                      Status workOrderStatus, LocalDate from, LocalDate to, Boolean outstanding,
+                                      LocalDate afterDate, long afterId, Limit limit);
+
+    List<Product> filterUndatedProductsAfter(String titulo, ProductType productType, String material,
+                                             String color, Status workOrderStatus, LocalDate from, LocalDate to,
+                                             Boolean outstanding, long afterId, Limit limit);
+}
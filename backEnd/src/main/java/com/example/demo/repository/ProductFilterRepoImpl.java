@@ -0,0 +1,151 @@
+package com.example.demo.repository;
+
+import com.example.demo.dto.ProductSummaryResponse;
+import com.example.demo.model.Product;
+import com.example.demo.model.ProductType;
+import com.example.demo.model.Status;
+import jakarta.persistence.EntityGraph;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.time.LocalDate;
+import java.util.List;
+
+class ProductFilterRepoImpl implements ProductFilterRepo {
+
+    private static final String FILTER_FROM = """
+            FROM Product p LEFT JOIN p.workOrder wo
+            """;
+
+    // Text and enum filters stay catch-alls: the LIKEs cannot use an index anyway
+    private static final String FILTER_WHERE = """
+            WHERE (:titulo IS NULL OR LOWER(p.titulo) LIKE LOWER(CONCAT('%', :titulo, '%')))
+            AND (:productType IS NULL OR p.productType = :productType)
+            AND (:material IS NULL OR LOWER(p.material) LIKE LOWER(CONCAT('%', :material, '%')))
+            AND (:color IS NULL OR LOWER(p.color) LIKE LOWER(CONCAT('%', :color, '%')))
+            AND (:workOrderStatus IS NULL OR wo.status = :workOrderStatus)
+            AND (:from IS NULL OR p.startDate >= :from)
+            AND (:to IS NULL OR p.startDate <= :to)
+            """;
+
+    // A literal bound, so even a generic plan can use the saldo index
+    private static final String OUTSTANDING = " AND p.balance > 0";
+    private static final String SETTLED = " AND p.balance <= 0";
+
+    private static final String SUMMARY_SELECT = """
+            SELECT new com.example.demo.dto.ProductSummaryResponse(
+                p.id, p.titulo, p.productType, wo.id, wo.status, wo.updateAt,
+                p.startDate, p.fechaEntrega, p.fechaEstimada,
+                p.precio, p.totalPaid, p.depositPaid, p.balance, p.pagoStatus)
+            """;
+
+    private static final String DATED_FIRST = " AND p.startDate IS NOT NULL ORDER BY p.startDate DESC, p.id DESC";
+    private static final String DATED_AFTER =
+            " AND (p.startDate, p.id) < (:afterDate, :afterId) ORDER BY p.startDate DESC, p.id DESC";
+    private static final String UNDATED_AFTER = " AND p.startDate IS NULL AND p.id < :afterId ORDER BY p.id DESC";
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Override
+    public Page<Product> filterProducts(String titulo, ProductType productType, String material, String color,
+                                        Status workOrderStatus, LocalDate from, LocalDate to, Boolean outstanding,
+                                        Pageable pageable) {
+        Filter f = new Filter(titulo, productType, material, color, workOrderStatus, from, to, outstanding);
+        return page(withWorkOrder(f.bind(em.createQuery(sorted("SELECT p " + f.clause(), pageable), Product.class))),
+                f, pageable);
+    }
+
+    @Override
+    public Page<ProductSummaryResponse> filterSummaries(String titulo, ProductType productType, String material,
+                                                        String color, Status workOrderStatus, LocalDate from,
+                                                        LocalDate to, Boolean outstanding, Pageable pageable) {
+        Filter f = new Filter(titulo, productType, material, color, workOrderStatus, from, to, outstanding);
+        return page(f.bind(em.createQuery(sorted(SUMMARY_SELECT + f.clause(), pageable),
+                ProductSummaryResponse.class)), f, pageable);
+    }
+
+    @Override
+    public List<Product> filterProductsFirst(String titulo, ProductType productType, String material, String color,
+                                             Status workOrderStatus, LocalDate from, LocalDate to,
+                                             Boolean outstanding, Limit limit) {
+        Filter f = new Filter(titulo, productType, material, color, workOrderStatus, from, to, outstanding);
+        return slice(f, DATED_FIRST, limit).getResultList();
+    }
+
+    @Override
+    public List<Product> filterProductsAfter(String titulo, ProductType productType, String material, String color,
+                                             Status workOrderStatus, LocalDate from, LocalDate to,
+                                             Boolean outstanding, LocalDate afterDate, long afterId, Limit limit) {
+        Filter f = new Filter(titulo, productType, material, color, workOrderStatus, from, to, outstanding);
+        return slice(f, DATED_AFTER, limit)
+                .setParameter("afterDate", afterDate)
+                .setParameter("afterId", afterId)
+                .getResultList();
+    }
+
+    @Override
+    public List<Product> filterUndatedProductsAfter(String titulo, ProductType productType, String material,
+                                                    String color, Status workOrderStatus, LocalDate from,
+                                                    LocalDate to, Boolean outstanding, long afterId, Limit limit) {
+        Filter f = new Filter(titulo, productType, material, color, workOrderStatus, from, to, outstanding);
+        return slice(f, UNDATED_AFTER, limit)
+                .setParameter("afterId", afterId)
+                .getResultList();
+    }
+
+    private TypedQuery<Product> slice(Filter f, String position, Limit limit) {
+        TypedQuery<Product> query = withWorkOrder(f.bind(em.createQuery("SELECT p " + f.clause() + position,
+                Product.class)));
+        if (limit.isLimited()) query.setMaxResults(limit.max());
+        return query;
+    }
+
+    private <T> Page<T> page(TypedQuery<T> query, Filter f, Pageable pageable) {
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(pageable.getPageSize());
+        }
+        return PageableExecutionUtils.getPage(query.getResultList(), pageable,
+                () -> f.bind(em.createQuery("SELECT COUNT(p) " + f.clause(), Long.class)).getSingleResult());
+    }
+
+    private static String sorted(String jpql, Pageable pageable) {
+        Sort sort = pageable.getSort();
+        return sort.isSorted() ? QueryUtils.applySorting(jpql, sort, "p") : jpql;
+    }
+
+    // Same fetch as @EntityGraph(attributePaths = "workOrder") on the other list queries
+    private TypedQuery<Product> withWorkOrder(TypedQuery<Product> query) {
+        EntityGraph<Product> graph = em.createEntityGraph(Product.class);
+        graph.addAttributeNodes("workOrder");
+        return query.setHint("jakarta.persistence.fetchgraph", graph);
+    }
+
+    private record Filter(String titulo, ProductType productType, String material, String color,
+                          Status workOrderStatus, LocalDate from, LocalDate to, Boolean outstanding) {
+
+        String clause() {
+            String where = FILTER_FROM + FILTER_WHERE;
+            if (outstanding == null) return where;
+            return where + (outstanding ? OUTSTANDING : SETTLED);
+        }
+
+        <T> TypedQuery<T> bind(TypedQuery<T> query) {
+            return query.setParameter("titulo", titulo)
+                    .setParameter("productType", productType)
+                    .setParameter("material", material)
+                    .setParameter("color", color)
+                    .setParameter("workOrderStatus", workOrderStatus)
+                    .setParameter("from", from)
+                    .setParameter("to", to);
+        }
+    }
+}
@@ -2,6 +2,8 @@ package com.example.demo.repository;
 
 import com.example.demo.model.ProductMaterial;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -12,4 +14,13 @@ public interface ProductMaterialRepo extends JpaRepository<ProductMaterial, Long
     List<ProductMaterial> findByProduct_Id(Long productId);
 
     void deleteByProduct_IdAndId(Long productId, Long materialId);
+
+    // Materials of the products in an id range, with their items, for the batch COGS recomputation
+    @Query("""
+    SELECT pm
+    FROM ProductMaterial pm
+    JOIN FETCH pm.inventoryItem
+    WHERE pm.product.id BETWEEN :fromId AND :toId
+""")
+    List<ProductMaterial> findByProductIdRange(@Param("fromId") long fromId, @Param("toId") long toId);
 }
@@ -1,27 +1,79 @@
 package com.example.demo.repository;
 
+import com.example.demo.dto.AdminSummaryRow;
 import com.example.demo.dto.MonthlyAmountRow;
+import com.example.demo.dto.PeriodAmountRow;
 import com.example.demo.dto.ProductResponse;
+import com.example.demo.dto.SellerMonthRow;
 import com.example.demo.model.Product;
 import com.example.demo.model.ProductType;
 import com.example.demo.model.Status;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
 @Repository
-public interface ProductRepo extends JpaRepository<Product, Long> {
+public interface ProductRepo extends JpaRepository<Product, Long>, ProductFilterRepo {
+
+    // Search document over titulo, material, color and client phone, plus notas from
+    // product_details. Kept identical to the GIN expression indexes ProductSearchService
+    // creates on PostgreSQL so they get used.
+    String SEARCH_DOCUMENT = "lower(coalesce(titulo, '') || ' ' || coalesce(material, '') || ' '"
+            + " || coalesce(color, '') || ' ' || coalesce(client_email, ''))";
+    String NOTES_DOCUMENT = "lower(coalesce(notas, ''))";
+
+    // Ids matching on either table; each branch is served by its own GIN indexes
+    String SEARCH_MATCHES = "(SELECT id FROM products"
+            + " WHERE lower(:q) <% " + SEARCH_DOCUMENT
+            + " OR to_tsvector('spanish', " + SEARCH_DOCUMENT + ") @@ plainto_tsquery('spanish', :q)"
+            + " UNION SELECT id FROM products WHERE detail_id IN (SELECT id FROM product_details"
+            + " WHERE lower(:q) <% " + NOTES_DOCUMENT
+            + " OR to_tsvector('spanish', " + NOTES_DOCUMENT + ") @@ plainto_tsquery('spanish', :q)))";
+    String RANK_DOCUMENT = SEARCH_DOCUMENT + " || ' ' || lower(coalesce(d.notas, ''))";
+
+    // List reads fetch the work order in the same select; payments and materials
+    // are batch-loaded per page (hibernate.default_batch_fetch_size).
+    @Override
+    @EntityGraph(attributePaths = "workOrder")
+    Page<Product> findAll(Pageable pageable);
+
+    // Keyset (cursor) listing on (startDate, id): no count query and no OFFSET scan. The
+    // row-value comparison walks the (startdate, id) index from the cursor; products without
+    // a start date follow by id (Cursors.nullsLast).
+    @EntityGraph(attributePaths = "workOrder")
+    @Query("SELECT p FROM Product p WHERE p.startDate IS NOT NULL ORDER BY p.startDate DESC, p.id DESC")
+    List<Product> findFirstSlice(Limit limit);
+
+    @EntityGraph(attributePaths = "workOrder")
+    @Query("""
+           SELECT p FROM Product p
+           WHERE (p.startDate, p.id) < (:afterDate, :afterId)
+           ORDER BY p.startDate DESC, p.id DESC
+           """)
+    List<Product> findSliceAfter(@Param("afterDate") LocalDate afterDate,
+                                 @Param("afterId") long afterId,
+                                 Limit limit);
+
+    @EntityGraph(attributePaths = "workOrder")
+    @Query("SELECT p FROM Product p WHERE p.startDate IS NULL AND p.id < :afterId ORDER BY p.id DESC")
+    List<Product> findUndatedSliceAfter(@Param("afterId") long afterId, Limit limit);
 
     // Find products by type
+    @EntityGraph(attributePaths = "workOrder")
     Page<Product> findByProductType(ProductType type, Pageable pageable);
 
     @Query(value = """
@@ -36,9 +88,42 @@ public interface ProductRepo extends JpaRepository<Product, Long> {
                                          @Param("to") LocalDate to);
 
 
+    @EntityGraph(attributePaths = "workOrder")
     @Query("SELECT p FROM Product p WHERE LOWER(p.titulo) LIKE LOWER(CONCAT('%', :query, '%')) ")
     Page<Product> searchByTitulo(@Param("query") String query, Pageable pageable);
 
+    // Ranked search (PostgreSQL only): trigram word similarity for typo tolerance plus
+    // Spanish full-text rank; both predicates are served by GIN indexes.
+    @Query(value = "SELECT p.id FROM products p LEFT JOIN product_details d ON d.id = p.detail_id"
+            + " WHERE p.id IN " + SEARCH_MATCHES
+            + " ORDER BY ts_rank(to_tsvector('spanish', " + RANK_DOCUMENT + "), plainto_tsquery('spanish', :q))"
+            + " + word_similarity(lower(:q), " + RANK_DOCUMENT + ") DESC, p.startdate DESC, p.id DESC",
+            countQuery = "SELECT count(*) FROM products WHERE id IN " + SEARCH_MATCHES,
+            nativeQuery = true)
+    Page<Long> searchIdsRanked(@Param("q") String q, Pageable pageable);
+
+    @EntityGraph(attributePaths = "workOrder")
+    List<Product> findByIdIn(Collection<Long> ids);
+
+    // Detail endpoint: the only read that needs the cold columns up front
+    @EntityGraph(attributePaths = {"workOrder", "detail"})
+    Optional<Product> findWithDetailById(long id);
+
+    // Seed rows for the in-memory search index (fields in ProductSearchService order)
+    @Query("SELECT p.id, p.titulo, p.material, p.color, d.notas, p.clientPhone FROM Product p LEFT JOIN p.detail d")
+    List<Object[]> findSearchDocuments();
+
+    // Row lock for read-modify-write of the running payment totals. Also bumps the version,
+    // since edits that only touch product_details would otherwise leave the ETag unchanged.
+    @Lock(LockModeType.PESSIMISTIC_FORCE_INCREMENT)
+    @Query("SELECT p FROM Product p WHERE p.id = :id")
+    Optional<Product> findByIdForUpdate(@Param("id") Long id);
+
+    // findByIdForUpdate for a batch of payments; id order so concurrent batches lock alike
+    @Lock(LockModeType.PESSIMISTIC_FORCE_INCREMENT)
+    @Query("SELECT p FROM Product p WHERE p.id IN :ids ORDER BY p.id")
+    List<Product> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+
     @Query("SELECT p FROM Product p WHERE LOWER(p.titulo) LIKE LOWER(:titulo)")
     Optional<Product> findByTitulo(@Param("titulo") String titulo);
 
@@ -54,8 +139,52 @@ public interface ProductRepo extends JpaRepository<Product, Long> {
             """, nativeQuery = true)
     List<Map<String, Object>> getUserPerformanceData(@Param("from") LocalDate from, @Param("to") LocalDate to);
 
+    // Seller x month in one pass: orders by start month, cash by payment month, deliveries by the
+    // month the work order moved to ENTREGADO (on time when delivered by the promised date, if any)
+    @Query(value = """
+            SELECT x.seller_id AS "sellerId", u.username AS "userName", x.month AS "month",
+                   SUM(x.units) AS "units", SUM(x.income) AS "income", SUM(x.orders) AS "orders",
+                   SUM(x.collected) AS "collected", SUM(x.deliveries) AS "deliveries", SUM(x.on_time) AS "onTime"
+            FROM (
+                SELECT p.ownerid AS seller_id, to_char(p.startdate, 'YYYY-MM') AS month,
+                       COALESCE(p.cantidad, 0) AS units, COALESCE(p.precio, 0) AS income, 1 AS orders,
+                       0 AS collected, 0 AS deliveries, 0 AS on_time
+                FROM products p
+                WHERE p.startdate BETWEEN :from AND :to
+                UNION ALL
+                SELECT p.ownerid, to_char(pg.fecha, 'YYYY-MM'), 0, 0, 0, pg.valor, 0, 0
+                FROM pagos pg
+                JOIN products p ON p.id = pg.product_id
+                WHERE pg.fecha BETWEEN :from AND :to
+                UNION ALL
+                SELECT p.ownerid, to_char(w.delivered_at, 'YYYY-MM'), 0, 0, 0, 0, 1,
+                       CASE WHEN COALESCE(p.fechaentrega, p.fechaestimada) IS NULL
+                                 OR CAST(w.delivered_at AS DATE) <= COALESCE(p.fechaentrega, p.fechaestimada)
+                            THEN 1 ELSE 0 END
+                FROM work_orders w
+                JOIN products p ON p.id = w.product_id
+                WHERE w.status = 'ENTREGADO'
+                  AND w.delivered_at >= :from AND w.delivered_at < :toExclusive
+            ) x
+            JOIN usuarios u ON u.id = x.seller_id
+            GROUP BY x.seller_id, u.username, x.month
+            ORDER BY u.username, x.seller_id
+            """, nativeQuery = true)
+    List<SellerMonthRow> sellerMonthMatrix(@Param("from") LocalDate from, @Param("to") LocalDate to,
+                                           @Param("toExclusive") LocalDate toExclusive);
+
+    @EntityGraph(attributePaths = "workOrder")
     List<Product> findByFechaEstimadaBetween(LocalDate today, LocalDate endOfWeek);
 
+    long countByFechaEstimadaBetween(LocalDate today, LocalDate endOfWeek);
+
+    @Query("""
+            SELECT p.titulo FROM Product p JOIN p.workOrder w
+            WHERE w.status = :status
+            ORDER BY w.updateAt ASC, p.id ASC
+            """)
+    List<String> findTitlesByWorkOrderStatusOldestFirst(@Param("status") Status status, Limit limit);
+
 
    @Query("""
                SELECT w.status, COUNT(p)
@@ -65,8 +194,40 @@ public interface ProductRepo extends JpaRepository<Product, Long> {
    List<Object[]> findTopOrders();
 
 
+   @EntityGraph(attributePaths = "workOrder")
    List<Product> findByWorkOrderStatus(Status status);
 
+   /**
+    * "productVersion-workOrderVersion-inventoryStamp" for one product; the inventory stamp
+    * covers material names and unit costs shown in the response.
+    */
+   @Query("""
+    SELECT CONCAT(CAST(p.version AS String), '-', CAST(COALESCE(w.version, 0) AS String), '-',
+                  COALESCE(CAST((SELECT MAX(i.lastUpdated) FROM InventoryItem i) AS String), '0'))
+    FROM Product p LEFT JOIN p.workOrder w
+    WHERE p.id = :id
+    """)
+   Optional<String> findVersionTag(@Param("id") long id);
+
+   @Lock(LockModeType.OPTIMISTIC_FORCE_INCREMENT)
+   @Query("SELECT p FROM Product p WHERE p.id = :id")
+   Optional<Product> findByIdForVersionBump(@Param("id") Long id);
+
+   /** Every admin dashboard KPI in one round trip: one pass over work_orders plus two counts. */
+   @Query(value = """
+    SELECT (SELECT COUNT(*) FROM usuarios) AS "totalUsers",
+           (SELECT COUNT(*) FROM products) AS "totalOrders",
+           COALESCE(SUM(CASE WHEN p.fechaentrega BETWEEN :today AND :endOfWeek THEN 1 ELSE 0 END), 0) AS "dueThisWeek",
+           COALESCE(SUM(CASE WHEN w.status = 'CREADO' THEN 1 ELSE 0 END), 0) AS "creado",
+           COALESCE(SUM(CASE WHEN w.status = 'PRODUCCION' THEN 1 ELSE 0 END), 0) AS "produccion",
+           COALESCE(SUM(CASE WHEN w.status = 'TERMINADO' THEN 1 ELSE 0 END), 0) AS "terminado",
+           COALESCE(SUM(CASE WHEN w.status = 'ENTREGADO' THEN 1 ELSE 0 END), 0) AS "entregado",
+           COALESCE(SUM(CASE WHEN w.status = 'ATRASADO' THEN 1 ELSE 0 END), 0) AS "atrasado"
+    FROM work_orders w
+    JOIN products p ON p.id = w.product_id
+    """, nativeQuery = true)
+   AdminSummaryRow adminSummary(@Param("today") LocalDate today, @Param("endOfWeek") LocalDate endOfWeek);
+
    @Query(value = """
     SELECT COALESCE(SUM(p.cogs_amount), 0)
     FROM products p
@@ -76,26 +237,33 @@ public interface ProductRepo extends JpaRepository<Product, Long> {
     """, nativeQuery = true)
    BigDecimal cogsByDateRange(@Param("from") LocalDate from, @Param("to") LocalDate to);
 
-   @Query("""
-           SELECT p FROM Product p LEFT JOIN p.workOrder wo
-           WHERE (:titulo IS NULL OR LOWER(p.titulo) LIKE LOWER(CONCAT('%', :titulo, '%')))
-           AND (:productType IS NULL OR p.productType = :productType)
-           AND (:material IS NULL OR LOWER(p.material) LIKE LOWER(CONCAT('%', :material, '%')))
-           AND (:color IS NULL OR LOWER(p.color) LIKE LOWER(CONCAT('%', :color, '%')))
-           AND (:workOrderStatus IS NULL OR wo.status = :workOrderStatus)
-           AND (:from IS NULL OR p.startDate >= :from)
-           AND (:to IS NULL OR p.startDate <= :to)
-           """)
-   Page<Product> filterProducts(
-           @Param("titulo") String titulo,
-           @Param("productType") ProductType productType,
-           @Param("material") String material,
-           @Param("color") String color,
-           @Param("workOrderStatus") Status workOrderStatus,
-           @Param("from") LocalDate from,
-           @Param("to") LocalDate to,
-           Pageable pageable
-   );
+   // Series variants of incomeByMonth / cogsByDateRange; unit is 'day' or 'month'
+   @Query(value = """
+    SELECT to_char(CASE :unit WHEN 'day' THEN date_trunc('day', p.startdate)
+                              ELSE date_trunc('month', p.startdate) END, 'YYYY-MM-DD') AS period,
+           COALESCE(SUM(p.precio), 0) AS total
+    FROM products p
+    WHERE p.startdate BETWEEN :from AND :to
+    GROUP BY 1
+    ORDER BY 1
+    """, nativeQuery = true)
+   List<PeriodAmountRow> incomeSeries(@Param("unit") String unit,
+                                      @Param("from") LocalDate from,
+                                      @Param("to") LocalDate to);
 
-}
+   @Query(value = """
+    SELECT to_char(CASE :unit WHEN 'day' THEN date_trunc('day', p.startdate)
+                              ELSE date_trunc('month', p.startdate) END, 'YYYY-MM-DD') AS period,
+           COALESCE(SUM(p.cogs_amount), 0) AS total
+    FROM products p
+    JOIN work_orders wo ON wo.product_id = p.id
+    WHERE wo.status = 'ENTREGADO'
+    AND p.startdate BETWEEN :from AND :to
+    GROUP BY 1
+    ORDER BY 1
+    """, nativeQuery = true)
+   List<PeriodAmountRow> cogsSeries(@Param("unit") String unit,
+                                    @Param("from") LocalDate from,
+                                    @Param("to") LocalDate to);
 
+}
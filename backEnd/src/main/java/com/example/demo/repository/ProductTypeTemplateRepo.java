@@ -2,6 +2,7 @@ package com.example.demo.repository;
 
 import com.example.demo.model.ProductType;
 import com.example.demo.model.ProductTypeTemplate;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -9,5 +10,6 @@ import java.util.List;
 
 @Repository
 public interface ProductTypeTemplateRepo extends JpaRepository<ProductTypeTemplate, Long> {
+    @EntityGraph(attributePaths = "inventoryItem")
     List<ProductTypeTemplate> findByProductType(ProductType productType);
 }
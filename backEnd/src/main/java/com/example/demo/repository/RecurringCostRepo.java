@@ -0,0 +1,15 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.RecurringCost;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface RecurringCostRepo extends JpaRepository<RecurringCost, Long> {
+
+    // Nightly job: range scan on the next_due_date index
+    List<RecurringCost> findByActiveTrueAndNextDueDateLessThanEqual(LocalDate date);
+
+    List<RecurringCost> findByActiveTrue();
+}
@@ -24,6 +24,9 @@ public interface WorkOrderRepo extends JpaRepository<WorkOrder, Long> {
 
     Optional<WorkOrder> findByProductId(Long productId);
 
+    @Query("SELECT w.status, COUNT(w) FROM WorkOrder w GROUP BY w.status")
+    List<Object[]> countGroupedByStatus();
+
 
     @Query("""
     SELECT COUNT(w)
@@ -33,6 +36,18 @@ public interface WorkOrderRepo extends JpaRepository<WorkOrder, Long> {
 """)
     long countFechaEntrega(@Param("today") LocalDate today, @Param("endOfWeek") LocalDate endOfWeek);
 
+    // Orders in an id range still open past their delivery date (fechaEntrega, else fechaEstimada)
+    @Query("""
+    SELECT w
+    FROM WorkOrder w
+    JOIN FETCH w.product p
+    WHERE w.id BETWEEN :fromId AND :toId
+      AND (w.status IS NULL OR w.status IN :open)
+      AND COALESCE(p.fechaEntrega, p.fechaEstimada) < :today
+""")
+    List<WorkOrder> findOverdue(@Param("fromId") long fromId, @Param("toId") long toId,
+                                @Param("open") List<Status> open, @Param("today") LocalDate today);
+
 
 
 }
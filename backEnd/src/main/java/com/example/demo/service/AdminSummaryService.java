@@ -0,0 +1,95 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.AdminSummaryRow;
+import com.example.demo.model.Status;
+import com.example.demo.repository.ProductRepo;
+import com.example.demo.utils.AfterCommit;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Admin dashboard KPIs from a single aggregate query, cached for a short TTL. Writes that
+ * change any figure call {@link #invalidate()}; concurrent refreshes after expiry share one
+ * recompute instead of each hitting the database. A recompute that overlaps an invalidation is
+ * returned but not stored, so it cannot outlive the write that made it stale.
+ */
+@Service
+public class AdminSummaryService {
+
+    private record Cached(Map<String, Object> summary, long expiresAt) {}
+
+    private final ProductRepo productRepo;
+    private final long ttlMillis;
+    private final AtomicLong generation = new AtomicLong();
+    private volatile Cached cached;
+
+    public AdminSummaryService(ProductRepo productRepo,
+                               @Value("${admin.summary.ttl-seconds:30}") long ttlSeconds) {
+        this.productRepo = productRepo;
+        this.ttlMillis = ttlSeconds * 1000;
+    }
+
+    public Map<String, Object> getSummary() {
+        Cached c = cached;
+        if (c != null && c.expiresAt() > System.currentTimeMillis()) return c.summary();
+
+        synchronized (this) {
+            c = cached;
+            if (c != null && c.expiresAt() > System.currentTimeMillis()) return c.summary();
+
+            long startedAt = generation.get();
+            Map<String, Object> summary = compute();
+            if (generation.get() == startedAt) {
+                cached = new Cached(summary, System.currentTimeMillis() + ttlMillis);
+            }
+            return summary;
+        }
+    }
+
+    /** Drops the cached summary once the current transaction (if any) commits. */
+    public void invalidate() {
+        AfterCommit.run(() -> {
+            generation.incrementAndGet();
+            cached = null;
+        });
+    }
+
+    private Map<String, Object> compute() {
+        LocalDate today = LocalDate.now();
+        AdminSummaryRow row = productRepo.adminSummary(today, today.plusDays(7));
+
+        Map<Status, Long> byStatus = new LinkedHashMap<>();
+        byStatus.put(Status.CREADO, row.getCreado());
+        byStatus.put(Status.PRODUCCION, row.getProduccion());
+        byStatus.put(Status.TERMINADO, row.getTerminado());
+        byStatus.put(Status.ENTREGADO, row.getEntregado());
+        byStatus.put(Status.ATRASADO, row.getAtrasado());
+
+        Map<String, Long> ordersByStatus = new LinkedHashMap<>();
+        List<Object[]> topProducts = new ArrayList<>();
+        byStatus.forEach((status, n) -> {
+            if (n > 0) {
+                ordersByStatus.put(status.name(), n);
+                topProducts.add(new Object[]{status, n});
+            }
+        });
+
+        Map<String, Object> summary = new HashMap<>();
+        summary.put("totalUsers", row.getTotalUsers());
+        summary.put("totalOrders", row.getTotalOrders());
+        summary.put("finishedOrders", row.getTerminado());
+        summary.put("dueThisWeek", row.getDueThisWeek());
+        summary.put("ordersByStatus", Collections.unmodifiableMap(ordersByStatus));
+        summary.put("topProducts", Collections.unmodifiableList(topProducts));
+        return Collections.unmodifiableMap(summary);
+    }
+}
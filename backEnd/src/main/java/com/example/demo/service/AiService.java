@@ -2,7 +2,6 @@ package com.example.demo.service;
 
 import com.example.demo.dto.ChatRequest;
 import com.example.demo.dto.FinanceDashboardResponse;
-import com.example.demo.dto.ProductResponse;
 import com.example.demo.model.Status;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -162,21 +161,21 @@ public class AiService {
         }
 
         // Gather data
-        List<ProductResponse> pastDue = productService.getProductsPastDue();
-        List<ProductResponse> notPickedUp = productService.getProductsNotPickedUp();
-        List<ProductResponse> dueThisWeek = productService.getProductsDueThisWeek();
+        long pastDue = productService.countPastDue();
+        long notPickedUp = productService.countNotPickedUp();
+        long dueThisWeek = productService.countDueThisWeek();
 
         LocalDate firstOfMonth = today.withDayOfMonth(1);
         FinanceDashboardResponse finance = financeService.dashboard(firstOfMonth, today);
 
-        String oldestNotPickedUp = notPickedUp.isEmpty() ? "ninguno" :
-                notPickedUp.get(0).titulo() != null ? notPickedUp.get(0).titulo() : "desconocido";
+        String oldestNotPickedUp = notPickedUp == 0 ? "ninguno" :
+                productService.findOldestNotPickedUpTitle().orElse("desconocido");
 
         String context = String.format(
                 "Pedidos atrasados: %d\nPedidos terminados sin retirar: %d (más antiguo: %s)\n" +
                 "Entregas esta semana: %d\nGanancia neta del mes: $%s\nIngresos del mes: $%s",
-                pastDue.size(), notPickedUp.size(), oldestNotPickedUp,
-                dueThisWeek.size(), finance.tRev(), finance.tInc()
+                pastDue, notPickedUp, oldestNotPickedUp,
+                dueThisWeek, finance.tRev(), finance.tInc()
         );
 
         String system = "Eres un asistente de negocio para una empresa de muebles. " +
@@ -289,9 +288,9 @@ public class AiService {
                 return String.format("Página de finanzas. Ingresos del mes: $%s, Gastos: $%s, Ganancia: $%s",
                         data.tInc(), data.tExp(), data.tRev());
             } else if ("dashboard".equals(page)) {
-                int pastDue = productService.getProductsPastDue().size();
-                int dueThisWeek = productService.getProductsDueThisWeek().size();
-                int notPickedUp = productService.getProductsNotPickedUp().size();
+                long pastDue = productService.countPastDue();
+                long dueThisWeek = productService.countDueThisWeek();
+                long notPickedUp = productService.countNotPickedUp();
                 return String.format("Dashboard de pedidos. Pedidos atrasados: %d, entregas esta semana: %d, terminados sin retirar: %d",
                         pastDue, dueThisWeek, notPickedUp);
             }
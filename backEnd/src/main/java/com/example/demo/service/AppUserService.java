@@ -35,16 +35,19 @@ public class AppUserService {
 
     private final AuthenticationManager authenticationManager;
     private final JwtTokenUtil jwtTokenUtil;
+    private final AdminSummaryService adminSummaryService;
 
     @Autowired
     public AppUserService(AuthenticationManager authenticationManager,
                           JwtTokenUtil jwtTokenUtil,
                           UserRepo appUserRepository,
-                          PasswordEncoder passwordEncoder) {
+                          PasswordEncoder passwordEncoder,
+                          AdminSummaryService adminSummaryService) {
         this.authenticationManager = authenticationManager;
         this.jwtTokenUtil = jwtTokenUtil;
         this.appUserRepository = appUserRepository;
         this.passwordEncoder = passwordEncoder;
+        this.adminSummaryService = adminSummaryService;
     }
 
     public Map<String, Object> loginUser(String username, String password) {
@@ -91,7 +94,9 @@ public class AppUserService {
         user.setPassword(passwordEncoder.encode(registration.getPassword()));
         user.setAppUserRole(registration.getAppUserRole());
 
-        return appUserRepository.save(user);
+        AppUser saved = appUserRepository.save(user);
+        adminSummaryService.invalidate();
+        return saved;
     }
 
     public AppUser getUserById(Long id) {
@@ -122,6 +127,15 @@ public class AppUserService {
         return appUserRepository.findByUsername(username).orElse(null);
     }
 
+    /** The authenticated user as a lazy reference taken from the JWT principal, without a lookup query. */
+    public AppUser getCurrentUserReference() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof AppUser principal) {
+            return appUserRepository.getReferenceById(principal.getId());
+        }
+        return getCurrentUser();
+    }
+
     public AppUser getFirstUser() {
         return appUserRepository.findAll().stream().findFirst().orElse(null);
     }
@@ -130,6 +144,7 @@ public class AppUserService {
         Optional<AppUser> category = appUserRepository.findById(id);
         if (category.isPresent()) {
             appUserRepository.delete(category.get());
+            adminSummaryService.invalidate();
             return true;
         }
         throw new RuntimeException("Product with ID " + id + " not found");
@@ -0,0 +1,40 @@
+package com.example.demo.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A kind of background job. Spring beans implementing this are picked up by
+ * BackgroundJobService under their {@link #type()}.
+ */
+public interface BackgroundJobHandler {
+
+    /** Inclusive id range of one chunk; {@link #ALL} for jobs that aren't split. */
+    record Range(Long start, Long end) {}
+
+    Range ALL = new Range(null, null);
+
+    String type();
+
+    String description();
+
+    /** Splits the work into chunks when the job is requested. An empty list means nothing to do. */
+    List<Range> partition();
+
+    /**
+     * Runs one chunk in its own transaction(s) and returns the number of rows processed. A chunk
+     * is retried after a failure or a lost lease, so running it twice must be harmless.
+     */
+    int run(Range range);
+
+    /** [min, max] as read from MIN(id) / MAX(id), cut into ranges of {@code size} ids; empty when there are no rows. */
+    static List<Range> idRanges(Object min, Object max, long size) {
+        List<Range> ranges = new ArrayList<>();
+        if (min == null || max == null) return ranges;
+        long hi = ((Number) max).longValue();
+        for (long start = ((Number) min).longValue(); start <= hi; start += size) {
+            ranges.add(new Range(start, Math.min(start + size - 1, hi)));
+        }
+        return ranges;
+    }
+}
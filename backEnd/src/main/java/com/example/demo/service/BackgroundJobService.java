@@ -0,0 +1,281 @@
+package com.example.demo.service;
+
+import com.example.demo.exceptions.BadRequestException;
+import com.example.demo.model.BackgroundJob;
+import com.example.demo.model.BackgroundJobChunk;
+import com.example.demo.model.BackgroundJobStatus;
+import com.example.demo.repository.BackgroundJobChunkRepo;
+import com.example.demo.repository.BackgroundJobRepo;
+import com.example.demo.utils.AfterCommit;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs maintenance work off the request threads. A requested job is split into chunks stored in
+ * background_job_chunks; a poller on every instance claims as many due chunks as its worker pool
+ * has free threads (conditional UPDATE, so a chunk goes to one worker) and the pool runs them.
+ * A failed chunk is retried with exponential backoff up to jobs.max-attempts times, and a chunk
+ * whose worker died is claimed again when its lease runs out. The pool is small on purpose: it
+ * shares the connection pool with the interactive requests.
+ */
+@Service
+public class BackgroundJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(BackgroundJobService.class);
+
+    private static final String DUE_CHUNKS_SQL = """
+        SELECT id FROM background_job_chunks
+        WHERE (status = 'QUEUED' AND next_attempt_at <= ?) OR (status = 'RUNNING' AND locked_until <= ?)
+        ORDER BY id
+        LIMIT ?
+        """;
+    private static final String CLAIM_SQL = """
+        UPDATE background_job_chunks SET status = 'RUNNING', owner_id = ?, locked_until = ?, attempts = attempts + 1
+        WHERE id = ? AND ((status = 'QUEUED' AND next_attempt_at <= ?) OR (status = 'RUNNING' AND locked_until <= ?))
+        """;
+    private static final String JOB_STARTED_SQL =
+        "UPDATE background_jobs SET status = 'RUNNING', started_at = ? WHERE id = ? AND status = 'QUEUED'";
+    private static final String CHUNK_DONE_SQL = """
+        UPDATE background_job_chunks SET status = 'SUCCEEDED', finished_at = ?, items_processed = ?, locked_until = NULL
+        WHERE id = ? AND owner_id = ? AND status = 'RUNNING'
+        """;
+    private static final String CHUNK_RETRY_SQL = """
+        UPDATE background_job_chunks SET status = 'QUEUED', next_attempt_at = ?, last_error = ?, locked_until = NULL
+        WHERE id = ? AND owner_id = ? AND status = 'RUNNING'
+        """;
+    private static final String CHUNK_FAILED_SQL = """
+        UPDATE background_job_chunks SET status = 'FAILED', finished_at = ?, last_error = ?, locked_until = NULL
+        WHERE id = ? AND owner_id = ? AND status = 'RUNNING'
+        """;
+    private static final String JOB_CHUNK_DONE_SQL =
+        "UPDATE background_jobs SET done_chunks = done_chunks + 1, items_processed = items_processed + ? WHERE id = ?";
+    private static final String JOB_CHUNK_FAILED_SQL =
+        "UPDATE background_jobs SET failed_chunks = failed_chunks + 1 WHERE id = ?";
+    private static final String JOB_FINISHED_SQL = """
+        UPDATE background_jobs
+        SET status = CASE WHEN failed_chunks > 0 THEN 'FAILED' ELSE 'SUCCEEDED' END, finished_at = ?
+        WHERE id = ? AND status = 'RUNNING' AND done_chunks + failed_chunks >= total_chunks
+        """;
+
+    private final Map<String, BackgroundJobHandler> handlers = new LinkedHashMap<>();
+    private final BackgroundJobRepo jobRepo;
+    private final BackgroundJobChunkRepo chunkRepo;
+    private final JdbcTemplate jdbcTemplate;
+    private final String ownerId;
+    private final int workers;
+    private final int maxAttempts;
+    private final long leaseSeconds;
+    private final long retryBaseSeconds;
+    private final long retryMaxSeconds;
+    private final ExecutorService pool;
+    private final AtomicInteger busy = new AtomicInteger();
+
+    public BackgroundJobService(List<BackgroundJobHandler> handlers,
+                                BackgroundJobRepo jobRepo,
+                                BackgroundJobChunkRepo chunkRepo,
+                                JdbcTemplate jdbcTemplate,
+                                JobLockService jobLocks,
+                                @Value("${jobs.workers:2}") int workers,
+                                @Value("${jobs.max-attempts:5}") int maxAttempts,
+                                @Value("${jobs.lock.lease-seconds:600}") long leaseSeconds,
+                                @Value("${jobs.retry.base-seconds:30}") long retryBaseSeconds,
+                                @Value("${jobs.retry.max-seconds:3600}") long retryMaxSeconds) {
+        for (BackgroundJobHandler h : handlers) this.handlers.put(h.type(), h);
+        this.jobRepo = jobRepo;
+        this.chunkRepo = chunkRepo;
+        this.jdbcTemplate = jdbcTemplate;
+        this.ownerId = jobLocks.ownerId();
+        this.workers = workers;
+        this.maxAttempts = maxAttempts;
+        this.leaseSeconds = leaseSeconds;
+        this.retryBaseSeconds = retryBaseSeconds;
+        this.retryMaxSeconds = retryMaxSeconds;
+        AtomicInteger n = new AtomicInteger();
+        ThreadFactory threads = r -> {
+            Thread t = new Thread(r, "background-job-" + n.incrementAndGet());
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        };
+        this.pool = Executors.newFixedThreadPool(workers, threads);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        // Chunks still running are claimed again by whichever instance sees their lease expire
+        pool.shutdownNow();
+    }
+
+    public Map<String, String> types() {
+        Map<String, String> types = new LinkedHashMap<>();
+        handlers.forEach((type, h) -> types.put(type, h.description()));
+        return types;
+    }
+
+    public List<BackgroundJob> list(BackgroundJobStatus status, int limit) {
+        Limit max = Limit.of(limit);
+        return status != null
+                ? jobRepo.findByStatusOrderByCreatedAtDesc(status, max)
+                : jobRepo.findAllByOrderByCreatedAtDesc(max);
+    }
+
+    public BackgroundJob get(long id) {
+        return jobRepo.findById(id).orElse(null);
+    }
+
+    public List<BackgroundJobChunk> chunks(long jobId) {
+        return chunkRepo.findByJobIdOrderById(jobId);
+    }
+
+    // ---------------- REQUESTING ----------------
+
+    /** Stores a job of {@code type} with its chunks; the workers pick it up right after commit. */
+    @Transactional
+    public BackgroundJob enqueue(String type, String requestedBy) {
+        BackgroundJobHandler handler = handlers.get(type);
+        if (handler == null) throw new BadRequestException("Unknown job type: " + type);
+
+        List<BackgroundJobHandler.Range> ranges = handler.partition();
+        LocalDateTime now = LocalDateTime.now();
+        BackgroundJob job = new BackgroundJob();
+        job.setType(type);
+        job.setRequestedBy(requestedBy);
+        job.setCreatedAt(now);
+        job.setTotalChunks(ranges.size());
+        if (ranges.isEmpty()) {
+            job.setStatus(BackgroundJobStatus.SUCCEEDED);
+            job.setStartedAt(now);
+            job.setFinishedAt(now);
+            return jobRepo.save(job);
+        }
+        job.setStatus(BackgroundJobStatus.QUEUED);
+        jobRepo.saveAndFlush(job);
+
+        List<BackgroundJobChunk> chunks = new ArrayList<>(ranges.size());
+        for (BackgroundJobHandler.Range r : ranges) {
+            BackgroundJobChunk c = new BackgroundJobChunk();
+            c.setJobId(job.getId());
+            c.setRangeStart(r.start());
+            c.setRangeEnd(r.end());
+            c.setStatus(BackgroundJobStatus.QUEUED);
+            c.setNextAttemptAt(now);
+            chunks.add(c);
+        }
+        chunkRepo.saveAll(chunks);
+        log.info("Background job {} ({}) queued in {} chunks", job.getId(), type, ranges.size());
+        AfterCommit.run(() -> Thread.ofVirtual().start(this::poll));
+        return job;
+    }
+
+    /** Stops handing out the job's chunks; those already running finish. */
+    @Transactional
+    public boolean cancel(long id) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        int jobs = jdbcTemplate.update("UPDATE background_jobs SET status = 'CANCELLED', finished_at = ?"
+                + " WHERE id = ? AND status IN ('QUEUED', 'RUNNING')", now, id);
+        if (jobs == 0) return false;
+        jdbcTemplate.update("UPDATE background_job_chunks SET status = 'CANCELLED', finished_at = ?"
+                + " WHERE job_id = ? AND status = 'QUEUED'", now, id);
+        return true;
+    }
+
+    // ---------------- WORKERS ----------------
+
+    @Scheduled(fixedDelayString = "${jobs.poll-ms:5000}", initialDelayString = "${jobs.poll-ms:5000}")
+    public synchronized void poll() {
+        int free = workers - busy.get();
+        if (free <= 0) return;
+
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp at = Timestamp.valueOf(now);
+        Timestamp until = Timestamp.valueOf(now.plusSeconds(leaseSeconds));
+        // A few extra candidates, in case another instance claims some of them first
+        List<Long> due = jdbcTemplate.queryForList(DUE_CHUNKS_SQL, Long.class, at, at, free * 2);
+        for (Long chunkId : due) {
+            if (free == 0) break;
+            if (jdbcTemplate.update(CLAIM_SQL, ownerId, until, chunkId, at, at) == 0) continue;
+            free--;
+            busy.incrementAndGet();
+            pool.execute(() -> {
+                try {
+                    runChunk(chunkId);
+                } finally {
+                    busy.decrementAndGet();
+                }
+                poll();   // chain the next chunk instead of waiting for the poller
+            });
+        }
+    }
+
+    private void runChunk(long chunkId) {
+        BackgroundJobChunk chunk = chunkRepo.findById(chunkId).orElse(null);
+        BackgroundJob job = chunk != null ? jobRepo.findById(chunk.getJobId()).orElse(null) : null;
+        if (job == null) return;
+        if (job.getStatus() == BackgroundJobStatus.CANCELLED) {
+            // reclaimed after its lease ran out, but the job was cancelled meanwhile
+            jdbcTemplate.update("UPDATE background_job_chunks SET status = 'CANCELLED', locked_until = NULL"
+                    + " WHERE id = ? AND owner_id = ?", chunkId, ownerId);
+            return;
+        }
+        jdbcTemplate.update(JOB_STARTED_SQL, Timestamp.valueOf(LocalDateTime.now()), job.getId());
+
+        BackgroundJobHandler handler = handlers.get(job.getType());
+        try {
+            if (handler == null) throw new IllegalStateException("No handler for job type " + job.getType());
+            int items = handler.run(new BackgroundJobHandler.Range(chunk.getRangeStart(), chunk.getRangeEnd()));
+            if (jdbcTemplate.update(CHUNK_DONE_SQL, Timestamp.valueOf(LocalDateTime.now()), items, chunkId, ownerId) == 1) {
+                jdbcTemplate.update(JOB_CHUNK_DONE_SQL, items, job.getId());
+                finishIfDone(job.getId());
+            }
+        } catch (RuntimeException e) {
+            failed(job, chunk, e);
+        }
+    }
+
+    // The chunk was read after CLAIM_SQL, so its attempts already count this one
+    private void failed(BackgroundJob job, BackgroundJobChunk chunk, RuntimeException e) {
+        int attempts = chunk.getAttempts();
+        String error = e.toString().length() > 1000 ? e.toString().substring(0, 1000) : e.toString();
+        LocalDateTime now = LocalDateTime.now();
+        if (attempts < maxAttempts) {
+            LocalDateTime next = now.plusSeconds(backoffSeconds(attempts));
+            jdbcTemplate.update(CHUNK_RETRY_SQL, Timestamp.valueOf(next), error, chunk.getId(), ownerId);
+            log.warn("Background job {} chunk {} failed (attempt {}), retrying at {}: {}",
+                    job.getId(), chunk.getId(), attempts, next, error);
+        } else if (jdbcTemplate.update(CHUNK_FAILED_SQL, Timestamp.valueOf(now), error, chunk.getId(), ownerId) == 1) {
+            jdbcTemplate.update(JOB_CHUNK_FAILED_SQL, job.getId());
+            finishIfDone(job.getId());
+            log.error("Background job {} chunk {} failed after {} attempts", job.getId(), chunk.getId(), attempts, e);
+        }
+    }
+
+    private void finishIfDone(long jobId) {
+        if (jdbcTemplate.update(JOB_FINISHED_SQL, Timestamp.valueOf(LocalDateTime.now()), jobId) == 1) {
+            log.info("Background job {} finished", jobId);
+        }
+    }
+
+    // base, 2 x base, 4 x base ... up to the cap
+    long backoffSeconds(int attempts) {
+        long factor = 1L << Math.min(attempts - 1, 20);
+        return Math.min(retryBaseSeconds * factor, retryMaxSeconds);
+    }
+}
@@ -0,0 +1,282 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.CashForecastPoint;
+import com.example.demo.dto.CashForecastResponse;
+import com.example.demo.dto.SeriesGranularity;
+import com.example.demo.exceptions.BadRequestException;
+import com.example.demo.model.PaymentFrequency;
+import com.example.demo.model.PaymentStatus;
+import com.example.demo.model.Product;
+import com.example.demo.model.RecurringCost;
+import com.example.demo.repository.RecurringCostRepo;
+import com.example.demo.utils.AfterCommit;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Cash-flow projection kept up to date instead of recomputed per request. Open balances live in
+ * a day-sorted map (moved by product and payment writes after commit), recurring costs as their
+ * templates, so a forecast reads a window of the map and expands a handful of templates.
+ * A periodic reseed corrects drift from writes that bypass the services.
+ * <p>
+ * Guarded like {@link FinanceAnalyticsSnapshot}: the reseed reads the {@link CommitStamps}
+ * counter, the open balances and the templates in one REPEATABLE READ snapshot under this
+ * object's monitor, and swaps them in before letting go. Write hooks wait for the monitor, and
+ * one whose commit the scan already saw is dropped.
+ */
+@Service
+public class CashForecastService {
+
+    public static final int MAX_DAYS = 366;
+    private static final String STAMP = "forecast";
+
+    /** What one order is still expected to pay, and when; null when nothing is expected. */
+    public record Receivable(LocalDate due, long cents) {
+
+        public static Receivable of(Product p) {
+            if (p == null || p.getPagoStatus() == PaymentStatus.CANCELADO) return null;
+            long open = toCents(nz(p.getPrecio()).subtract(nz(p.getTotalPaid())));
+            if (open <= 0) return null;
+            return new Receivable(p.getFechaEntrega() != null ? p.getFechaEntrega() : p.getFechaEstimada(), open);
+        }
+    }
+
+    /** The part of an active RecurringCost the forecast needs; null for inactive templates. */
+    private record Series(LocalDate anchor, PaymentFrequency frequency, int nextIndex, long cents) {
+
+        static Series of(RecurringCost t) {
+            if (!t.isActive() || t.getAnchorDate() == null || t.getAmount() == null) return null;
+            return new Series(t.getAnchorDate(), t.getFrequency(), t.getNextIndex(), toCents(t.getAmount()));
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final RecurringCostRepo recurringCostRepo;
+    private final TransactionTemplate scanTx;
+    private final CommitStamps stamps;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Long, Receivable> receivables = new HashMap<>();
+    private final TreeMap<Long, Long> dueByDay = new TreeMap<>();   // epoch day -> cents
+    private long unscheduled;
+    private final Map<Long, Series> recurring = new HashMap<>();   // by template id
+    private volatile boolean seeded = false;
+    private long scannedStamp;   // guarded by the monitor
+
+    public CashForecastService(JdbcTemplate jdbcTemplate, RecurringCostRepo recurringCostRepo,
+                               PlatformTransactionManager transactionManager, CommitStamps stamps) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.recurringCostRepo = recurringCostRepo;
+        this.scanTx = new TransactionTemplate(transactionManager);
+        this.scanTx.setReadOnly(true);
+        this.scanTx.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.stamps = stamps;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${finance.forecast.reseed-ms:600000}",
+            initialDelayString = "${finance.forecast.reseed-ms:600000}")
+    public void reseed() {
+        stamps.createRow(STAMP);
+        // Connection first, monitor second: write hooks hold a pooled connection while they wait
+        scanTx.executeWithoutResult(tx -> {
+            synchronized (this) {
+                long seen = stamps.read(STAMP);   // first statement: fixes the snapshot the scan reads
+                swap(scanReceivables(), loadRecurring());
+                scannedStamp = seen;
+            }
+        });
+    }
+
+    private Map<Long, Receivable> scanReceivables() {
+        Map<Long, Receivable> fresh = new HashMap<>();
+        jdbcTemplate.query("""
+                SELECT p.id, COALESCE(p.fechaentrega, p.fechaestimada), COALESCE(p.precio, 0) - COALESCE(p.total_paid, 0)
+                FROM products p
+                WHERE COALESCE(p.precio, 0) - COALESCE(p.total_paid, 0) > 0
+                  AND (p.pagostatus IS NULL OR p.pagostatus <> 'CANCELADO')
+                """, rs -> {
+            Date due = rs.getDate(2);
+            fresh.put(rs.getLong(1), new Receivable(due != null ? due.toLocalDate() : null, toCents(rs.getBigDecimal(3))));
+        });
+        return fresh;
+    }
+
+    private void swap(Map<Long, Receivable> fresh, Map<Long, Series> series) {
+        lock.writeLock().lock();
+        try {
+            receivables.clear();
+            dueByDay.clear();
+            unscheduled = 0;
+            fresh.forEach(this::put);
+            recurring.clear();
+            recurring.putAll(series);
+            seeded = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private Map<Long, Series> loadRecurring() {
+        Map<Long, Series> series = new HashMap<>();
+        for (RecurringCost t : recurringCostRepo.findByActiveTrue()) {
+            Series s = Series.of(t);
+            if (s != null) series.put(t.getId(), s);
+        }
+        return series;
+    }
+
+    // ---------------- WRITE HOOKS (applied after commit) ----------------
+
+    /** Call after any change to an order's price, payments, dates or payment status. */
+    public void productChanged(Product p) {
+        long id = p.getId();
+        Receivable now = Receivable.of(p);
+        write(() -> {
+            remove(id);
+            if (now != null) put(id, now);
+        });
+    }
+
+    public void productRemoved(long productId) {
+        write(() -> remove(productId));
+    }
+
+    /** Call after creating, generating occurrences of, or deactivating recurring cost templates. */
+    public void recurringChanged(Collection<RecurringCost> templates) {
+        Map<Long, Series> changed = new HashMap<>();
+        for (RecurringCost t : templates) changed.put(t.getId(), Series.of(t));
+        write(() -> changed.forEach((id, series) -> {
+            if (series == null) recurring.remove(id);
+            else recurring.put(id, series);
+        }));
+    }
+
+    public void reloadRecurring() {
+        CommitStamps.Stamp stamp = stamps.take(STAMP);
+        AfterCommit.run(() -> {
+            Map<Long, Series> series = loadRecurring();
+            apply(stamp, () -> {
+                recurring.clear();
+                recurring.putAll(series);
+            });
+        });
+    }
+
+    private void write(Runnable update) {
+        CommitStamps.Stamp stamp = stamps.take(STAMP);
+        AfterCommit.run(() -> apply(stamp, update));
+    }
+
+    // synchronized: waits out a running reseed, see the class comment
+    private synchronized void apply(CommitStamps.Stamp commit, Runnable update) {
+        if (commit.seenBy(scannedStamp)) return; // the last reseed already has it
+        lock.writeLock().lock();
+        try {
+            update.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void put(long id, Receivable r) {
+        receivables.put(id, r);
+        if (r.due() == null) unscheduled += r.cents();
+        else dueByDay.merge(r.due().toEpochDay(), r.cents(), Long::sum);
+    }
+
+    private void remove(long id) {
+        Receivable old = receivables.remove(id);
+        if (old == null) return;
+        if (old.due() == null) {
+            unscheduled -= old.cents();
+        } else {
+            long day = old.due().toEpochDay();
+            long left = dueByDay.merge(day, -old.cents(), Long::sum);
+            if (left == 0) dueByDay.remove(day);
+        }
+    }
+
+    // ---------------- FORECAST ----------------
+
+    public CashForecastResponse forecast(int days, SeriesGranularity granularity) {
+        if (days < 1 || days > MAX_DAYS) throw new BadRequestException("days must be between 1 and " + MAX_DAYS);
+        if (!seeded) reseed();
+
+        LocalDate from = LocalDate.now();
+        LocalDate to = from.plusDays(days - 1);
+        Map<LocalDate, long[]> buckets = new TreeMap<>();   // bucket start -> {inflow, outflow}
+        for (LocalDate b = granularity.bucketStart(from); !b.isAfter(to); b = granularity.next(b)) {
+            buckets.put(b, new long[2]);
+        }
+
+        long overdue = 0, unscheduledNow;
+        lock.readLock().lock();
+        try {
+            for (long v : dueByDay.headMap(from.toEpochDay(), false).values()) overdue += v;
+            NavigableMap<Long, Long> window = dueByDay.subMap(from.toEpochDay(), true, to.toEpochDay(), true);
+            window.forEach((day, cents) ->
+                    buckets.get(granularity.bucketStart(LocalDate.ofEpochDay(day)))[0] += cents);
+            for (Series series : recurring.values()) {
+                for (LocalDate d : occurrences(series, from, to)) {
+                    buckets.get(granularity.bucketStart(d))[1] += series.cents();
+                }
+            }
+            unscheduledNow = unscheduled;
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<CashForecastPoint> points = new ArrayList<>(buckets.size());
+        long inflow = 0, outflow = 0;
+        for (Map.Entry<LocalDate, long[]> e : buckets.entrySet()) {
+            long in = e.getValue()[0], out = e.getValue()[1];
+            inflow += in;
+            outflow += out;
+            points.add(new CashForecastPoint(e.getKey().toString(), money(in), money(out),
+                    money(in - out), money(inflow - outflow)));
+        }
+        return new CashForecastResponse(from, to, granularity.name().toLowerCase(), points,
+                money(inflow), money(outflow), money(inflow - outflow), money(overdue), money(unscheduledNow));
+    }
+
+    // From the template's next occurrence on; one not generated yet that fell before today is skipped
+    private static List<LocalDate> occurrences(Series series, LocalDate from, LocalDate to) {
+        List<LocalDate> dates = new ArrayList<>();
+        for (int k = series.nextIndex(); ; k++) {
+            LocalDate d = RecurringCost.occurrence(series.anchor(), series.frequency(), k);
+            if (d.isAfter(to)) break;
+            if (!d.isBefore(from)) dates.add(d);
+        }
+        return dates;
+    }
+
+    private static long toCents(BigDecimal v) {
+        return v == null ? 0L : v.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    private static BigDecimal money(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    private static BigDecimal nz(BigDecimal v) { return v == null ? BigDecimal.ZERO : v; }
+}
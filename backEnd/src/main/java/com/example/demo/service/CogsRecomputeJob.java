@@ -0,0 +1,46 @@
+package com.example.demo.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/** Recomputes products.cogs_amount from the current unit costs, by product id range. */
+@Component
+public class CogsRecomputeJob implements BackgroundJobHandler {
+
+    private final ProductMaterialService productMaterialService;
+    private final JdbcTemplate jdbcTemplate;
+    private final long chunkSize;
+
+    public CogsRecomputeJob(ProductMaterialService productMaterialService, JdbcTemplate jdbcTemplate,
+                            @Value("${jobs.chunk-size:500}") long chunkSize) {
+        this.productMaterialService = productMaterialService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public String type() {
+        return "cogs-recompute";
+    }
+
+    @Override
+    public String description() {
+        return "Recompute product COGS from material unit costs";
+    }
+
+    @Override
+    public List<Range> partition() {
+        Map<String, Object> bounds = jdbcTemplate.queryForMap(
+                "SELECT MIN(product_id) AS lo, MAX(product_id) AS hi FROM product_materials");
+        return BackgroundJobHandler.idRanges(bounds.get("lo"), bounds.get("hi"), chunkSize);
+    }
+
+    @Override
+    public int run(Range range) {
+        return productMaterialService.syncCogsForRange(range.start(), range.end());
+    }
+}
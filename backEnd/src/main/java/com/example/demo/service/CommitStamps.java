@@ -0,0 +1,130 @@
+package com.example.demo.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Named counters in change_counters that move once per writing transaction, as its last
+ * statement before COMMIT. Writers queue on the row, so the values follow commit order: a
+ * reader that sees value n sees every write stamped n or lower and none stamped higher.
+ * <p>
+ * The list ETags read them as change markers. The in-memory views reseeded from the database
+ * (finance snapshot, work-order status counts, cash forecast) read theirs inside the scan's
+ * snapshot and drop after-commit hooks whose {@link Stamp} the scan already includes.
+ * <p>
+ * The bump is queued on the Hibernate session and runs after the final flush, so a row lock
+ * is held only while the transaction commits. All rows a transaction took are bumped together,
+ * in name order, so two writers never lock them in opposite orders.
+ */
+@Component
+public class CommitStamps {
+
+    /** Where one write falls in commit order; known once its transaction has committed. */
+    public static final class Stamp {
+        private volatile long value;
+
+        private Stamp(long value) {
+            this.value = value;
+        }
+
+        /** Whether a scan that read {@code seen} for the same counter already includes this write. */
+        public boolean seenBy(long seen) {
+            return value <= seen;
+        }
+    }
+
+    private static final String BUMP_SQL = "UPDATE change_counters SET value = value + 1 WHERE name = ?";
+    private static final String CREATE_SQL = """
+        INSERT INTO change_counters (name, value)
+        SELECT ?, 1 WHERE NOT EXISTS (SELECT 1 FROM change_counters WHERE name = ?)
+        """;
+    private static final String READ_SQL = "SELECT value FROM change_counters WHERE name = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    // Looked up per call: ProductChangeCounter, and so this, is created while the factory is being built
+    private final ObjectProvider<EntityManagerFactory> entityManagerFactory;
+
+    public CommitStamps(JdbcTemplate jdbcTemplate, ObjectProvider<EntityManagerFactory> entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    /**
+     * Creates the counter outside any transaction, before writers need it. A write landing
+     * earlier creates it while bumping; catching a duplicate there would abort its transaction.
+     */
+    public void createRow(String name) {
+        try {
+            jdbcTemplate.update(CREATE_SQL, name, name);
+        } catch (DuplicateKeyException e) {
+            // another instance created it at the same time
+        }
+    }
+
+    /** The counter as the caller's transaction (or snapshot) sees it; 0 before the first write. */
+    public long read(String name) {
+        List<Long> value = jdbcTemplate.queryForList(READ_SQL, Long.class, name);
+        return value.isEmpty() ? 0 : value.get(0);
+    }
+
+    /**
+     * Stamps the current transaction's writes for {@code name}: the counter moves once when the
+     * transaction commits, however often this is called. Without a transaction it moves now.
+     */
+    public Stamp take(String name) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) return new Stamp(bump(name));
+
+        @SuppressWarnings("unchecked")
+        Map<String, Stamp> taken = (Map<String, Stamp>) TransactionSynchronizationManager.getResource(this);
+        if (taken == null) {
+            Map<String, Stamp> pending = new TreeMap<>();
+            SessionImplementor session = transactionSession();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    if (session == null) bumpAll(pending);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(CommitStamps.this);
+                }
+            });
+            // Runs after the flush Hibernate does on commit, even when the caller is an entity callback in it
+            if (session != null) session.getActionQueue().registerProcess(s -> bumpAll(pending));
+            taken = pending;
+        }
+        return taken.computeIfAbsent(name, n -> new Stamp(Long.MAX_VALUE));
+    }
+
+    private void bumpAll(Map<String, Stamp> pending) {
+        pending.forEach((name, stamp) -> stamp.value = bump(name));
+    }
+
+    private long bump(String name) {
+        // Two first writers can both miss the row; the one whose insert finds it already there bumps it
+        if (jdbcTemplate.update(BUMP_SQL, name) == 0 && jdbcTemplate.update(CREATE_SQL, name, name) == 0) {
+            jdbcTemplate.update(BUMP_SQL, name);
+        }
+        return read(name);
+    }
+
+    private SessionImplementor transactionSession() {
+        EntityManagerFactory emf = entityManagerFactory.getIfAvailable();
+        if (emf == null) return null;
+        EntityManagerHolder holder = (EntityManagerHolder) TransactionSynchronizationManager.getResource(emf);
+        return holder != null ? holder.getEntityManager().unwrap(SessionImplementor.class) : null;
+    }
+}
@@ -1,74 +1,54 @@
 package com.example.demo.service;
 
-import com.example.demo.model.Costs;
-import com.example.demo.model.PaymentFrequency;
-import com.example.demo.repository.CostRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
-import java.util.List;
+import java.util.Optional;
 
 @Service
 public class CostAutomationService {
+
+    private static final Logger log = LoggerFactory.getLogger(CostAutomationService.class);
+
+    @Autowired
+    private RecurringCostService recurringCostService;
+
     @Autowired
-    private CostRepo costRepo;
+    private JobLockService jobLocks;
 
     // Se ejecuta todos los días a las 01:00 AM
+    // Genera las ocurrencias vencidas de cada costo recurrente (ver RecurringCostService)
+    // Con varias instancias corre en una sola: la clave del disparo es el día
     @Scheduled(cron = "0 0 1 * * ?")
     public void generateRecurringCosts() {
         LocalDate today = LocalDate.now();
-
-        // 1. Traer todos los costos recurrentes activos (Excluye ONE_TIME)
-        // Nota: Idealmente deberías tener un método en el repo: findByFrequencyNot("ONE_TIME")
-        List<Costs> recurringCosts = costRepo.findByFrequencyNot(PaymentFrequency.ONE_TIME).stream()
-                .filter(c -> !PaymentFrequency.ONE_TIME.equals(c.getFrequency()))
-                .toList();
-
-        for (Costs original : recurringCosts) {
-            if (shouldGenerateCost(original, today)) {
-                createCopy(original, today);
-            }
-        }
+        jobLocks.runExclusively(RecurringCostService.JOB_NAME, "cron:" + today,
+                () -> recurringCostService.generateDue(today));
     }
 
-    private boolean shouldGenerateCost(Costs original, LocalDate today) {
-        LocalDate start = original.getDate();
-
-        // Evitar duplicados: Si ya existe un gasto con el mismo asunto HOY, no lo creamos
-        boolean alreadyExists = costRepo.findAll().stream()
-                .anyMatch(c -> c.getDate().equals(today) &&
-                        c.getReason().equals(original.getReason()) &&
-                        c.getAmount().equals(original.getAmount()));
-
-        if (alreadyExists) return false;
-
-        if (PaymentFrequency.YEARLY.equals(original.getFrequency())) {
-            return start.getDayOfYear() == today.getDayOfYear() && !start.isEqual(today);
-        }
-
-        if (PaymentFrequency.MONTHLY.equals(original.getFrequency())) {
-            return start.getDayOfMonth() == today.getDayOfMonth() && !start.isEqual(today);
-        }
-
-        if (PaymentFrequency.WEEKLY.equals(original.getFrequency())) {
-            return start.getDayOfWeek() == today.getDayOfWeek() && !start.isEqual(today);
-        }
-
-        return false;
+    // Al arrancar: migra los costos recurrentes viejos y, si la app estuvo caída a la 01:00,
+    // recupera lo que no se generó
+    @EventListener(ApplicationReadyEvent.class)
+    public void catchUpOnStartup() {
+        jobLocks.runExclusively(RecurringCostService.JOB_NAME, null, () -> {
+            recurringCostService.migrateLegacy();
+            LocalDate today = LocalDate.now();
+            LocalDate watermark = recurringCostService.watermark();
+            if (watermark != null && !watermark.isBefore(today)) return 0;
+            log.info("Recurring costs last completed through {}, catching up", watermark);
+            return recurringCostService.generateDue(today);
+        });
     }
 
-    private void createCopy(Costs original, LocalDate today) {
-        Costs newCost = new Costs();
-        newCost.setDate(today);
-        newCost.setAmount(original.getAmount());
-        newCost.setReason(original.getReason() + " (Auto)"); // Para identificarlo
-        newCost.setCostType(original.getCostType());
-        newCost.setFrequency(original.getFrequency()); // Sigue siendo recurrente para el mes que viene
-
-        costRepo.save(newCost);
-        System.out.println("Gasto recurrente generado: " + newCost.getReason());
-
+    // Ejecución manual (admin); vacío si otra instancia la está corriendo
+    public Optional<Integer> runNow() {
+        return jobLocks.runExclusively(RecurringCostService.JOB_NAME, null,
+                () -> recurringCostService.generateDue(LocalDate.now()));
     }
 }
@@ -0,0 +1,46 @@
+package com.example.demo.service;
+
+import com.example.demo.model.Costs;
+import com.example.demo.model.PaymentFrequency;
+import com.example.demo.repository.CostRepo;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+/** Cost writes, so every path that adds or removes a cost keeps the finance rollup in step. */
+@Service
+public class CostService {
+
+    private final CostRepo costRepo;
+    private final FinanceRollupService rollupService;
+    private final RecurringCostService recurringCostService;
+
+    public CostService(CostRepo costRepo, FinanceRollupService rollupService,
+                       RecurringCostService recurringCostService) {
+        this.costRepo = costRepo;
+        this.rollupService = rollupService;
+        this.recurringCostService = recurringCostService;
+    }
+
+    @Transactional
+    public Costs create(Costs cost) {
+        if (cost.getCreatedAt() == null) cost.setCreatedAt(LocalDateTime.now());
+        Costs saved = costRepo.save(cost);
+        rollupService.costAdded(saved);
+        // A new recurring cost starts a template; generated occurrences already carry theirs
+        if (saved.getFrequency() != null && saved.getFrequency() != PaymentFrequency.ONE_TIME
+                && saved.getDate() != null && saved.getRecurringCostId() == null) {
+            recurringCostService.register(saved);
+        }
+        return saved;
+    }
+
+    @Transactional
+    public void delete(Long id) {
+        costRepo.findById(id).ifPresent(cost -> {
+            costRepo.delete(cost);
+            rollupService.costRemoved(cost);
+        });
+    }
+}
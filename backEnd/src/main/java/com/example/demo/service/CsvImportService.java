@@ -0,0 +1,408 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.CsvImportError;
+import com.example.demo.dto.CsvImportResult;
+import com.example.demo.exceptions.BadRequestException;
+import com.example.demo.model.CostType;
+import com.example.demo.model.Costs;
+import com.example.demo.model.CsvImport;
+import com.example.demo.model.CsvImportKind;
+import com.example.demo.model.CsvImportStatus;
+import com.example.demo.model.OrderPayments;
+import com.example.demo.model.PaymentFrequency;
+import com.example.demo.model.Product;
+import com.example.demo.repository.CsvImportRepo;
+import com.example.demo.repository.PaymentRepo;
+import com.example.demo.repository.ProductRepo;
+import com.example.demo.utils.CsvReader;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Bulk CSV import of costs and payments. The body is parsed as it streams in; every row is
+ * validated on its own (a bad row is reported with its line and skipped, the rest go in) and
+ * the good ones are written in batches of imports.batch-size, one transaction per batch, with
+ * the import's progress row moved in the same transaction. An import sent with a key can be
+ * resumed by sending the same file again with that key: the rows already committed are skipped.
+ */
+@Service
+public class CsvImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(CsvImportService.class);
+
+    private static final String INSERT_COST_SQL = """
+        INSERT INTO costos (tipo, fecha, valor, fechacreado, frequencia, asunto)
+        VALUES (?, ?, ?, ?, ?, ?)
+        """;
+
+    // Optimistic on rows_done: two requests resuming the same import can't both commit a batch
+    private static final String PROGRESS_SQL = """
+        UPDATE csv_imports SET rows_done = ?, inserted = inserted + ?, failed = failed + ?, updated_at = ?
+        WHERE id = ? AND rows_done = ? AND status = 'RUNNING'
+        """;
+
+    private static final int MAX_TEXT = 255;
+
+    /** A parsed row and the line it came from. */
+    private record Row<T>(long line, T value) {}
+
+    private record PaymentRow(LocalDate date, long productId, BigDecimal amount, String type, String method) {}
+
+    /** Column positions by lower-case header name. */
+    private record Header(Map<String, Integer> columns) {
+
+        static Header of(List<String> names) {
+            Map<String, Integer> columns = new HashMap<>();
+            for (int i = 0; i < names.size(); i++) columns.putIfAbsent(names.get(i).strip().toLowerCase(Locale.ROOT), i);
+            return new Header(columns);
+        }
+
+        Integer find(String... aliases) {
+            for (String a : aliases) {
+                Integer i = columns.get(a);
+                if (i != null) return i;
+            }
+            return null;
+        }
+
+        int require(String... aliases) {
+            Integer i = find(aliases);
+            if (i == null) throw new BadRequestException("CSV header needs a '" + aliases[0] + "' column");
+            return i;
+        }
+    }
+
+    private interface RowParser<T> {
+        T parse(List<String> cells);   // IllegalArgumentException rejects the row
+    }
+
+    private interface BatchWriter<T> {
+        int write(List<Row<T>> rows, List<CsvImportError> errors);   // returns rows written
+    }
+
+    private final CsvImportRepo importRepo;
+    private final ProductRepo productRepo;
+    private final PaymentRepo paymentRepo;
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final FinanceRollupService rollupService;
+    private final CashForecastService cashForecast;
+    private final int batchSize;
+    private final int maxErrors;
+
+    public CsvImportService(CsvImportRepo importRepo, ProductRepo productRepo, PaymentRepo paymentRepo,
+                            JdbcTemplate jdbcTemplate, EntityManager entityManager,
+                            PlatformTransactionManager transactionManager,
+                            FinanceRollupService rollupService, CashForecastService cashForecast,
+                            @Value("${imports.batch-size:1000}") int batchSize,
+                            @Value("${imports.max-errors:1000}") int maxErrors) {
+        this.importRepo = importRepo;
+        this.productRepo = productRepo;
+        this.paymentRepo = paymentRepo;
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.rollupService = rollupService;
+        this.cashForecast = cashForecast;
+        this.batchSize = batchSize;
+        this.maxErrors = maxErrors;
+    }
+
+    public List<CsvImport> recent(int limit) {
+        return importRepo.findAllByOrderByCreatedAtDesc(Limit.of(limit));
+    }
+
+    // ---------------- COSTS ----------------
+
+    /**
+     * Columns: fecha, valor (or monto), and optionally tipo (a CostType) and asunto. Imported
+     * costs are one-time entries: history, not templates for RecurringCostService.
+     */
+    public CsvImportResult importCosts(InputStream body, String key, String requestedBy) throws IOException {
+        return run(CsvImportKind.COSTS, key, requestedBy, body, (header, decimalComma) -> {
+            int fecha = header.require("fecha", "date");
+            int valor = header.require("valor", "monto", "amount");
+            Integer tipo = header.find("tipo", "type");
+            Integer asunto = header.find("asunto", "descripcion", "reason");
+            LocalDateTime now = LocalDateTime.now();
+            return cells -> {
+                Costs c = new Costs();
+                c.setDate(parseDate(cell(cells, fecha), "fecha"));
+                c.setAmount(parseAmount(cell(cells, valor), decimalComma));
+                String type = cell(cells, tipo);
+                if (type != null) c.setCostType(parseCostType(type));
+                c.setReason(text(cell(cells, asunto), "asunto"));
+                c.setFrequency(PaymentFrequency.ONE_TIME);
+                c.setCreatedAt(now);
+                return c;
+            };
+        }, this::writeCosts);
+    }
+
+    private int writeCosts(List<Row<Costs>> rows, List<CsvImportError> errors) {
+        jdbcTemplate.batchUpdate(INSERT_COST_SQL, rows, rows.size(), (ps, row) -> {
+            Costs c = row.value();
+            if (c.getCostType() != null) ps.setString(1, c.getCostType().name()); else ps.setNull(1, Types.VARCHAR);
+            ps.setDate(2, Date.valueOf(c.getDate()));
+            ps.setBigDecimal(3, c.getAmount());
+            ps.setTimestamp(4, Timestamp.valueOf(c.getCreatedAt()));
+            ps.setString(5, c.getFrequency().name());
+            if (c.getReason() != null) ps.setString(6, c.getReason()); else ps.setNull(6, Types.VARCHAR);
+        });
+        rollupService.costsAdded(rows.stream().map(Row::value).toList());
+        return rows.size();
+    }
+
+    // ---------------- PAYMENTS ----------------
+
+    /**
+     * Columns: fecha, producto_id (or product_id), valor (or monto), and optionally tipo
+     * (e.g. DEPOSIT) and metodo. Each order's running totals and payment status move as
+     * createPayment would move them, once per order per batch.
+     */
+    public CsvImportResult importPayments(InputStream body, String key, String requestedBy) throws IOException {
+        return run(CsvImportKind.PAYMENTS, key, requestedBy, body, (header, decimalComma) -> {
+            int fecha = header.require("fecha", "date");
+            int producto = header.require("producto_id", "product_id");
+            int valor = header.require("valor", "monto", "amount");
+            Integer tipo = header.find("tipo", "type");
+            Integer metodo = header.find("metodo", "payment_method", "method");
+            return cells -> new PaymentRow(
+                    parseDate(cell(cells, fecha), "fecha"),
+                    parseId(cell(cells, producto)),
+                    parseAmount(cell(cells, valor), decimalComma),
+                    text(cell(cells, tipo), "tipo"),
+                    text(cell(cells, metodo), "metodo"));
+        }, this::writePayments);
+    }
+
+    private int writePayments(List<Row<PaymentRow>> rows, List<CsvImportError> errors) {
+        List<Long> ids = rows.stream().map(r -> r.value().productId()).distinct().toList();
+        Map<Long, Product> products = new HashMap<>();
+        for (Product p : productRepo.findAllByIdForUpdate(ids)) products.put(p.getId(), p);
+
+        List<OrderPayments> payments = new ArrayList<>(rows.size());
+        Map<LocalDate, BigDecimal> byDay = new TreeMap<>();
+        for (Row<PaymentRow> row : rows) {
+            PaymentRow r = row.value();
+            Product product = products.get(r.productId());
+            if (product == null) {
+                addError(errors, row.line(), "Product " + r.productId() + " not found");
+                continue;
+            }
+            OrderPayments payment = new OrderPayments();
+            payment.setPaymentDate(r.date());
+            payment.setAmount(r.amount());
+            payment.setPaymentType(r.type());
+            payment.setPaymentMethod(r.method());
+            payment.setProduct(product);
+            product.recordPayment(payment.getPaymentType(), payment.getAmount());
+            byDay.merge(payment.getPaymentDate(), payment.getAmount(), BigDecimal::add);
+            payments.add(payment);
+        }
+        paymentRepo.saveAll(payments);
+        rollupService.paymentsRecorded(byDay);
+        for (Product p : products.values()) cashForecast.productChanged(p);
+
+        // Written as JDBC batches at the flush; cleared so a long import doesn't pile up entities
+        entityManager.flush();
+        entityManager.clear();
+        return payments.size();
+    }
+
+    // ---------------- DRIVER ----------------
+
+    private interface ParserFactory<T> {
+        RowParser<T> create(Header header, boolean decimalComma);
+    }
+
+    private <T> CsvImportResult run(CsvImportKind kind, String key, String requestedBy, InputStream body,
+                                    ParserFactory<T> parsers, BatchWriter<T> writer) throws IOException {
+        CsvImport imp = start(kind, key, requestedBy);
+        if (imp.getStatus() == CsvImportStatus.COMPLETED) {
+            return new CsvImportResult(imp.getId(), imp.getStatus().name(), 0, 0, 0, 0,
+                    imp.getInserted(), imp.getFailed(), List.of());
+        }
+
+        long alreadyDone = imp.getRowsDone();
+        long seen = 0, read = 0, inserted = 0, failed = 0;
+        long done = alreadyDone;
+        List<CsvImportError> errors = new ArrayList<>();
+        List<Row<T>> batch = new ArrayList<>(batchSize);
+        int pending = 0, pendingFailed = 0;
+        try {
+            // A bad header fails the import too: its row must not stay RUNNING
+            CsvReader csv = CsvReader.open(body);
+            List<String> names = csv.next();
+            if (names == null) throw new BadRequestException("The CSV is empty");
+            RowParser<T> parser = parsers.create(Header.of(names), csv.separator() != ',');
+
+            for (List<String> cells; (cells = csv.next()) != null; ) {
+                if (++seen <= alreadyDone) continue;
+                read++;
+                pending++;
+                try {
+                    batch.add(new Row<>(csv.recordLine(), parser.parse(cells)));
+                } catch (IllegalArgumentException e) {
+                    addError(errors, csv.recordLine(), e.getMessage());
+                    pendingFailed++;
+                }
+                if (pending == batchSize) {
+                    int written = commit(imp.getId(), done, pending, pendingFailed, batch, writer, errors);
+                    inserted += written;
+                    failed += pending - written;
+                    done += pending;
+                    batch.clear();
+                    pending = pendingFailed = 0;
+                }
+            }
+            if (pending > 0) {
+                int written = commit(imp.getId(), done, pending, pendingFailed, batch, writer, errors);
+                inserted += written;
+                failed += pending - written;
+            }
+        } catch (ObjectOptimisticLockingFailureException e) {
+            throw e;   // another request is running this import; leave its status alone
+        } catch (IOException | RuntimeException e) {
+            // The committed batches stay; the same file with the same key picks up after them
+            setStatus(imp.getId(), CsvImportStatus.INTERRUPTED, null);
+            log.warn("Import {} ({}) interrupted after {} rows: {}", imp.getId(), kind, done, e.getMessage());
+            throw e;
+        }
+        setStatus(imp.getId(), CsvImportStatus.COMPLETED, LocalDateTime.now());
+        log.info("Import {} ({}): {} rows read, {} skipped, {} inserted, {} failed",
+                imp.getId(), kind, read, alreadyDone, inserted, failed);
+        return new CsvImportResult(imp.getId(), CsvImportStatus.COMPLETED.name(), read, Math.min(seen, alreadyDone),
+                inserted, failed, imp.getInserted() + inserted, imp.getFailed() + failed, errors);
+    }
+
+    // Writes one batch and moves the progress row past it, in one transaction; returns rows written
+    private <T> int commit(long importId, long doneBefore, int pending, int parseFailed, List<Row<T>> batch,
+                           BatchWriter<T> writer, List<CsvImportError> errors) {
+        Integer written = transactionTemplate.execute(status -> {
+            int ok = batch.isEmpty() ? 0 : writer.write(batch, errors);
+            int moved = jdbcTemplate.update(PROGRESS_SQL, doneBefore + pending, ok, pending - ok,
+                    Timestamp.valueOf(LocalDateTime.now()), importId, doneBefore);
+            if (moved == 0) throw new ObjectOptimisticLockingFailureException(CsvImport.class, importId);
+            return ok;
+        });
+        return written != null ? written : 0;
+    }
+
+    private CsvImport start(CsvImportKind kind, String key, String requestedBy) {
+        String k = key == null || key.isBlank() ? null : key.strip();
+        if (k != null && k.length() > 200) throw new BadRequestException("Import key is longer than 200 characters");
+        if (k != null) {
+            CsvImport existing = importRepo.findByKindAndImportKey(kind, k).orElse(null);
+            if (existing != null) return resume(existing);
+        }
+        CsvImport imp = new CsvImport();
+        imp.setKind(kind);
+        imp.setImportKey(k);
+        imp.setStatus(CsvImportStatus.RUNNING);
+        imp.setRequestedBy(requestedBy);
+        imp.setCreatedAt(LocalDateTime.now());
+        try {
+            return importRepo.save(imp);
+        } catch (DataIntegrityViolationException e) {
+            // Same key started at the same moment by another request
+            return resume(importRepo.findByKindAndImportKey(kind, k).orElseThrow(() -> e));
+        }
+    }
+
+    // Progress only ever moves through SQL: with open-in-view the entity stays managed for the
+    // whole request, and dirtying it would flush a stale rows_done over the batches' updates
+    private CsvImport resume(CsvImport imp) {
+        if (imp.getStatus() == CsvImportStatus.INTERRUPTED) setStatus(imp.getId(), CsvImportStatus.RUNNING, null);
+        return imp;
+    }
+
+    private void setStatus(long id, CsvImportStatus status, LocalDateTime finishedAt) {
+        jdbcTemplate.update("UPDATE csv_imports SET status = ?, updated_at = ?, finished_at = ? WHERE id = ?",
+                status.name(), Timestamp.valueOf(LocalDateTime.now()),
+                finishedAt != null ? Timestamp.valueOf(finishedAt) : null, id);
+    }
+
+    private void addError(List<CsvImportError> errors, long line, String message) {
+        if (errors.size() < maxErrors) errors.add(new CsvImportError(line, message));
+    }
+
+    // ---------------- CELLS ----------------
+
+    private static String cell(List<String> cells, Integer index) {
+        if (index == null || index >= cells.size()) return null;
+        String v = cells.get(index).strip();
+        return v.isEmpty() ? null : v;
+    }
+
+    private static LocalDate parseDate(String v, String column) {
+        if (v == null) throw new IllegalArgumentException(column + " is empty");
+        try {
+            return LocalDate.parse(v.replace('/', '-'));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(column + " '" + v + "' is not YYYY-MM-DD");
+        }
+    }
+
+    // With ';' or tab separators the decimal mark is a comma and '.' groups thousands
+    private static BigDecimal parseAmount(String v, boolean decimalComma) {
+        if (v == null) throw new IllegalArgumentException("valor is empty");
+        String n = decimalComma ? v.replace(".", "").replace(',', '.') : v;
+        try {
+            BigDecimal amount = new BigDecimal(n);
+            if (amount.scale() > 2) throw new IllegalArgumentException("valor '" + v + "' has more than 2 decimals");
+            return amount;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("valor '" + v + "' is not a number");
+        }
+    }
+
+    private static long parseId(String v) {
+        if (v == null) throw new IllegalArgumentException("producto_id is empty");
+        try {
+            return Long.parseLong(v);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("producto_id '" + v + "' is not a number");
+        }
+    }
+
+    private static CostType parseCostType(String v) {
+        try {
+            return CostType.valueOf(v.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("tipo '" + v + "' is not one of " + Arrays.toString(CostType.values()));
+        }
+    }
+
+    private static String text(String v, String column) {
+        if (v != null && v.length() > MAX_TEXT) throw new IllegalArgumentException(column + " is longer than " + MAX_TEXT);
+        return v;
+    }
+}
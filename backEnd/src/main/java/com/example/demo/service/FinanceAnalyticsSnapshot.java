@@ -0,0 +1,406 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.ExpenseBreakdownRow;
+import com.example.demo.dto.FinanceDashboardResponse;
+import com.example.demo.model.CostType;
+import com.example.demo.utils.AfterCommit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * In-process copy of the finance figures as day-indexed primitive columns: cents in long[],
+ * cost types by enum ordinal, one row per seller. A dashboard for any range is a few tight
+ * loops over arrays, with no database round trip and no BigDecimal until the response.
+ * <p>
+ * Seeded with four GROUP BY queries, then moved by the same write hooks as the monthly rollup
+ * (after commit). A periodic reseed corrects drift from writes that bypass the services.
+ * <p>
+ * Single-instance deployments only, so off unless {@code finance.analytics.snapshot.enabled}:
+ * hooks only see this instance's writes, and another instance's would stay out of every
+ * dashboard until the next reseed. Disabled, dashboards come from the monthly rollup or SQL.
+ * <p>
+ * The reseed reads one REPEATABLE READ snapshot and holds this object's monitor from its first
+ * query until the new columns are published. Write hooks take the same monitor, so a hook
+ * for a commit the scan did not see waits and lands on the new columns instead of the
+ * discarded ones; readers only use the stamped lock and are never held up by a reseed.
+ * Each hook also carries its transaction's {@link CommitStamps} stamp, and the scan reads the
+ * counter first, in the same snapshot: a hook whose commit the scan already counted (it
+ * committed just before the snapshot but reached the monitor after it) is dropped.
+ */
+@Component
+public class FinanceAnalyticsSnapshot {
+
+    private static final Logger log = LoggerFactory.getLogger(FinanceAnalyticsSnapshot.class);
+
+    // Room kept on both sides so day-to-day writes never need to grow the arrays
+    private static final int MARGIN_DAYS = 366;
+    private static final String STAMP = "finance";
+    private static final CostType[] COST_TYPES = CostType.values();
+
+    /**
+     * One generation of columns. Array shapes never change once published (growing or adding a
+     * seller makes a new instance), so an optimistic reader can't index out of bounds.
+     */
+    private static final class Columns {
+        final long baseDay;           // epoch day of index 0
+        final int days;
+        final long[] cashIn;
+        final long[][] expenses;      // [1 + CostType ordinal][day]; slot 0 holds untyped costs
+        final long[] sellerIds;       // seller slot -> user id (0 = no owner)
+        final long[][] income;        // [seller slot][day]
+        final long[][] units;
+        final long[][] cogs;
+
+        Columns(long baseDay, int days, int sellers) {
+            this.baseDay = baseDay;
+            this.days = days;
+            this.cashIn = new long[days];
+            this.expenses = new long[COST_TYPES.length + 1][days];
+            this.sellerIds = new long[sellers];
+            this.income = new long[sellers][days];
+            this.units = new long[sellers][days];
+            this.cogs = new long[sellers][days];
+        }
+
+        boolean covers(long epochDay) {
+            return epochDay >= baseDay && epochDay < baseDay + days;
+        }
+
+        // Sellers are a handful of users, a linear scan beats hashing here
+        int sellerSlot(long sellerId) {
+            for (int i = 0; i < sellerIds.length; i++) {
+                if (sellerIds[i] == sellerId) return i;
+            }
+            return -1;
+        }
+
+        Columns copy(long newBaseDay, int newDays, int sellers) {
+            Columns c = new Columns(newBaseDay, newDays, sellers);
+            int offset = (int) (baseDay - newBaseDay);
+            System.arraycopy(cashIn, 0, c.cashIn, offset, days);
+            for (int t = 0; t < expenses.length; t++) System.arraycopy(expenses[t], 0, c.expenses[t], offset, days);
+            for (int s = 0; s < sellerIds.length; s++) {
+                c.sellerIds[s] = sellerIds[s];
+                System.arraycopy(income[s], 0, c.income[s], offset, days);
+                System.arraycopy(units[s], 0, c.units[s], offset, days);
+                System.arraycopy(cogs[s], 0, c.cogs[s], offset, days);
+            }
+            return c;
+        }
+    }
+
+    private record Sums(long income, long cashIn, long expenses, long cogs, long[] byType,
+                        long[] sellerIds, long[] sellerUnits, long[] sellerIncome) {}
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate scanTx;
+    private final FinanceDashboardCache dashboardCache;
+    private final CommitStamps stamps;
+    private final boolean enabled;
+    private final StampedLock lock = new StampedLock();
+    private final Map<Long, String> userNames = new ConcurrentHashMap<>();
+    private volatile Columns columns;
+    private long scannedStamp;   // guarded by the monitor
+
+    public FinanceAnalyticsSnapshot(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                    FinanceDashboardCache dashboardCache, CommitStamps stamps,
+                                    @Value("${finance.analytics.snapshot.enabled:false}") boolean enabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.scanTx = new TransactionTemplate(transactionManager);
+        this.scanTx.setReadOnly(true);
+        this.scanTx.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.dashboardCache = dashboardCache;
+        this.stamps = stamps;
+        this.enabled = enabled;
+    }
+
+    public boolean isReady() {
+        return columns != null;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${finance.analytics.snapshot.reseed-ms:600000}",
+            initialDelayString = "${finance.analytics.snapshot.reseed-ms:600000}")
+    public void reseed() {
+        if (!enabled) return;
+        long started = System.currentTimeMillis();
+        stamps.createRow(STAMP);
+        // Connection first, monitor second: write hooks hold a pooled connection while they wait
+        Columns fresh = scanTx.execute(tx -> {
+            synchronized (this) {
+                long seen = stamps.read(STAMP);   // first statement: fixes the snapshot the scan reads
+                Columns scanned = scan();
+                long stamp = lock.writeLock();
+                try {
+                    columns = scanned;
+                } finally {
+                    lock.unlockWrite(stamp);
+                }
+                scannedStamp = seen;
+                return scanned;
+            }
+        });
+        // Dashboards cached from the old columns may be missing what this reseed corrected
+        dashboardCache.invalidateAll();
+        log.info("Finance analytics snapshot loaded: {} days x {} sellers in {} ms",
+                fresh.days, fresh.sellerIds.length, System.currentTimeMillis() - started);
+    }
+
+    private Columns scan() {
+        List<Object[]> products = jdbcTemplate.query("""
+                SELECT p.startdate, COALESCE(p.ownerid, 0), SUM(COALESCE(p.precio, 0)), SUM(p.cantidad),
+                       SUM(CASE WHEN wo.status = 'ENTREGADO' THEN COALESCE(p.cogs_amount, 0) ELSE 0 END)
+                FROM products p
+                LEFT JOIN work_orders wo ON wo.product_id = p.id
+                WHERE p.startdate IS NOT NULL
+                GROUP BY p.startdate, COALESCE(p.ownerid, 0)
+                """, (rs, i) -> new Object[]{rs.getDate(1).toLocalDate().toEpochDay(), rs.getLong(2),
+                cents(rs.getBigDecimal(3)), rs.getLong(4), cents(rs.getBigDecimal(5))});
+        List<long[]> payments = jdbcTemplate.query("""
+                SELECT pg.fecha, SUM(pg.valor) FROM pagos pg
+                WHERE pg.fecha IS NOT NULL AND pg.valor IS NOT NULL
+                GROUP BY pg.fecha
+                """, (rs, i) -> new long[]{rs.getDate(1).toLocalDate().toEpochDay(), cents(rs.getBigDecimal(2))});
+        List<long[]> costs = jdbcTemplate.query("""
+                SELECT c.fecha, CAST(c.tipo AS VARCHAR(20)), SUM(c.valor) FROM costos c
+                WHERE c.fecha IS NOT NULL
+                GROUP BY c.fecha, c.tipo
+                """, (rs, i) -> new long[]{rs.getDate(1).toLocalDate().toEpochDay(),
+                typeSlot(rs.getString(2)), cents(rs.getBigDecimal(3))});
+        jdbcTemplate.query("SELECT id, username FROM usuarios",
+                rs -> { userNames.put(rs.getLong(1), rs.getString(2)); });
+
+        long today = LocalDate.now().toEpochDay();
+        long min = today, max = today;
+        List<Long> sellers = new ArrayList<>();
+        for (Object[] r : products) {
+            min = Math.min(min, (long) r[0]);
+            max = Math.max(max, (long) r[0]);
+            if (!sellers.contains((Long) r[1])) sellers.add((Long) r[1]);
+        }
+        for (long[] r : payments) { min = Math.min(min, r[0]); max = Math.max(max, r[0]); }
+        for (long[] r : costs) { min = Math.min(min, r[0]); max = Math.max(max, r[0]); }
+
+        Columns fresh = new Columns(min - MARGIN_DAYS, (int) (max - min + 1) + 2 * MARGIN_DAYS, sellers.size());
+        for (int s = 0; s < sellers.size(); s++) fresh.sellerIds[s] = sellers.get(s);
+        for (Object[] r : products) {
+            int d = (int) ((long) r[0] - fresh.baseDay);
+            int s = fresh.sellerSlot((Long) r[1]);
+            fresh.income[s][d] += (long) r[2];
+            fresh.units[s][d] += (long) r[3];
+            fresh.cogs[s][d] += (long) r[4];
+        }
+        for (long[] r : payments) fresh.cashIn[(int) (r[0] - fresh.baseDay)] += r[1];
+        for (long[] r : costs) fresh.expenses[(int) r[1]][(int) (r[0] - fresh.baseDay)] += r[2];
+        return fresh;
+    }
+
+    // ---------------- WRITE HOOKS (applied after commit) ----------------
+
+    public void productChanged(FinanceRollupService.ProductContribution before,
+                               FinanceRollupService.ProductContribution after) {
+        if (before != null) product(before, -1);
+        if (after != null) product(after, 1);
+    }
+
+    private void product(FinanceRollupService.ProductContribution c, int sign) {
+        if (!enabled) return;
+        CommitStamps.Stamp stamp = stamps.take(STAMP);
+        long day = c.day().toEpochDay();
+        long income = sign * cents(c.income());
+        long units = sign * c.units();
+        long cogs = sign * cents(c.cogs());
+        AfterCommit.run(() -> write(stamp, day, c.sellerId(), cols -> {
+            int s = cols.sellerSlot(c.sellerId());
+            int d = (int) (day - cols.baseDay);
+            cols.income[s][d] += income;
+            cols.units[s][d] += units;
+            cols.cogs[s][d] += cogs;
+        }));
+    }
+
+    public void cashIn(LocalDate date, BigDecimal amount) {
+        if (!enabled) return;
+        CommitStamps.Stamp stamp = stamps.take(STAMP);
+        long day = date.toEpochDay();
+        long delta = cents(amount);
+        AfterCommit.run(() -> write(stamp, day, -1, cols -> cols.cashIn[(int) (day - cols.baseDay)] += delta));
+    }
+
+    public void expense(LocalDate date, CostType type, BigDecimal amount) {
+        if (!enabled) return;
+        CommitStamps.Stamp stamp = stamps.take(STAMP);
+        long day = date.toEpochDay();
+        int slot = type != null ? type.ordinal() + 1 : 0;
+        long delta = cents(amount);
+        AfterCommit.run(() -> write(stamp, day, -1, cols -> cols.expenses[slot][(int) (day - cols.baseDay)] += delta));
+    }
+
+    private interface ColumnUpdate { void apply(Columns cols); }
+
+    // synchronized: waits out a running reseed, see the class comment
+    private synchronized void write(CommitStamps.Stamp commit, long day, long sellerId, ColumnUpdate update) {
+        if (columns == null) return; // not seeded yet; the first reseed will include it
+        if (commit.seenBy(scannedStamp)) return; // the last scan already counted it
+        long stamp = lock.writeLock();
+        try {
+            Columns cols = columns;
+            boolean newSeller = sellerId >= 0 && cols.sellerSlot(sellerId) < 0;
+            if (!cols.covers(day) || newSeller) {
+                long base = Math.min(cols.baseDay, day - MARGIN_DAYS);
+                long end = Math.max(cols.baseDay + cols.days, day + MARGIN_DAYS);
+                int sellers = cols.sellerIds.length + (newSeller ? 1 : 0);
+                Columns grown = cols.copy(base, (int) (end - base), sellers);
+                if (newSeller) grown.sellerIds[sellers - 1] = sellerId;
+                cols = grown;
+            }
+            update.apply(cols);
+            columns = cols;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // ---------------- READS ----------------
+
+    public FinanceDashboardResponse dashboard(LocalDate from, LocalDate to) {
+        Sums s = sums(from, to);
+
+        List<ExpenseBreakdownRow> expenseBreakdown = new ArrayList<>();
+        for (int t = 1; t < s.byType().length; t++) {
+            if (s.byType()[t] != 0) expenseBreakdown.add(new ExpenseBreakdownRow(COST_TYPES[t - 1].name(), money(s.byType()[t])));
+        }
+        expenseBreakdown.sort(Comparator.comparing(ExpenseBreakdownRow::name));
+
+        BigDecimal tInc = money(s.income());
+        BigDecimal tExp = money(s.expenses());
+        BigDecimal tCogs = money(s.cogs());
+        BigDecimal grossProfit = tInc.subtract(tCogs);
+        return new FinanceDashboardResponse(
+                from,
+                to,
+                tInc,
+                money(s.cashIn()),
+                tExp,
+                tInc.subtract(tExp),
+                expenseBreakdown,
+                userStats(s),
+                tCogs,
+                grossProfit,
+                grossProfit.subtract(tExp),
+                null
+        );
+    }
+
+    public List<Map<String, Object>> userStats(LocalDate from, LocalDate to) {
+        return userStats(sums(from, to));
+    }
+
+    // Same shape as ProductRepo.getUserPerformanceData; products without an owner are left out there too
+    private List<Map<String, Object>> userStats(Sums s) {
+        List<Map<String, Object>> stats = new ArrayList<>();
+        for (int i = 0; i < s.sellerIds().length; i++) {
+            if (s.sellerIds()[i] == 0 || (s.sellerUnits()[i] == 0 && s.sellerIncome()[i] == 0)) continue;
+            String name = userName(s.sellerIds()[i]);
+            if (name == null) continue;
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("userName", name);
+            row.put("unitsSold", s.sellerUnits()[i]);
+            row.put("income", money(s.sellerIncome()[i]));
+            stats.add(row);
+        }
+        stats.sort(Comparator.comparing(r -> (String) r.get("userName")));
+        return stats;
+    }
+
+    private Sums sums(LocalDate from, LocalDate to) {
+        long stamp = lock.tryOptimisticRead();
+        Sums s = sums(columns, from, to);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                s = sums(columns, from, to);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return s;
+    }
+
+    private static Sums sums(Columns cols, LocalDate from, LocalDate to) {
+        int sellers = cols.sellerIds.length;
+        long[] byType = new long[cols.expenses.length];
+        long[] sellerUnits = new long[sellers];
+        long[] sellerIncome = new long[sellers];
+        int lo = (int) Math.max(0, from.toEpochDay() - cols.baseDay);
+        int hi = (int) Math.min(cols.days - 1, to.toEpochDay() - cols.baseDay);
+
+        long income = 0, cashIn = 0, expenses = 0, cogs = 0;
+        for (int d = lo; d <= hi; d++) cashIn += cols.cashIn[d];
+        for (int t = 0; t < byType.length; t++) {
+            long[] col = cols.expenses[t];
+            long sum = 0;
+            for (int d = lo; d <= hi; d++) sum += col[d];
+            byType[t] = sum;
+            expenses += sum;
+        }
+        for (int i = 0; i < sellers; i++) {
+            long[] inc = cols.income[i], un = cols.units[i], cg = cols.cogs[i];
+            long si = 0, su = 0, sc = 0;
+            for (int d = lo; d <= hi; d++) {
+                si += inc[d];
+                su += un[d];
+                sc += cg[d];
+            }
+            sellerIncome[i] = si;
+            sellerUnits[i] = su;
+            income += si;
+            cogs += sc;
+        }
+        return new Sums(income, cashIn, expenses, cogs, byType, Arrays.copyOf(cols.sellerIds, sellers),
+                sellerUnits, sellerIncome);
+    }
+
+    private String userName(long id) {
+        String name = userNames.get(id);
+        if (name != null) return name;
+        List<String> found = jdbcTemplate.queryForList("SELECT username FROM usuarios WHERE id = ?", String.class, id);
+        if (found.isEmpty()) return null;
+        userNames.put(id, found.get(0));
+        return found.get(0);
+    }
+
+    private static int typeSlot(String tipo) {
+        return tipo == null || tipo.isEmpty() ? 0 : CostType.valueOf(tipo).ordinal() + 1;
+    }
+
+    private static long cents(BigDecimal v) {
+        return v == null ? 0L : v.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    private static BigDecimal money(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.FinanceDashboardResponse;
+import com.example.demo.utils.AfterCommit;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Finance dashboards keyed by (from, to). Every finance write reaches {@link FinanceRollupService},
+ * which evicts after commit only the entries whose range overlaps the month it touched. That only
+ * sees this instance's writes, so entries also expire: ranges still open after a short TTL, closed
+ * ranges (ending before the current month) after a longer one, which bounds how long a write made
+ * on another instance or straight in the database can go unseen.
+ */
+@Service
+public class FinanceDashboardCache {
+
+    // adjustedTo: base month of inflation-adjusted dashboards, null for nominal ones
+    private record Range(LocalDate from, LocalDate to, YearMonth adjustedTo) {
+        boolean overlaps(LocalDate start, LocalDate end) {
+            return !from.isAfter(end) && !to.isBefore(start);
+        }
+    }
+
+    private record Entry(FinanceDashboardResponse response, long expiresAt) {}
+
+    private final Map<Range, Entry> entries = new ConcurrentHashMap<>();
+    // Bumped on every eviction so a result computed across a commit is not stored stale
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final long openTtlMillis;
+    private final long closedTtlMillis;
+    private final int maxEntries;
+
+    public FinanceDashboardCache(@Value("${finance.dashboard.cache.open-ttl-seconds:60}") long openTtlSeconds,
+                                 @Value("${finance.dashboard.cache.closed-ttl-seconds:900}") long closedTtlSeconds,
+                                 @Value("${finance.dashboard.cache.max-entries:500}") int maxEntries) {
+        this.openTtlMillis = openTtlSeconds * 1000;
+        this.closedTtlMillis = closedTtlSeconds * 1000;
+        this.maxEntries = maxEntries;
+    }
+
+    public FinanceDashboardResponse get(LocalDate from, LocalDate to, Supplier<FinanceDashboardResponse> loader) {
+        return get(from, to, null, loader);
+    }
+
+    public FinanceDashboardResponse get(LocalDate from, LocalDate to, YearMonth adjustedTo,
+                                        Supplier<FinanceDashboardResponse> loader) {
+        Range range = new Range(from, to, adjustedTo);
+        long now = System.currentTimeMillis();
+        Entry e = entries.get(range);
+        if (e != null && e.expiresAt() > now) {
+            hits.incrementAndGet();
+            return e.response();
+        }
+        misses.incrementAndGet();
+
+        long startedAt = generation.get();
+        FinanceDashboardResponse response = loader.get();
+        boolean closed = to.isBefore(LocalDate.now().withDayOfMonth(1));
+        long expiresAt = System.currentTimeMillis() + (closed ? closedTtlMillis : openTtlMillis);
+        if (generation.get() == startedAt && makeRoom(now)) {
+            entries.put(range, new Entry(response, expiresAt));
+        }
+        return response;
+    }
+
+    /** Evicts, once the current transaction commits, every cached range overlapping the given month. */
+    public void invalidateMonth(LocalDate month) {
+        LocalDate start = month.withDayOfMonth(1);
+        LocalDate end = start.withDayOfMonth(start.lengthOfMonth());
+        AfterCommit.run(() -> {
+            generation.incrementAndGet();
+            entries.keySet().removeIf(r -> {
+                boolean hit = r.overlaps(start, end);
+                if (hit) evictions.incrementAndGet();
+                return hit;
+            });
+        });
+    }
+
+    public void invalidateAll() {
+        AfterCommit.run(() -> {
+            generation.incrementAndGet();
+            evictions.addAndGet(entries.size());
+            entries.clear();
+        });
+    }
+
+    public Map<String, Object> stats() {
+        long h = hits.get();
+        long m = misses.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("entries", entries.size());
+        stats.put("hits", h);
+        stats.put("misses", m);
+        stats.put("hitRatio", h + m == 0 ? 0.0 : (double) h / (h + m));
+        stats.put("evictions", evictions.get());
+        return stats;
+    }
+
+    // Drop expired entries when full; if it's still full, serve uncached rather than grow
+    private boolean makeRoom(long now) {
+        if (entries.size() < maxEntries) return true;
+        entries.values().removeIf(e -> e.expiresAt() <= now);
+        return entries.size() < maxEntries;
+    }
+}
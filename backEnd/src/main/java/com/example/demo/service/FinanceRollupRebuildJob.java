@@ -0,0 +1,44 @@
+package com.example.demo.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Rebuild of the finance rollup, as POST /api/admin/finance/rollup/rebuild does on the request
+ * thread. Reseeds this instance's snapshot; the others pick the rebuild up at their next reseed.
+ */
+@Component
+public class FinanceRollupRebuildJob implements BackgroundJobHandler {
+
+    private final FinanceRollupService financeRollupService;
+    private final FinanceAnalyticsSnapshot financeAnalyticsSnapshot;
+
+    public FinanceRollupRebuildJob(FinanceRollupService financeRollupService,
+                                   FinanceAnalyticsSnapshot financeAnalyticsSnapshot) {
+        this.financeRollupService = financeRollupService;
+        this.financeAnalyticsSnapshot = financeAnalyticsSnapshot;
+    }
+
+    @Override
+    public String type() {
+        return "finance-rollup-rebuild";
+    }
+
+    @Override
+    public String description() {
+        return "Recompute the finance rollup and the dashboard snapshot from raw rows";
+    }
+
+    @Override
+    public List<Range> partition() {
+        return List.of(ALL);
+    }
+
+    @Override
+    public int run(Range range) {
+        int rows = financeRollupService.rebuild();
+        financeAnalyticsSnapshot.reseed();
+        return rows;
+    }
+}
@@ -0,0 +1,284 @@
+package com.example.demo.service;
+
+import com.example.demo.exceptions.BadRequestException;
+import com.example.demo.model.Costs;
+import com.example.demo.model.FinanceMetric;
+import com.example.demo.model.Product;
+import com.example.demo.model.Status;
+import com.example.demo.repository.FinanceRollupRepo;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps finance_monthly_rollup in step with products, payments and costs. Every write path
+ * reports what it changed and the matching deltas are upserted in the same transaction, so
+ * the rollup commits or rolls back with the rows it summarizes. {@link #rebuild()} recomputes
+ * everything from the raw tables (first start, or after data was edited outside the app).
+ */
+@Service
+public class FinanceRollupService {
+
+    private static final Logger log = LoggerFactory.getLogger(FinanceRollupService.class);
+
+    /** What one product contributes to the rollup; null when it contributes nothing. */
+    public record ProductContribution(LocalDate day, long sellerId, BigDecimal income, long units, BigDecimal cogs) {
+
+        public static ProductContribution of(Product p) {
+            if (p == null || p.getStartDate() == null) return null;
+            boolean delivered = p.getWorkOrder() != null && p.getWorkOrder().getStatus() == Status.ENTREGADO;
+            return new ProductContribution(
+                    p.getStartDate(),
+                    p.getOwner() != null ? p.getOwner().getId() : 0L,
+                    nz(p.getPrecio()),
+                    p.getCantidad(),
+                    delivered ? nz(p.getCogsAmount()) : BigDecimal.ZERO);
+        }
+    }
+
+    private record Key(LocalDate month, FinanceMetric metric, String costType, long sellerId) {}
+
+    private final JdbcTemplate jdbcTemplate;
+    private final FinanceRollupRepo rollupRepo;
+    private final TransactionTemplate transactionTemplate;
+    private final FinanceDashboardCache dashboardCache;
+    private final FinanceAnalyticsSnapshot analyticsSnapshot;
+    private final PriceIndexService priceIndex;
+    private final String priceIndexFile;
+    private boolean postgres;
+
+    public FinanceRollupService(JdbcTemplate jdbcTemplate,
+                                FinanceRollupRepo rollupRepo,
+                                PlatformTransactionManager transactionManager,
+                                FinanceDashboardCache dashboardCache,
+                                FinanceAnalyticsSnapshot analyticsSnapshot,
+                                PriceIndexService priceIndex,
+                                @Value("${finance.price-index.file:}") String priceIndexFile) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.rollupRepo = rollupRepo;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.dashboardCache = dashboardCache;
+        this.analyticsSnapshot = analyticsSnapshot;
+        this.priceIndex = priceIndex;
+        this.priceIndexFile = priceIndexFile;
+    }
+
+    @PostConstruct
+    void detectDatabase() {
+        String database = jdbcTemplate.execute(
+                (ConnectionCallback<String>) c -> c.getMetaData().getDatabaseProductName());
+        postgres = "PostgreSQL".equalsIgnoreCase(database);
+    }
+
+    // Backfill on the first start after the table appears
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        if (rollupRepo.count() == 0) rebuild();
+    }
+
+    // ---------------- WRITE HOOKS ----------------
+
+    // The snapshot is moved before apply() so its after-commit update runs ahead of the cache eviction
+
+    public void productChanged(ProductContribution before, ProductContribution after) {
+        analyticsSnapshot.productChanged(before, after);
+        Map<Key, BigDecimal> deltas = new LinkedHashMap<>();
+        if (before != null) addProduct(deltas, before, BigDecimal.ONE.negate());
+        if (after != null) addProduct(deltas, after, BigDecimal.ONE);
+        apply(deltas);
+    }
+
+    public void paymentRecorded(LocalDate date, BigDecimal amount) {
+        if (date == null || amount == null) return;
+        analyticsSnapshot.cashIn(date, amount);
+        apply(Map.of(new Key(date.withDayOfMonth(1), FinanceMetric.CASH_IN, "", 0L), amount));
+    }
+
+    public void paymentRemoved(LocalDate date, BigDecimal amount) {
+        if (amount != null) paymentRecorded(date, amount.negate());
+    }
+
+    public void costAdded(Costs c) {
+        if (c.getDate() == null || c.getAmount() == null) return;
+        analyticsSnapshot.expense(c.getDate(), c.getCostType(), c.getAmount());
+        apply(Map.of(costKey(c), c.getAmount()));
+    }
+
+    public void costRemoved(Costs c) {
+        if (c.getDate() == null || c.getAmount() == null) return;
+        analyticsSnapshot.expense(c.getDate(), c.getCostType(), c.getAmount().negate());
+        apply(Map.of(costKey(c), c.getAmount().negate()));
+    }
+
+    /** costAdded for a batch: one rollup upsert per month and type instead of one per cost. */
+    public void costsAdded(Collection<Costs> costs) {
+        Map<Key, BigDecimal> deltas = new LinkedHashMap<>();
+        for (Costs c : costs) {
+            if (c.getDate() == null || c.getAmount() == null) continue;
+            analyticsSnapshot.expense(c.getDate(), c.getCostType(), c.getAmount());
+            deltas.merge(costKey(c), c.getAmount(), BigDecimal::add);
+        }
+        apply(deltas);
+    }
+
+    /** paymentRecorded for a batch, given the amounts per payment day. */
+    public void paymentsRecorded(Map<LocalDate, BigDecimal> byDay) {
+        Map<Key, BigDecimal> deltas = new LinkedHashMap<>();
+        byDay.forEach((date, amount) -> {
+            analyticsSnapshot.cashIn(date, amount);
+            deltas.merge(new Key(date.withDayOfMonth(1), FinanceMetric.CASH_IN, "", 0L), amount, BigDecimal::add);
+        });
+        apply(deltas);
+    }
+
+    private static Key costKey(Costs c) {
+        String type = c.getCostType() != null ? c.getCostType().name() : "";
+        return new Key(c.getDate().withDayOfMonth(1), FinanceMetric.EXPENSE, type, 0L);
+    }
+
+    private static void addProduct(Map<Key, BigDecimal> deltas, ProductContribution c, BigDecimal sign) {
+        LocalDate month = c.day().withDayOfMonth(1);
+        deltas.merge(new Key(month, FinanceMetric.INCOME, "", c.sellerId()), c.income().multiply(sign), BigDecimal::add);
+        deltas.merge(new Key(month, FinanceMetric.UNITS, "", c.sellerId()), BigDecimal.valueOf(c.units()).multiply(sign), BigDecimal::add);
+        deltas.merge(new Key(month, FinanceMetric.COGS, "", c.sellerId()), c.cogs().multiply(sign), BigDecimal::add);
+    }
+
+    private void apply(Map<Key, BigDecimal> deltas) {
+        Set<LocalDate> months = new HashSet<>();
+        deltas.forEach((k, delta) -> {
+            if (delta.signum() == 0) return;
+            BigDecimal real = k.metric() == FinanceMetric.UNITS ? delta : priceIndex.deflate(delta, k.month());
+            jdbcTemplate.update(postgres ? PG_UPSERT : MERGE_UPSERT,
+                    Date.valueOf(k.month()), k.metric().name(), k.costType(), k.sellerId(), delta, real);
+            months.add(k.month());
+        });
+        months.forEach(dashboardCache::invalidateMonth);
+    }
+
+    private static final String PG_UPSERT = """
+        INSERT INTO finance_monthly_rollup (month_start, metric, cost_type, seller_id, amount, amount_real)
+        VALUES (?, ?, ?, ?, ?, ?)
+        ON CONFLICT (month_start, metric, cost_type, seller_id)
+        DO UPDATE SET amount = finance_monthly_rollup.amount + EXCLUDED.amount,
+                      amount_real = finance_monthly_rollup.amount_real + EXCLUDED.amount_real
+        """;
+
+    private static final String MERGE_UPSERT = """
+        MERGE INTO finance_monthly_rollup r
+        USING (VALUES (CAST(? AS DATE), CAST(? AS VARCHAR(20)), CAST(? AS VARCHAR(20)),
+                       CAST(? AS BIGINT), CAST(? AS NUMERIC(14, 2)), CAST(? AS NUMERIC(24, 8))))
+              AS s (month_start, metric, cost_type, seller_id, amount, amount_real)
+        ON r.month_start = s.month_start AND r.metric = s.metric
+           AND r.cost_type = s.cost_type AND r.seller_id = s.seller_id
+        WHEN MATCHED THEN UPDATE SET amount = r.amount + s.amount, amount_real = r.amount_real + s.amount_real
+        WHEN NOT MATCHED THEN INSERT (month_start, metric, cost_type, seller_id, amount, amount_real)
+             VALUES (s.month_start, s.metric, s.cost_type, s.seller_id, s.amount, s.amount_real)
+        """;
+
+    // Same rule as PriceIndexService.indexFor: the month's index, else the last before it, else the first
+    private static final String REVALUE_SQL = """
+        UPDATE finance_monthly_rollup SET amount_real = CASE WHEN metric = 'UNITS' THEN amount
+            ELSE CAST(amount AS NUMERIC(24, 8)) / COALESCE(
+                (SELECT pi.index_value FROM price_index pi
+                 WHERE pi.month_start <= finance_monthly_rollup.month_start
+                 ORDER BY pi.month_start DESC LIMIT 1),
+                (SELECT pi.index_value FROM price_index pi ORDER BY pi.month_start LIMIT 1),
+                1) END
+        """;
+
+    // ---------------- PRICE INDEX ----------------
+
+    /** Stores index months and re-deflates every rollup row with them, in one transaction. */
+    public int loadPriceIndex(Map<YearMonth, BigDecimal> values) {
+        Integer rows = transactionTemplate.execute(status -> {
+            priceIndex.save(values);
+            jdbcTemplate.update(REVALUE_SQL);
+            dashboardCache.invalidateAll();
+            return values.size();
+        });
+        log.info("Price index loaded: {} months", rows);
+        return rows != null ? rows : 0;
+    }
+
+    // A series kept next to the app (finance.price-index.file) is re-read on every start
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadPriceIndexFile() {
+        if (priceIndexFile == null || priceIndexFile.isBlank()) return;
+        try {
+            loadPriceIndex(PriceIndexService.parseCsv(Files.readString(Path.of(priceIndexFile))));
+        } catch (IOException | BadRequestException e) {
+            log.warn("Price index file {} not loaded: {}", priceIndexFile, e.getMessage());
+        }
+    }
+
+    // ---------------- REBUILD ----------------
+
+    /** Recomputes the whole rollup from products, pagos and costos. Returns the row count. */
+    public int rebuild() {
+        Integer rows = transactionTemplate.execute(status -> rebuildInTransaction());
+        return rows != null ? rows : 0;
+    }
+
+    private int rebuildInTransaction() {
+        // Make concurrent hooks wait for the rebuild, so none is lost between the delete and the insert
+        if (postgres) jdbcTemplate.execute("LOCK TABLE finance_monthly_rollup IN EXCLUSIVE MODE");
+        jdbcTemplate.update("DELETE FROM finance_monthly_rollup");
+
+        String productMonth = "CAST(date_trunc('month', p.startdate) AS DATE)";
+        int rows = 0;
+        rows += jdbcTemplate.update(
+                "INSERT INTO finance_monthly_rollup (month_start, metric, cost_type, seller_id, amount)"
+                + " SELECT " + productMonth + ", 'INCOME', '', COALESCE(p.ownerid, 0), SUM(COALESCE(p.precio, 0))"
+                + " FROM products p WHERE p.startdate IS NOT NULL"
+                + " GROUP BY " + productMonth + ", COALESCE(p.ownerid, 0)");
+        rows += jdbcTemplate.update(
+                "INSERT INTO finance_monthly_rollup (month_start, metric, cost_type, seller_id, amount)"
+                + " SELECT " + productMonth + ", 'UNITS', '', COALESCE(p.ownerid, 0), SUM(p.cantidad)"
+                + " FROM products p WHERE p.startdate IS NOT NULL"
+                + " GROUP BY " + productMonth + ", COALESCE(p.ownerid, 0)");
+        rows += jdbcTemplate.update(
+                "INSERT INTO finance_monthly_rollup (month_start, metric, cost_type, seller_id, amount)"
+                + " SELECT " + productMonth + ", 'COGS', '', COALESCE(p.ownerid, 0), SUM(COALESCE(p.cogs_amount, 0))"
+                + " FROM products p JOIN work_orders wo ON wo.product_id = p.id"
+                + " WHERE p.startdate IS NOT NULL AND wo.status = 'ENTREGADO'"
+                + " GROUP BY " + productMonth + ", COALESCE(p.ownerid, 0)");
+        rows += jdbcTemplate.update(
+                "INSERT INTO finance_monthly_rollup (month_start, metric, cost_type, seller_id, amount)"
+                + " SELECT CAST(date_trunc('month', pg.fecha) AS DATE), 'CASH_IN', '', 0, SUM(pg.valor)"
+                + " FROM pagos pg WHERE pg.fecha IS NOT NULL AND pg.valor IS NOT NULL"
+                + " GROUP BY CAST(date_trunc('month', pg.fecha) AS DATE)");
+        rows += jdbcTemplate.update(
+                "INSERT INTO finance_monthly_rollup (month_start, metric, cost_type, seller_id, amount)"
+                + " SELECT CAST(date_trunc('month', c.fecha) AS DATE), 'EXPENSE', COALESCE(CAST(c.tipo AS VARCHAR(20)), ''), 0, SUM(c.valor)"
+                + " FROM costos c WHERE c.fecha IS NOT NULL"
+                + " GROUP BY CAST(date_trunc('month', c.fecha) AS DATE), COALESCE(CAST(c.tipo AS VARCHAR(20)), '')");
+        jdbcTemplate.update(REVALUE_SQL);
+
+        dashboardCache.invalidateAll();
+        log.info("Finance rollup rebuilt: {} rows", rows);
+        return rows;
+    }
+
+    private static BigDecimal nz(BigDecimal v) { return v == null ? BigDecimal.ZERO : v; }
+}
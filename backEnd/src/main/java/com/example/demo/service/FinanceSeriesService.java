@@ -0,0 +1,187 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.FinanceSeriesPoint;
+import com.example.demo.dto.FinanceSeriesResponse;
+import com.example.demo.dto.PeriodAmountRow;
+import com.example.demo.dto.SeriesComparison;
+import com.example.demo.dto.SeriesGranularity;
+import com.example.demo.exceptions.BadRequestException;
+import com.example.demo.repository.CostRepo;
+import com.example.demo.repository.PaymentRepo;
+import com.example.demo.repository.ProductRepo;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+
+/**
+ * Day / week / month series of income, cash collected, expenses, COGS and net profit for an
+ * arbitrary range, optionally next to the same range a year or a month earlier. Each metric is
+ * one grouped query (the series forms of the dashboard's monthly queries), all forked together.
+ */
+@Service
+public class FinanceSeriesService {
+
+    private final ProductRepo productRepository;
+    private final PaymentRepo paymentRepository;
+    private final CostRepo costsRepository;
+    private final ParallelQueryRunner queryRunner;
+    private final PriceIndexService priceIndex;
+    private final int maxBuckets;
+
+    public FinanceSeriesService(ProductRepo productRepository, PaymentRepo paymentRepository, CostRepo costsRepository,
+                                ParallelQueryRunner queryRunner, PriceIndexService priceIndex,
+                                @Value("${finance.series.max-buckets:1000}") int maxBuckets) {
+        this.productRepository = productRepository;
+        this.paymentRepository = paymentRepository;
+        this.costsRepository = costsRepository;
+        this.queryRunner = queryRunner;
+        this.priceIndex = priceIndex;
+        this.maxBuckets = maxBuckets;
+    }
+
+    private record RawSeries(Future<List<PeriodAmountRow>> income, Future<List<PeriodAmountRow>> cashIn,
+                             Future<List<PeriodAmountRow>> expenses, Future<List<PeriodAmountRow>> cogs) {}
+
+    public FinanceSeriesResponse series(LocalDate from, LocalDate to,
+                                        SeriesGranularity granularity, SeriesComparison compare) {
+        return series(from, to, granularity, compare, null);
+    }
+
+    /**
+     * With {@code adjustedTo} set, every amount is restated in that month's money before it is
+     * bucketed: each row is a day or a month, so it has exactly one index. Same queries as the
+     * nominal series.
+     */
+    public FinanceSeriesResponse series(LocalDate from, LocalDate to, SeriesGranularity granularity,
+                                        SeriesComparison compare, YearMonth adjustedTo) {
+        if (to.isBefore(from)) throw new BadRequestException("to must not be before from");
+        List<LocalDate> buckets = buckets(from, to, granularity);
+        BigDecimal baseIndex = adjustedTo != null ? priceIndex.baseIndex(adjustedTo) : null;
+        String adjusted = adjustedTo != null ? adjustedTo.toString() : null;
+
+        ParallelQueryRunner.Batch batch = queryRunner.batch();
+        RawSeries current = fork(batch, granularity, from, to);
+        LocalDate previousFrom = compare == SeriesComparison.NONE ? null : compare.shift(from);
+        LocalDate previousTo = compare == SeriesComparison.NONE ? null : compare.shift(to);
+        RawSeries previous = previousFrom == null ? null : fork(batch, granularity, previousFrom, previousTo);
+        batch.join();
+
+        List<FinanceSeriesPoint> points = assemble(buckets, granularity, current, baseIndex);
+        FinanceSeriesPoint totals = total(points);
+        if (previous == null) {
+            return new FinanceSeriesResponse(label(granularity), from, to, adjusted, points, totals,
+                    compare.name().toLowerCase(), null, null, null, null, null);
+        }
+
+        List<FinanceSeriesPoint> previousPoints = assemble(buckets(previousFrom, previousTo, granularity),
+                granularity, previous, baseIndex);
+        FinanceSeriesPoint previousTotals = total(previousPoints);
+        return new FinanceSeriesResponse(label(granularity), from, to, adjusted, points, totals,
+                compare.name().toLowerCase(), previousFrom, previousTo, previousPoints, previousTotals,
+                changePct(totals, previousTotals));
+    }
+
+    private RawSeries fork(ParallelQueryRunner.Batch batch, SeriesGranularity g, LocalDate from, LocalDate to) {
+        String unit = g.queryUnit();
+        return new RawSeries(
+                batch.fork(() -> productRepository.incomeSeries(unit, from, to)),
+                batch.fork(() -> paymentRepository.cashFlowSeries(unit, from, to)),
+                batch.fork(() -> costsRepository.expensesSeries(unit, from, to)),
+                batch.fork(() -> productRepository.cogsSeries(unit, from, to)));
+    }
+
+    private List<LocalDate> buckets(LocalDate from, LocalDate to, SeriesGranularity g) {
+        LocalDate first = g.bucketStart(from);
+        long count = switch (g) {
+            case DAY -> ChronoUnit.DAYS.between(first, to) + 1;
+            case WEEK -> ChronoUnit.WEEKS.between(first, to) + 1;
+            case MONTH -> ChronoUnit.MONTHS.between(first, to) + 1;
+        };
+        if (count > maxBuckets) {
+            throw new BadRequestException("Range too long for " + label(g) + " granularity (max "
+                    + maxBuckets + " points)");
+        }
+        List<LocalDate> buckets = new ArrayList<>((int) count);
+        for (LocalDate b = first; !b.isAfter(to); b = g.next(b)) buckets.add(b);
+        return buckets;
+    }
+
+    // Zero-fill every bucket so all series line up, then derive net profit as the dashboard does
+    private List<FinanceSeriesPoint> assemble(List<LocalDate> buckets, SeriesGranularity g, RawSeries raw,
+                                              BigDecimal baseIndex) {
+        Map<String, BigDecimal> income = byBucket(raw.income().resultNow(), g, baseIndex);
+        Map<String, BigDecimal> cashIn = byBucket(raw.cashIn().resultNow(), g, baseIndex);
+        Map<String, BigDecimal> expenses = byBucket(raw.expenses().resultNow(), g, baseIndex);
+        Map<String, BigDecimal> cogs = byBucket(raw.cogs().resultNow(), g, baseIndex);
+
+        List<FinanceSeriesPoint> points = new ArrayList<>(buckets.size());
+        for (LocalDate b : buckets) {
+            String period = b.toString();
+            BigDecimal inc = income.getOrDefault(period, BigDecimal.ZERO);
+            BigDecimal exp = expenses.getOrDefault(period, BigDecimal.ZERO);
+            BigDecimal cg = cogs.getOrDefault(period, BigDecimal.ZERO);
+            points.add(new FinanceSeriesPoint(period, inc, cashIn.getOrDefault(period, BigDecimal.ZERO),
+                    exp, cg, inc.subtract(cg).subtract(exp)));
+        }
+        return points;
+    }
+
+    private Map<String, BigDecimal> byBucket(List<PeriodAmountRow> rows, SeriesGranularity g, BigDecimal baseIndex) {
+        Map<String, BigDecimal> map = new HashMap<>();
+        if (rows == null) return map;
+        for (PeriodAmountRow r : rows) {
+            if (r.getPeriod() == null) continue;
+            LocalDate period = LocalDate.parse(r.getPeriod());
+            BigDecimal amount = baseIndex == null ? nz(r.getTotal()) : priceIndex.adjust(nz(r.getTotal()), period, baseIndex);
+            map.merge(g.bucketStart(period).toString(), amount, BigDecimal::add);
+        }
+        return map;
+    }
+
+    private static String label(SeriesGranularity g) {
+        return g.name().toLowerCase();
+    }
+
+    private static FinanceSeriesPoint total(List<FinanceSeriesPoint> points) {
+        BigDecimal income = BigDecimal.ZERO, cashIn = BigDecimal.ZERO, expenses = BigDecimal.ZERO,
+                cogs = BigDecimal.ZERO, net = BigDecimal.ZERO;
+        for (FinanceSeriesPoint p : points) {
+            income = income.add(p.income());
+            cashIn = cashIn.add(p.cashIn());
+            expenses = expenses.add(p.expenses());
+            cogs = cogs.add(p.cogs());
+            net = net.add(p.netProfit());
+        }
+        return new FinanceSeriesPoint(null, income, cashIn, expenses, cogs, net);
+    }
+
+    private static Map<String, BigDecimal> changePct(FinanceSeriesPoint now, FinanceSeriesPoint before) {
+        Map<String, BigDecimal> change = new LinkedHashMap<>();
+        change.put("income", pct(now.income(), before.income()));
+        change.put("cashIn", pct(now.cashIn(), before.cashIn()));
+        change.put("expenses", pct(now.expenses(), before.expenses()));
+        change.put("cogs", pct(now.cogs(), before.cogs()));
+        change.put("netProfit", pct(now.netProfit(), before.netProfit()));
+        return change;
+    }
+
+    // abs() on the base so a loss shrinking towards zero reads as an improvement
+    private static BigDecimal pct(BigDecimal now, BigDecimal before) {
+        if (before.signum() == 0) return null;
+        return now.subtract(before).multiply(BigDecimal.valueOf(100))
+                .divide(before.abs(), 2, RoundingMode.HALF_UP);
+    }
+
+    private static BigDecimal nz(BigDecimal v) { return v == null ? BigDecimal.ZERO : v; }
+}
@@ -1,17 +1,27 @@
 package com.example.demo.service;
 
+import com.example.demo.dto.ExpenseBreakdownRow;
+import com.example.demo.dto.ExpenseMonthTypeRow;
 import com.example.demo.dto.FinanceDashboardResponse;
 import com.example.demo.dto.MonthlyAmountRow;
-import com.example.demo.model.Costs;
+import com.example.demo.dto.RollupTotalRow;
+import com.example.demo.dto.SellerMatrixResponse;
+import com.example.demo.dto.SellerMonthRow;
+import com.example.demo.exceptions.BadRequestException;
+import com.example.demo.model.FinanceMetric;
 import com.example.demo.repository.CostRepo;
+import com.example.demo.repository.FinanceRollupRepo;
 import com.example.demo.repository.PaymentRepo;
 import com.example.demo.repository.ProductRepo;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.Future;
 
 @Service
 public class FinanceService {
@@ -19,40 +29,87 @@ public class FinanceService {
     private final ProductRepo productRepository;
     private final PaymentRepo paymentRepository;
     private final CostRepo costsRepository;
+    private final FinanceRollupRepo rollupRepository;
+    private final ParallelQueryRunner queryRunner;
+    private final FinanceDashboardCache dashboardCache;
+    private final FinanceAnalyticsSnapshot analyticsSnapshot;
+    private final PriceIndexService priceIndex;
 
-    public FinanceService(ProductRepo productRepository, PaymentRepo paymentRepository, CostRepo costsRepository) {
+    public FinanceService(ProductRepo productRepository, PaymentRepo paymentRepository, CostRepo costsRepository,
+                          FinanceRollupRepo rollupRepository, ParallelQueryRunner queryRunner,
+                          FinanceDashboardCache dashboardCache, FinanceAnalyticsSnapshot analyticsSnapshot,
+                          PriceIndexService priceIndex) {
         this.productRepository = productRepository;
         this.paymentRepository = paymentRepository;
         this.costsRepository = costsRepository;
+        this.rollupRepository = rollupRepository;
+        this.queryRunner = queryRunner;
+        this.dashboardCache = dashboardCache;
+        this.analyticsSnapshot = analyticsSnapshot;
+        this.priceIndex = priceIndex;
     }
 
     public FinanceDashboardResponse dashboard(LocalDate from, LocalDate to) {
-        List<MonthlyAmountRow> incomeRows = safe(productRepository.incomeByMonth(from, to));
-        List<MonthlyAmountRow> cashFlowRows = safe(paymentRepository.cashFlowByMonth(from, to));
-        List<MonthlyAmountRow> expenseRows = safe(costsRepository.expensesByDate(from, to));
-
-        List<Costs> allCosts = costsRepository.findByDateBetween(from, to);
-        Map<String, BigDecimal> breakdownMap = allCosts.stream()
-                .filter(c -> c.getCostType() != null)
-                .collect(Collectors.groupingBy(
-                        c -> c.getCostType().name(),
-                        Collectors.mapping(Costs::getAmount, Collectors.reducing(BigDecimal.ZERO, BigDecimal::add))
-                ));
-
-        List<Map<String, Object>> expenseBreakdown = new ArrayList<>();
-        breakdownMap.forEach((name, value) -> {
-            Map<String, Object> item = new HashMap<>();
-            item.put("name", name);
-            item.put("value", nz(value));
-            expenseBreakdown.add(item);
-        });
-
-        List<Map<String, Object>> userStats = getMonthlyUserStats(from, to);
+        return dashboardCache.get(from, to, () -> compute(from, to));
+    }
+
+    /**
+     * The dashboard in the money of {@code base} (default: latest indexed month). Read from the
+     * deflated rollup columns, so only whole-month ranges are supported.
+     */
+    public FinanceDashboardResponse adjustedDashboard(LocalDate from, LocalDate to, YearMonth base) {
+        if (!isMonthAligned(from, to)) {
+            throw new BadRequestException("Inflation-adjusted figures need whole months (month=, or from=first day and to=last day)");
+        }
+        YearMonth adjustedTo = priceIndex.resolveBase(base);
+        return dashboardCache.get(from, to, adjustedTo, () -> dashboardFromRollup(from, to, adjustedTo));
+    }
+
+    public Map<String, Object> cacheStats() {
+        return dashboardCache.stats();
+    }
+
+    private FinanceDashboardResponse compute(LocalDate from, LocalDate to) {
+        // Any range from the in-memory columns once they're loaded; SQL until then (or when disabled)
+        if (analyticsSnapshot.isReady()) return analyticsSnapshot.dashboard(from, to);
+
+        // Whole-month ranges (the month picker, multi-year reports) read the monthly rollup
+        if (isMonthAligned(from, to)) return dashboardFromRollup(from, to, null);
+
+        return dashboardFromQueries(from, to);
+    }
+
+    // Any range, straight from products, payments and costs
+    FinanceDashboardResponse dashboardFromQueries(LocalDate from, LocalDate to) {
+        // Independent round trips to the remote database: run them side by side
+        ParallelQueryRunner.Batch batch = queryRunner.batch();
+        Future<List<MonthlyAmountRow>> income = batch.fork(() -> productRepository.incomeByMonth(from, to));
+        Future<List<MonthlyAmountRow>> cashFlow = batch.fork(() -> paymentRepository.cashFlowByMonth(from, to));
+        Future<List<ExpenseMonthTypeRow>> expenses = batch.fork(() -> costsRepository.expensesByMonthAndType(from, to));
+        Future<List<Map<String, Object>>> users = batch.fork(() -> getMonthlyUserStats(from, to));
+        Future<BigDecimal> cogs = batch.fork(() -> productRepository.cogsByDateRange(from, to));
+        batch.join();
+
+        List<MonthlyAmountRow> incomeRows = safe(income.resultNow());
+        List<MonthlyAmountRow> cashFlowRows = safe(cashFlow.resultNow());
+        List<ExpenseMonthTypeRow> expenseRows = safe(expenses.resultNow());
+
+        // untyped costs count in tExp but not in the breakdown
+        BigDecimal tExp = BigDecimal.ZERO;
+        Map<String, BigDecimal> byType = new TreeMap<>();
+        for (ExpenseMonthTypeRow r : expenseRows) {
+            tExp = tExp.add(nz(r.getTotal()));
+            if (r.getCostType() != null) byType.merge(r.getCostType(), nz(r.getTotal()), BigDecimal::add);
+        }
+        List<ExpenseBreakdownRow> expenseBreakdown = byType.entrySet().stream()
+                .map(e -> new ExpenseBreakdownRow(e.getKey(), e.getValue()))
+                .toList();
+
+        List<Map<String, Object>> userStats = users.resultNow();
 
         BigDecimal tInc = sumValues(incomeRows);
-        BigDecimal tExp = sumValues(expenseRows);
         BigDecimal tDep = sumValues(cashFlowRows);
-        BigDecimal tCogs = nz(productRepository.cogsByDateRange(from, to));
+        BigDecimal tCogs = nz(cogs.resultNow());
         BigDecimal grossProfit = tInc.subtract(tCogs);
         BigDecimal netProfit = grossProfit.subtract(tExp);
 
@@ -67,16 +124,126 @@ public class FinanceService {
                 userStats,
                 tCogs,
                 grossProfit,
-                netProfit
+                netProfit,
+                null
+        );
+    }
+
+    // adjustedTo null: nominal amounts; otherwise amount_real sums scaled by that month's index
+    FinanceDashboardResponse dashboardFromRollup(LocalDate from, LocalDate to, YearMonth adjustedTo) {
+        BigDecimal baseIndex = adjustedTo != null ? priceIndex.baseIndex(adjustedTo) : null;
+        ParallelQueryRunner.Batch batch = queryRunner.batch();
+        Future<List<RollupTotalRow>> rows = batch.fork(() -> rollupRepository.totals(from, to));
+        Future<List<Map<String, Object>>> userStats = batch.fork(() -> baseIndex == null
+                ? rollupRepository.userStats(from, to)
+                : rollupRepository.userStatsReal(from, to));
+        batch.join();
+
+        Map<FinanceMetric, BigDecimal> totals = new EnumMap<>(FinanceMetric.class);
+        List<ExpenseBreakdownRow> expenseBreakdown = new ArrayList<>();
+        for (RollupTotalRow r : rows.resultNow()) {
+            FinanceMetric metric = FinanceMetric.valueOf(r.getMetric());
+            BigDecimal total = baseIndex == null ? nz(r.getTotal())
+                    : nz(r.getTotalReal()).multiply(baseIndex).setScale(2, RoundingMode.HALF_UP);
+            totals.merge(metric, total, BigDecimal::add);
+            // untyped costs count in tExp but, as before, not in the breakdown
+            if (metric == FinanceMetric.EXPENSE && !r.getCostType().isEmpty()) {
+                expenseBreakdown.add(new ExpenseBreakdownRow(r.getCostType(), total));
+            }
+        }
+
+        BigDecimal tInc = totals.getOrDefault(FinanceMetric.INCOME, BigDecimal.ZERO);
+        BigDecimal tExp = totals.getOrDefault(FinanceMetric.EXPENSE, BigDecimal.ZERO);
+        BigDecimal tDep = totals.getOrDefault(FinanceMetric.CASH_IN, BigDecimal.ZERO);
+        BigDecimal tCogs = totals.getOrDefault(FinanceMetric.COGS, BigDecimal.ZERO);
+        BigDecimal grossProfit = tInc.subtract(tCogs);
+
+        return new FinanceDashboardResponse(
+                from,
+                to,
+                tInc,
+                tDep,
+                tExp,
+                tInc.subtract(tExp),
+                expenseBreakdown,
+                baseIndex == null ? userStats.resultNow() : scaleIncome(userStats.resultNow(), baseIndex),
+                tCogs,
+                grossProfit,
+                grossProfit.subtract(tExp),
+                adjustedTo != null ? adjustedTo.toString() : null
         );
     }
 
+    private static List<Map<String, Object>> scaleIncome(List<Map<String, Object>> rows, BigDecimal baseIndex) {
+        List<Map<String, Object>> scaled = new ArrayList<>(rows.size());
+        for (Map<String, Object> r : rows) {
+            Map<String, Object> row = new LinkedHashMap<>(r);
+            BigDecimal income = row.get("income") instanceof BigDecimal b ? b : BigDecimal.ZERO;
+            row.put("income", income.multiply(baseIndex).setScale(2, RoundingMode.HALF_UP));
+            scaled.add(row);
+        }
+        return scaled;
+    }
+
+    private static boolean isMonthAligned(LocalDate from, LocalDate to) {
+        return from.getDayOfMonth() == 1
+                && to.equals(to.withDayOfMonth(to.lengthOfMonth()))
+                && !to.isBefore(from);
+    }
+
     public List<Map<String, Object>> getMonthlyUserStats(LocalDate from, LocalDate to) {
+        if (analyticsSnapshot.isReady()) return analyticsSnapshot.userStats(from, to);
         return productRepository.getUserPerformanceData(from, to);
     }
 
+    // ---------------- SELLER MATRIX ----------------
+
+    public static final int MAX_MATRIX_MONTHS = 60;
+    private static final List<String> SELLER_METRICS = List.of(
+            "units", "income", "orders", "avgTicket", "collected", "deliveries", "onTimeDeliveries");
+
+    /** Every seller's monthly metrics for [from, to] from one grouped query, for the finance charts. */
+    public SellerMatrixResponse sellerMatrix(YearMonth from, YearMonth to) {
+        if (to.isBefore(from)) throw new BadRequestException("to must not be before from");
+        int n = (int) from.until(to, ChronoUnit.MONTHS) + 1;
+        if (n > MAX_MATRIX_MONTHS) {
+            throw new BadRequestException("Range too long (max " + MAX_MATRIX_MONTHS + " months)");
+        }
+
+        List<String> months = new ArrayList<>(n);
+        Map<String, Integer> column = new HashMap<>();
+        for (YearMonth m = from; !m.isAfter(to); m = m.plusMonths(1)) {
+            column.put(m.toString(), months.size());
+            months.add(m.toString());
+        }
+
+        Map<Long, SellerMatrixResponse.Seller> sellers = new LinkedHashMap<>();
+        for (SellerMonthRow r : productRepository.sellerMonthMatrix(
+                from.atDay(1), to.atEndOfMonth(), to.plusMonths(1).atDay(1))) {
+            Integer i = column.get(r.getMonth());
+            if (i == null) continue;
+            BigDecimal[][] v = sellers.computeIfAbsent(r.getSellerId(),
+                    id -> new SellerMatrixResponse.Seller(id, r.getUserName(), zeroMatrix(SELLER_METRICS.size(), n))).values();
+            BigDecimal orders = nz(r.getOrders());
+            v[0][i] = nz(r.getUnits());
+            v[1][i] = nz(r.getIncome());
+            v[2][i] = orders;
+            v[3][i] = orders.signum() == 0 ? BigDecimal.ZERO : nz(r.getIncome()).divide(orders, 2, RoundingMode.HALF_UP);
+            v[4][i] = nz(r.getCollected());
+            v[5][i] = nz(r.getDeliveries());
+            v[6][i] = nz(r.getOnTime());
+        }
+        return new SellerMatrixResponse(months, SELLER_METRICS, new ArrayList<>(sellers.values()));
+    }
+
+    private static BigDecimal[][] zeroMatrix(int rows, int cols) {
+        BigDecimal[][] m = new BigDecimal[rows][cols];
+        for (BigDecimal[] row : m) Arrays.fill(row, BigDecimal.ZERO);
+        return m;
+    }
+
     private static BigDecimal nz(BigDecimal v) { return v == null ? BigDecimal.ZERO : v; }
-    private List<MonthlyAmountRow> safe(List<MonthlyAmountRow> rows) { return rows == null ? List.of() : rows; }
+    private static <T> List<T> safe(List<T> rows) { return rows == null ? List.of() : rows; }
 
     private static BigDecimal sumValues(List<MonthlyAmountRow> rows) {
         BigDecimal total = BigDecimal.ZERO;
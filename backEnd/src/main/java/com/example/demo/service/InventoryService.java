@@ -1,11 +1,14 @@
 package com.example.demo.service;
 
 import com.example.demo.dto.CreateInventoryItemRequest;
+import com.example.demo.dto.CursorPage;
 import com.example.demo.dto.InventoryItemResponse;
 import com.example.demo.model.InventoryItem;
 import com.example.demo.model.ProductMaterial;
 import com.example.demo.repository.InventoryItemRepo;
 import com.example.demo.repository.ProductMaterialRepo;
+import com.example.demo.utils.Cursors;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -34,6 +37,17 @@ public class InventoryService {
         return inventoryItemRepo.findByNameContainingIgnoreCase(name, pageable).map(InventoryItemResponse::from);
     }
 
+    public CursorPage<InventoryItemResponse> getAllAfter(String name, String cursor, int size) {
+        Cursors.Position after = Cursors.decode(cursor);
+        String nameParam = (name != null && !name.isBlank()) ? name : null;
+        Limit limit = Limit.of(size + 1);
+        List<InventoryItem> rows = (after == null)
+                ? inventoryItemRepo.findFirstSlice(nameParam, limit)
+                : inventoryItemRepo.findSliceAfter(nameParam, after.key(), after.id(), limit);
+        return CursorPage.from(rows, size, InventoryItemResponse::from,
+                i -> Cursors.encode(i.getName(), i.getId()));
+    }
+
     public InventoryItemResponse create(CreateInventoryItemRequest req) {
         InventoryItem item = new InventoryItem();
         item.setName(req.name());
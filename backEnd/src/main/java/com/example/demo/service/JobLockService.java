@@ -0,0 +1,129 @@
+package com.example.demo.service;
+
+import com.example.demo.model.JobRun;
+import com.example.demo.model.JobRunStatus;
+import com.example.demo.repository.JobRunRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Runs scheduled jobs on one instance at a time. Each job has a lease row in job_locks taken with
+ * a conditional UPDATE, so only one owner holds it until it releases it or the lease runs out
+ * (a crashed instance can't block the job for longer than that). Lease times come from the
+ * database clock, so instances whose clocks disagree still agree on when a lease is free. Every run is recorded in
+ * job_runs; a run for a trigger key that already has one is skipped, which makes a cron firing
+ * on every instance run exactly once.
+ */
+@Service
+public class JobLockService {
+
+    private static final Logger log = LoggerFactory.getLogger(JobLockService.class);
+
+    private static final String LEASE_END = "CURRENT_TIMESTAMP + CAST(? AS INTEGER) * INTERVAL '1' SECOND";
+
+    private static final String TAKE_EXPIRED_SQL = """
+        UPDATE job_locks SET owner_id = ?, locked_at = CURRENT_TIMESTAMP, locked_until = %s
+        WHERE job_name = ? AND locked_until <= CURRENT_TIMESTAMP
+        """.formatted(LEASE_END);
+    private static final String TAKE_NEW_SQL =
+        "INSERT INTO job_locks (job_name, owner_id, locked_at, locked_until) VALUES (?, ?, CURRENT_TIMESTAMP, " + LEASE_END + ")";
+    private static final String RELEASE_SQL =
+        "UPDATE job_locks SET locked_until = CURRENT_TIMESTAMP WHERE job_name = ? AND owner_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JobRunRepo jobRunRepo;
+    private final String ownerId;
+    private final long leaseSeconds;
+
+    public JobLockService(JdbcTemplate jdbcTemplate, JobRunRepo jobRunRepo,
+                          @Value("${jobs.owner-id:}") String ownerId,
+                          @Value("${jobs.lock.lease-seconds:600}") long leaseSeconds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.jobRunRepo = jobRunRepo;
+        // pid@host, plus a suffix in case containers share both
+        this.ownerId = ownerId.isBlank()
+                ? ManagementFactory.getRuntimeMXBean().getName() + "/" + UUID.randomUUID().toString().substring(0, 8)
+                : ownerId;
+        this.leaseSeconds = leaseSeconds;
+    }
+
+    public String ownerId() {
+        return ownerId;
+    }
+
+    /**
+     * Runs {@code task} if this instance gets the lease of {@code jobName} and, when
+     * {@code triggerKey} is given, no instance has run that trigger yet. Returns the task's
+     * result, or empty when it was skipped; a failure is recorded and rethrown. Call outside
+     * a transaction: the lease and the run row must be visible to the other instances at once.
+     */
+    public <T> Optional<T> runExclusively(String jobName, String triggerKey, Supplier<T> task) {
+        if (!acquire(jobName)) {
+            log.info("Job {} is running on another instance, skipped", jobName);
+            return Optional.empty();
+        }
+        try {
+            JobRun run = start(jobName, triggerKey);
+            if (run == null) {
+                log.info("Job {} already ran for trigger {}, skipped", jobName, triggerKey);
+                return Optional.empty();
+            }
+            try {
+                T result = task.get();
+                finish(run, JobRunStatus.SUCCEEDED, null);
+                return Optional.ofNullable(result);
+            } catch (RuntimeException e) {
+                finish(run, JobRunStatus.FAILED, e.toString());
+                throw e;
+            }
+        } finally {
+            release(jobName);
+        }
+    }
+
+    private boolean acquire(String jobName) {
+        if (jdbcTemplate.update(TAKE_EXPIRED_SQL, ownerId, leaseSeconds, jobName) == 1) return true;
+        try {
+            return jdbcTemplate.update(TAKE_NEW_SQL, jobName, ownerId, leaseSeconds) == 1;
+        } catch (DuplicateKeyException e) {
+            return false;   // held, and the lease hasn't run out
+        }
+    }
+
+    private void release(String jobName) {
+        jdbcTemplate.update(RELEASE_SQL, jobName, ownerId);
+    }
+
+    // null when the trigger already has a run
+    private JobRun start(String jobName, String triggerKey) {
+        JobRun run = new JobRun();
+        run.setJobName(jobName);
+        run.setTriggerKey(triggerKey);
+        run.setOwnerId(ownerId);
+        run.setStatus(JobRunStatus.RUNNING);
+        run.setStartedAt(LocalDateTime.now());
+        try {
+            return jobRunRepo.saveAndFlush(run);
+        } catch (DataIntegrityViolationException e) {
+            return null;
+        }
+    }
+
+    private void finish(JobRun run, JobRunStatus status, String error) {
+        run.setStatus(status);
+        run.setFinishedAt(LocalDateTime.now());
+        if (error != null) run.setError(error.length() > 1000 ? error.substring(0, 1000) : error);
+        jobRunRepo.save(run);
+    }
+}
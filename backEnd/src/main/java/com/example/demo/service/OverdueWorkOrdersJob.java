@@ -0,0 +1,46 @@
+package com.example.demo.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/** Marks open work orders past their delivery date as ATRASADO, by work order id range. */
+@Component
+public class OverdueWorkOrdersJob implements BackgroundJobHandler {
+
+    private final WorkOrderService workOrderService;
+    private final JdbcTemplate jdbcTemplate;
+    private final long chunkSize;
+
+    public OverdueWorkOrdersJob(WorkOrderService workOrderService, JdbcTemplate jdbcTemplate,
+                                @Value("${jobs.chunk-size:500}") long chunkSize) {
+        this.workOrderService = workOrderService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public String type() {
+        return "overdue-work-orders";
+    }
+
+    @Override
+    public String description() {
+        return "Mark CREADO / PRODUCCION orders past their delivery date as ATRASADO";
+    }
+
+    @Override
+    public List<Range> partition() {
+        Map<String, Object> bounds = jdbcTemplate.queryForMap("SELECT MIN(id) AS lo, MAX(id) AS hi FROM work_orders");
+        return BackgroundJobHandler.idRanges(bounds.get("lo"), bounds.get("hi"), chunkSize);
+    }
+
+    @Override
+    public int run(Range range) {
+        return workOrderService.markOverdue(range.start(), range.end(), LocalDate.now());
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.demo.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Runs independent read queries concurrently on virtual threads. A shared semaphore caps how many
+ * of them hold a pooled connection at once, so a burst of dashboards can't drain the Hikari pool
+ * that regular requests also need. Each query runs outside any caller transaction, in its own
+ * read-only one whose timeout is what is left of the batch deadline: Spring hands that down as
+ * the statement's query timeout, so a query past the deadline is cancelled by the database and
+ * gives its connection back instead of running on after the caller gave up.
+ */
+@Component
+public class ParallelQueryRunner {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final PlatformTransactionManager transactionManager;
+    private final Semaphore connections;
+    private final long timeoutMillis;
+
+    public ParallelQueryRunner(PlatformTransactionManager transactionManager,
+                               @Value("${queries.parallel.max-connections:4}") int maxConnections,
+                               @Value("${queries.parallel.timeout-ms:15000}") long timeoutMillis) {
+        this.transactionManager = transactionManager;
+        this.connections = new Semaphore(Math.max(1, maxConnections), true);
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public Batch batch() {
+        return new Batch();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /** A group of queries forked together and joined against one deadline. */
+    public class Batch {
+
+        private final long deadline = System.currentTimeMillis() + timeoutMillis;
+        private final List<CompletableFuture<?>> forked = new ArrayList<>();
+        private final List<Future<?>> tasks = new ArrayList<>();
+
+        public <T> Future<T> fork(Supplier<T> query) {
+            CompletableFuture<T> result = new CompletableFuture<>();
+            // Submitted as a plain task: cancelling a CompletableFuture doesn't interrupt its thread
+            tasks.add(executor.submit(() -> {
+                try {
+                    result.complete(run(query));
+                } catch (Throwable t) {
+                    result.completeExceptionally(t);
+                }
+            }));
+            forked.add(result);
+            return result;
+        }
+
+        private <T> T run(Supplier<T> query) {
+            try {
+                connections.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Cancelled while waiting for a connection", e);
+            }
+            try {
+                long left = deadline - System.currentTimeMillis();
+                if (left <= 0) throw new QueryTimeoutException("No time left for the query");
+                TransactionTemplate tx = new TransactionTemplate(transactionManager);
+                tx.setReadOnly(true);
+                tx.setTimeout((int) Math.max(1, (left + 999) / 1000));
+                return tx.execute(status -> query.get());
+            } finally {
+                connections.release();
+            }
+        }
+
+        /** Waits for every forked query; on timeout or the first failure the rest are cancelled. */
+        public void join() {
+            CompletableFuture<Void> all = CompletableFuture.allOf(forked.toArray(CompletableFuture[]::new));
+            // fail fast instead of waiting out slower siblings of a query that already failed
+            forked.forEach(f -> f.whenComplete((v, ex) -> {
+                if (ex != null) all.completeExceptionally(ex);
+            }));
+            try {
+                all.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                cancelAll();
+                throw new QueryTimeoutException("Queries did not finish within " + timeoutMillis + " ms");
+            } catch (InterruptedException e) {
+                cancelAll();
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for queries", e);
+            } catch (ExecutionException e) {
+                cancelAll();
+                Throwable cause = e.getCause() instanceof CompletionException ce && ce.getCause() != null
+                        ? ce.getCause() : e.getCause();
+                if (cause instanceof RuntimeException re) throw re;
+                throw new IllegalStateException(cause);
+            }
+        }
+
+        private void cancelAll() {
+            tasks.forEach(t -> t.cancel(true));
+            forked.forEach(f -> f.cancel(false));
+        }
+    }
+}
@@ -12,6 +12,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
@@ -25,15 +26,20 @@ public class PaymentService {
     private static final Logger log = LoggerFactory.getLogger(PaymentService.class);
     private final PaymentRepo orderPaymentsRepo;
     private final ProductRepo productRepo;
+    private final FinanceRollupService rollupService;
+    private final CashForecastService cashForecast;
 
     @Autowired(required = false)
     private Cloudinary cloudinary;
 
     private static final Set<String> ALLOWED_EXTENSIONS = Set.of("jpg", "jpeg", "png", "pdf");
 
-    public PaymentService(ProductRepo productRepo, PaymentRepo orderPaymentsRepo) {
+    public PaymentService(ProductRepo productRepo, PaymentRepo orderPaymentsRepo, FinanceRollupService rollupService,
+                          CashForecastService cashForecast) {
         this.orderPaymentsRepo = orderPaymentsRepo;
         this.productRepo = productRepo;
+        this.rollupService = rollupService;
+        this.cashForecast = cashForecast;
     }
 
     public List<ProductPayments> getPayments(Long id) {
@@ -43,10 +49,12 @@ public class PaymentService {
                 .toList();
     }
 
+    @Transactional
     public OrderPayments createPayment(CreatePaymentRequest req) {
         log.info("createPayment called with product_id={}, type={}, valor={}, method={}, fecha={}",
                 req.product_id(), req.type(), req.valor(), req.paymentMethod(), req.fecha());
-        Product product = productRepo.findById(req.product_id())
+        // Locked so concurrent payments on the same order can't lose a running-total update
+        Product product = productRepo.findByIdForUpdate(req.product_id())
                 .orElseThrow(() -> new RuntimeException("Product not found"));
 
         OrderPayments payment = new OrderPayments();
@@ -55,6 +63,9 @@ public class PaymentService {
         payment.setPaymentDate(LocalDate.parse(req.fecha().replace('/', '-')));
         payment.setPaymentMethod(req.paymentMethod());
         payment.setProduct(product);
+        product.recordPayment(payment.getPaymentType(), payment.getAmount());
+        rollupService.paymentRecorded(payment.getPaymentDate(), payment.getAmount());
+        cashForecast.productChanged(product);
 
         return orderPaymentsRepo.save(payment);
     }
@@ -0,0 +1,114 @@
+package com.example.demo.service;
+
+import com.example.demo.exceptions.BadRequestException;
+import com.example.demo.model.PriceIndex;
+import com.example.demo.repository.PriceIndexRepo;
+import com.example.demo.utils.AfterCommit;
+import jakarta.annotation.PostConstruct;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * The monthly price index, held in memory for the rollup hooks and the adjusted reads. A month
+ * without its own value uses the last one before it (the series usually lags a month or two),
+ * and months before the series starts use its first value.
+ */
+@Service
+public class PriceIndexService {
+
+    // Scale of the deflated amounts stored in finance_monthly_rollup.amount_real
+    public static final int REAL_SCALE = 8;
+
+    private final PriceIndexRepo priceIndexRepo;
+    private volatile NavigableMap<LocalDate, BigDecimal> indexes = Collections.emptyNavigableMap();
+
+    public PriceIndexService(PriceIndexRepo priceIndexRepo) {
+        this.priceIndexRepo = priceIndexRepo;
+    }
+
+    @PostConstruct
+    public void refresh() {
+        TreeMap<LocalDate, BigDecimal> fresh = new TreeMap<>();
+        for (PriceIndex p : priceIndexRepo.findAll()) fresh.put(p.getMonthStart(), p.getValue());
+        indexes = Collections.unmodifiableNavigableMap(fresh);
+    }
+
+    public Map<String, BigDecimal> list() {
+        Map<String, BigDecimal> out = new LinkedHashMap<>();
+        indexes.forEach((month, value) -> out.put(YearMonth.from(month).toString(), value));
+        return out;
+    }
+
+    /** Upserts the given months, flushed so callers can recompute the deflated rollup with SQL right after. */
+    public void save(Map<YearMonth, BigDecimal> values) {
+        priceIndexRepo.saveAllAndFlush(values.entrySet().stream()
+                .map(e -> new PriceIndex(e.getKey().atDay(1), e.getValue()))
+                .toList());
+        AfterCommit.run(this::refresh);
+    }
+
+    /** Index in effect for the month containing {@code date}; null when no series is loaded. */
+    public BigDecimal indexFor(LocalDate date) {
+        NavigableMap<LocalDate, BigDecimal> map = indexes;
+        if (map.isEmpty()) return null;
+        Map.Entry<LocalDate, BigDecimal> e = map.floorEntry(date.withDayOfMonth(1));
+        return e != null ? e.getValue() : map.firstEntry().getValue();
+    }
+
+    /** Index of the month amounts are expressed in; defaults to the latest month loaded. */
+    public BigDecimal baseIndex(YearMonth base) {
+        if (indexes.isEmpty()) throw new BadRequestException("No price index loaded");
+        return indexFor(resolveBase(base).atDay(1));
+    }
+
+    public YearMonth resolveBase(YearMonth base) {
+        if (indexes.isEmpty()) throw new BadRequestException("No price index loaded");
+        return base != null ? base : YearMonth.from(indexes.lastKey());
+    }
+
+    /** {@code amount} in index units, as stored in amount_real; unchanged when no series is loaded. */
+    public BigDecimal deflate(BigDecimal amount, LocalDate date) {
+        BigDecimal index = indexFor(date);
+        return index == null ? amount : amount.divide(index, REAL_SCALE, RoundingMode.HALF_UP);
+    }
+
+    /** {@code amount} from the month of {@code date} expressed in the money of the base month. */
+    public BigDecimal adjust(BigDecimal amount, LocalDate date, BigDecimal baseIndex) {
+        return amount.multiply(baseIndex).divide(indexFor(date), 2, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Parses "YYYY-MM,value" lines, as exported by a spreadsheet. ';' or tab separators with a
+     * decimal comma are accepted too; a header line and blank lines are skipped.
+     */
+    public static Map<YearMonth, BigDecimal> parseCsv(String body) {
+        Map<YearMonth, BigDecimal> values = new TreeMap<>();
+        String[] lines = body.split("\r?\n");
+        for (int i = 0; i < lines.length; i++) {
+            String line = lines[i].strip();
+            if (line.isEmpty() || !Character.isDigit(line.charAt(0))) continue;
+            boolean semicolon = line.indexOf(';') >= 0 || line.indexOf('\t') >= 0;
+            String[] cells = line.split(semicolon ? "[;\t]" : ",", 2);
+            try {
+                YearMonth month = YearMonth.parse(cells[0].strip().substring(0, 7));
+                BigDecimal value = new BigDecimal(semicolon ? cells[1].strip().replace(',', '.') : cells[1].strip());
+                if (value.signum() <= 0) throw new NumberFormatException("must be positive");
+                values.put(month, value);
+            } catch (DateTimeParseException | NumberFormatException | IndexOutOfBoundsException e) {
+                throw new BadRequestException("Price index line " + (i + 1) + " is not 'YYYY-MM,value': " + line);
+            }
+        }
+        if (values.isEmpty()) throw new BadRequestException("No price index rows found");
+        return values;
+    }
+}
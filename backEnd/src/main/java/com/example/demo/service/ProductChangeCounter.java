@@ -0,0 +1,52 @@
+package com.example.demo.service;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Change counter behind the product and work-order list ETags. Registered as the entity
+ * listener of every entity those lists render (products, work orders, materials, inventory
+ * items), so any insert, update or delete moves it, once per transaction and in that same
+ * transaction: readers see the new value exactly when they can see the rows. Reading it is a
+ * primary-key lookup instead of an aggregate over both tables.
+ * <p>
+ * Every writer updates the same row, so it moves as the transaction commits rather than at its
+ * first flush; see {@link CommitStamps}.
+ */
+@Component
+public class ProductChangeCounter {
+
+    private static final String NAME = "products";
+
+    private final CommitStamps stamps;
+
+    public ProductChangeCounter(CommitStamps stamps) {
+        this.stamps = stamps;
+    }
+
+    // Hibernate builds this listener before the schema exists, so the row comes once the app is up
+    @EventListener(ApplicationReadyEvent.class)
+    public void createRow() {
+        stamps.createRow(NAME);
+    }
+
+    public long current() {
+        return stamps.read(NAME);
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    void changed(Object entity) {
+        stamps.take(NAME);
+    }
+
+    /** For writes the entity callbacks never see (startup backfills in plain SQL). */
+    public void bulkChanged() {
+        stamps.take(NAME);
+    }
+}
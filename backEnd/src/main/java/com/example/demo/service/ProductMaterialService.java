@@ -13,6 +13,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -21,13 +22,16 @@ public class ProductMaterialService {
     private final ProductMaterialRepo productMaterialRepo;
     private final ProductRepo productRepo;
     private final InventoryItemRepo inventoryItemRepo;
+    private final FinanceRollupService rollupService;
 
     public ProductMaterialService(ProductMaterialRepo productMaterialRepo,
                                    ProductRepo productRepo,
-                                   InventoryItemRepo inventoryItemRepo) {
+                                   InventoryItemRepo inventoryItemRepo,
+                                   FinanceRollupService rollupService) {
         this.productMaterialRepo = productMaterialRepo;
         this.productRepo = productRepo;
         this.inventoryItemRepo = inventoryItemRepo;
+        this.rollupService = rollupService;
     }
 
     public List<ProductMaterialResponse> getMaterialsForProduct(Long productId) {
@@ -36,8 +40,11 @@ public class ProductMaterialService {
                 .collect(Collectors.toList());
     }
 
+    // Material changes don't touch the products row, so both force a version bump to move its ETag
+
+    @Transactional
     public ProductMaterialResponse addMaterial(Long productId, ProductMaterialRequest req) {
-        Product product = productRepo.findById(productId)
+        Product product = productRepo.findByIdForVersionBump(productId)
                 .orElseThrow(() -> new RuntimeException("Product not found: " + productId));
         InventoryItem item = inventoryItemRepo.findById(req.inventoryItemId())
                 .orElseThrow(() -> new RuntimeException("InventoryItem not found: " + req.inventoryItemId()));
@@ -51,34 +58,57 @@ public class ProductMaterialService {
 
     @Transactional
     public void removeMaterial(Long productId, Long materialId) {
+        productRepo.findByIdForVersionBump(productId)
+                .orElseThrow(() -> new RuntimeException("Product not found: " + productId));
         productMaterialRepo.deleteByProduct_IdAndId(productId, materialId);
     }
 
     public BigDecimal calculateCogs(Long productId) {
-        return productMaterialRepo.findByProduct_Id(productId).stream()
-                .map(pm -> {
-                    BigDecimal qty = pm.getQuantityUsed() == null ? BigDecimal.ZERO : pm.getQuantityUsed();
-                    BigDecimal cost = pm.getInventoryItem().getUnitCost() == null ? BigDecimal.ZERO : pm.getInventoryItem().getUnitCost();
-                    return qty.multiply(cost);
-                })
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        return cogsOf(productMaterialRepo.findByProduct_Id(productId));
     }
 
     @Transactional
     public void syncCogsToProduct(Long productId) {
         List<ProductMaterial> materials = productMaterialRepo.findByProduct_Id(productId);
         if (!materials.isEmpty()) {
-            BigDecimal cogs = materials.stream()
-                    .map(pm -> {
-                        BigDecimal qty = pm.getQuantityUsed() == null ? BigDecimal.ZERO : pm.getQuantityUsed();
-                        BigDecimal cost = pm.getInventoryItem().getUnitCost() == null ? BigDecimal.ZERO : pm.getInventoryItem().getUnitCost();
-                        return qty.multiply(cost);
-                    })
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
             Product product = productRepo.findById(productId)
                     .orElseThrow(() -> new RuntimeException("Product not found: " + productId));
-            product.setCogsAmount(cogs);
-            productRepo.save(product);
+            applyCogs(product, cogsOf(materials));
+        }
+    }
+
+    /**
+     * Recomputes the COGS of every product with materials whose id is in [fromId, toId], for when
+     * unit costs changed. Products whose amount didn't move aren't written. Returns how many were.
+     */
+    @Transactional
+    public int syncCogsForRange(long fromId, long toId) {
+        Map<Long, List<ProductMaterial>> byProduct = productMaterialRepo.findByProductIdRange(fromId, toId).stream()
+                .collect(Collectors.groupingBy(pm -> pm.getProduct().getId()));
+        int changed = 0;
+        for (Product product : productRepo.findAllById(byProduct.keySet())) {
+            BigDecimal cogs = cogsOf(byProduct.get(product.getId()));
+            if (product.getCogsAmount() != null && product.getCogsAmount().compareTo(cogs) == 0) continue;
+            applyCogs(product, cogs);
+            changed++;
         }
+        return changed;
+    }
+
+    private void applyCogs(Product product, BigDecimal cogs) {
+        FinanceRollupService.ProductContribution before = FinanceRollupService.ProductContribution.of(product);
+        product.setCogsAmount(cogs);
+        productRepo.save(product);
+        rollupService.productChanged(before, FinanceRollupService.ProductContribution.of(product));
+    }
+
+    private static BigDecimal cogsOf(List<ProductMaterial> materials) {
+        return materials.stream()
+                .map(pm -> {
+                    BigDecimal qty = pm.getQuantityUsed() == null ? BigDecimal.ZERO : pm.getQuantityUsed();
+                    BigDecimal cost = pm.getInventoryItem().getUnitCost() == null ? BigDecimal.ZERO : pm.getInventoryItem().getUnitCost();
+                    return qty.multiply(cost);
+                })
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
     }
 }
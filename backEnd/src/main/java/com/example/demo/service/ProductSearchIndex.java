@@ -0,0 +1,117 @@
+package com.example.demo.service;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-process trigram inverted index over product text, used when the database has no
+ * pg_trgm (H2 in dev). Scoring follows pg_trgm's word_similarity idea: the share of the
+ * query's trigrams found in the document, which makes one-letter typos still match.
+ */
+public class ProductSearchIndex {
+
+    // Same default spirit as pg_trgm.word_similarity_threshold, a bit looser for short words
+    private static final double MIN_SCORE = 0.45;
+
+    public record Hit(long id, double score) {}
+
+    private final Map<String, Set<Long>> postings = new HashMap<>();
+    private final Map<Long, Set<String>> documents = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public void put(long id, String... fields) {
+        Set<String> grams = trigrams(String.join(" ", nonNull(fields)));
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+            documents.put(id, grams);
+            for (String g : grams) {
+                postings.computeIfAbsent(g, k -> new HashSet<>()).add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** All matches, best first; ties go to the newest (highest) id. */
+    public List<Hit> search(String query) {
+        Set<String> queryGrams = trigrams(query);
+        if (queryGrams.isEmpty()) return List.of();
+
+        Map<Long, Integer> shared = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            for (String g : queryGrams) {
+                Set<Long> ids = postings.get(g);
+                if (ids == null) continue;
+                for (Long id : ids) shared.merge(id, 1, Integer::sum);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Hit> hits = new ArrayList<>();
+        double total = queryGrams.size();
+        shared.forEach((id, n) -> {
+            double score = n / total;
+            if (score >= MIN_SCORE) hits.add(new Hit(id, score));
+        });
+        hits.sort(Comparator.comparingDouble(Hit::score).reversed()
+                .thenComparing(Comparator.comparingLong(Hit::id).reversed()));
+        return hits;
+    }
+
+    private void removeLocked(long id) {
+        Set<String> old = documents.remove(id);
+        if (old == null) return;
+        for (String g : old) {
+            Set<Long> ids = postings.get(g);
+            if (ids == null) continue;
+            ids.remove(id);
+            if (ids.isEmpty()) postings.remove(g);
+        }
+    }
+
+    // pg_trgm style: lower-case, accents folded, each word padded as "  word "
+    static Set<String> trigrams(String text) {
+        Set<String> grams = new HashSet<>();
+        if (text == null) return grams;
+        String folded = Normalizer.normalize(text.toLowerCase(Locale.ROOT), Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "");
+        for (String word : folded.split("[^\\p{Alnum}]+")) {
+            if (word.isEmpty()) continue;
+            String padded = "  " + word + " ";
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                grams.add(padded.substring(i, i + 3));
+            }
+        }
+        return grams;
+    }
+
+    private static List<String> nonNull(String... fields) {
+        List<String> out = new ArrayList<>();
+        for (String f : fields) if (f != null) out.add(f);
+        return out;
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.ProductResponse;
+import com.example.demo.model.Product;
+import com.example.demo.repository.ProductRepo;
+import com.example.demo.utils.AfterCommit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Ranked, typo-tolerant product search over titulo, material, color, notas and client phone.
+ * On PostgreSQL it uses pg_trgm + tsvector GIN indexes; elsewhere (H2) it keeps an in-process
+ * trigram index that is seeded on startup and updated after each committed product write.
+ */
+@Service
+public class ProductSearchService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductSearchService.class);
+
+    private enum Backend { LIKE, POSTGRES, MEMORY }
+
+    private final ProductRepo productRepo;
+    private final JdbcTemplate jdbcTemplate;
+    private final ProductSearchIndex memoryIndex = new ProductSearchIndex();
+
+    // LIKE on titulo until startup has picked a real backend
+    private volatile Backend backend = Backend.LIKE;
+
+    public ProductSearchService(ProductRepo productRepo, JdbcTemplate jdbcTemplate) {
+        this.productRepo = productRepo;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        String database = jdbcTemplate.execute(
+                (ConnectionCallback<String>) c -> c.getMetaData().getDatabaseProductName());
+        if ("PostgreSQL".equalsIgnoreCase(database)) {
+            try {
+                createPostgresIndexes();
+                backend = Backend.POSTGRES;
+                return;
+            } catch (DataAccessException e) {
+                log.warn("pg_trgm search indexes unavailable, using in-memory search: {}", e.getMessage());
+            }
+        }
+        rebuildMemoryIndex();
+        backend = Backend.MEMORY;
+    }
+
+    // CONCURRENTLY so a first deploy on a large table doesn't block writes; no-ops afterwards
+    private void createPostgresIndexes() {
+        String doc = ProductRepo.SEARCH_DOCUMENT;
+        jdbcTemplate.execute("CREATE EXTENSION IF NOT EXISTS pg_trgm");
+        // Superseded by the *_doc_* indexes once notas moved to product_details
+        dropIndexIfPresent("idx_products_search_trgm");
+        dropIndexIfPresent("idx_products_search_fts");
+        createIndex("idx_products_search_doc_trgm", "products USING gin ((" + doc + ") gin_trgm_ops)");
+        createIndex("idx_products_search_doc_fts", "products USING gin (to_tsvector('spanish', " + doc + "))");
+        String notes = ProductRepo.NOTES_DOCUMENT;
+        createIndex("idx_product_details_notas_trgm", "product_details USING gin ((" + notes + ") gin_trgm_ops)");
+        createIndex("idx_product_details_notas_fts",
+                "product_details USING gin (to_tsvector('spanish', " + notes + "))");
+        // Serve the LOWER(x) LIKE '%q%' predicates of filterProducts
+        for (String column : List.of("titulo", "material", "color")) {
+            createIndex("idx_products_" + column + "_trgm", "products USING gin (lower(" + column + ") gin_trgm_ops)");
+        }
+    }
+
+    // A CONCURRENTLY build that failed or was cancelled leaves an INVALID index behind, which
+    // IF NOT EXISTS would then keep forever; those are dropped and built again
+    private void createIndex(String name, String definition) {
+        List<Boolean> valid = jdbcTemplate.queryForList(
+                "SELECT indisvalid FROM pg_index WHERE indexrelid = to_regclass(?)", Boolean.class, name);
+        if (!valid.isEmpty() && valid.get(0)) return;
+        if (!valid.isEmpty()) {
+            log.warn("Search index {} is invalid, rebuilding it", name);
+            jdbcTemplate.execute("DROP INDEX CONCURRENTLY IF EXISTS " + name);
+        }
+        jdbcTemplate.execute("CREATE INDEX CONCURRENTLY IF NOT EXISTS " + name + " ON " + definition);
+    }
+
+    // DROP INDEX CONCURRENTLY waits for every open transaction on the table, so only when there is one
+    private void dropIndexIfPresent(String name) {
+        Boolean present = jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, name);
+        if (Boolean.TRUE.equals(present)) jdbcTemplate.execute("DROP INDEX CONCURRENTLY IF EXISTS " + name);
+    }
+
+    public void rebuildMemoryIndex() {
+        memoryIndex.clear();
+        List<Object[]> rows = productRepo.findSearchDocuments();
+        for (Object[] r : rows) {
+            memoryIndex.put((Long) r[0], (String) r[1], (String) r[2], (String) r[3], (String) r[4], (String) r[5]);
+        }
+        log.info("In-memory product search index built with {} products", rows.size());
+    }
+
+    // ---------------- WRITE HOOKS ----------------
+
+    public void index(Product p) {
+        if (backend == Backend.POSTGRES) return;
+        long id = p.getId();
+        String[] fields = {p.getTitulo(), p.getMaterial(), p.getColor(), p.getNotas(), p.getClientPhone()};
+        AfterCommit.run(() -> memoryIndex.put(id, fields));
+    }
+
+    public void remove(long productId) {
+        if (backend == Backend.POSTGRES) return;
+        AfterCommit.run(() -> memoryIndex.remove(productId));
+    }
+
+    // ---------------- SEARCH ----------------
+
+    @Transactional(readOnly = true)
+    public Page<ProductResponse> search(String query, Pageable pageable) {
+        return search(query, pageable, ProductResponse::listItem);
+    }
+
+    @Transactional(readOnly = true)
+    public <T> Page<T> search(String query, Pageable pageable, Function<Product, T> mapper) {
+        if (query == null || query.isBlank()) return Page.empty(pageable);
+        String q = query.trim();
+
+        return switch (backend) {
+            case POSTGRES -> load(productRepo.searchIdsRanked(q,
+                    PageRequest.of(pageable.getPageNumber(), pageable.getPageSize())), mapper);
+            case MEMORY -> {
+                List<ProductSearchIndex.Hit> hits = memoryIndex.search(q);
+                int from = (int) Math.min(pageable.getOffset(), hits.size());
+                int to = Math.min(from + pageable.getPageSize(), hits.size());
+                List<Long> ids = hits.subList(from, to).stream().map(ProductSearchIndex.Hit::id).toList();
+                yield load(new PageImpl<>(ids, pageable, hits.size()), mapper);
+            }
+            case LIKE -> productRepo.searchByTitulo(q, pageable).map(mapper);
+        };
+    }
+
+    // Load the ranked page in one query and keep the ranking order
+    private <T> Page<T> load(Page<Long> ids, Function<Product, T> mapper) {
+        Map<Long, Product> byId = productRepo.findByIdIn(ids.getContent()).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        List<T> content = ids.getContent().stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .map(mapper)
+                .toList();
+        return new PageImpl<>(content, ids.getPageable(), ids.getTotalElements());
+    }
+}
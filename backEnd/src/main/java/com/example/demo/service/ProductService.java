@@ -1,25 +1,35 @@
 package com.example.demo.service;
 
+import com.example.demo.dto.CursorPage;
 import com.example.demo.dto.ProductCreateRequest;
 import com.example.demo.dto.ProductResponse;
+import com.example.demo.dto.ProductSummaryResponse;
+import com.example.demo.dto.ProductView;
 import com.example.demo.dto.ProductUpdateDto;
 import com.example.demo.exceptions.ResourceNotFoundException;
 import com.example.demo.model.*;
 import com.example.demo.repository.PaymentRepo;
 import com.example.demo.repository.ProductRepo;
 import com.example.demo.repository.WorkOrderRepo;
+import com.example.demo.utils.AfterCommit;
+import com.example.demo.utils.Cursors;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.client.RestTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoField;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -32,6 +42,12 @@ public class ProductService {
     private final InventoryService inventoryService;
     private final ProductTypeTemplateService templateService;
     private final RestTemplate restTemplate;
+    private final ProductSearchService searchService;
+    private final WorkOrderStatusCounters statusCounters;
+    private final AdminSummaryService adminSummaryService;
+    private final FinanceRollupService rollupService;
+    private final CashForecastService cashForecast;
+    private final ProductChangeCounter changeCounter;
 
     @Value("${n8n.webhook.product-created:}")
     private String n8nWebhookUrl;
@@ -42,7 +58,13 @@ public class ProductService {
                           PaymentRepo orderPaymentsRepo,
                           InventoryService inventoryService,
                           ProductTypeTemplateService templateService,
-                          RestTemplate restTemplate) {
+                          RestTemplate restTemplate,
+                          ProductSearchService searchService,
+                          WorkOrderStatusCounters statusCounters,
+                          AdminSummaryService adminSummaryService,
+                          FinanceRollupService rollupService,
+                          CashForecastService cashForecast,
+                          ProductChangeCounter changeCounter) {
         this.productRepo = productRepo;
         this.workOrderRepo = workOrderRepo;
         this.userService = userService;
@@ -50,10 +72,17 @@ public class ProductService {
         this.inventoryService = inventoryService;
         this.templateService = templateService;
         this.restTemplate = restTemplate;
+        this.searchService = searchService;
+        this.statusCounters = statusCounters;
+        this.adminSummaryService = adminSummaryService;
+        this.rollupService = rollupService;
+        this.cashForecast = cashForecast;
+        this.changeCounter = changeCounter;
     }
 
     // ---------------- CREATE ----------------
 
+    @Transactional
     public ProductResponse createProduct(ProductCreateRequest req) {
         Product p = new Product();
 
@@ -71,30 +100,30 @@ public class ProductService {
         p.setFechaEstimada(LocalDate.now().plusDays(35));
         p.setFoto(req.foto());
         p.setNotas(req.notas());
-        AppUser owner = userService.getCurrentUser();
+        AppUser owner = userService.getCurrentUserReference();
         if (owner == null) owner = userService.getFirstUser();
         p.setOwner(owner);
         p.setClientPhone(req.clientPhone());
+        if (req.amount() != null) p.recordPayment("DEPOSIT", req.amount());
 
-        Product saved = productRepo.save(p);
+        // The whole graph is built in memory and persisted by cascade from the product;
+        // sequence ids let Hibernate batch the child inserts at flush.
 
         //WorkOrder Creation
         WorkOrder wo = new WorkOrder();
-        wo.setProduct(saved);
+        wo.setProduct(p);
         wo.setStatus(Status.CREADO);
         wo.setUpdateAt(LocalDateTime.now());
-
-        workOrderRepo.save(wo);
-
-        saved.setWorkOrder(wo);
+        p.setWorkOrder(wo);
 
         // Apply material templates for the product type
-        templateService.applyTemplatesToProduct(saved);
+        templateService.applyTemplatesToProduct(p);
 
         // ----- CREATE PAYMENT: DEPOSIT -----
+        p.setOrderPayments(new ArrayList<>());
         if (req.amount() != null) {
             OrderPayments deposit = new OrderPayments();
-            deposit.setProduct(saved);
+            deposit.setProduct(p);
             deposit.setPaymentType("DEPOSIT");
             deposit.setAmount(req.amount());
 
@@ -102,11 +131,22 @@ public class ProductService {
                     (req.startDate() != null) ? req.startDate() : LocalDate.now();
             deposit.setPaymentDate(depositDate);
 
-            orderPaymentsRepo.save(deposit);
+            p.getOrderPayments().add(deposit);
         }
 
-        // Fire N8N webhook (non-blocking, best-effort)
-        fireN8nWebhook(saved);
+        Product saved = productRepo.save(p);
+        statusCounters.created(Status.CREADO);
+        rollupService.productChanged(null, FinanceRollupService.ProductContribution.of(saved));
+        for (OrderPayments deposit : saved.getOrderPayments()) {
+            rollupService.paymentRecorded(deposit.getPaymentDate(), deposit.getAmount());
+        }
+        cashForecast.productChanged(saved);
+
+        searchService.index(saved);
+        adminSummaryService.invalidate();
+
+        // Fire N8N webhook once the order is committed (best-effort)
+        AfterCommit.run(() -> fireN8nWebhook(saved));
 
         return ProductResponse.from(saved);
     }
@@ -128,32 +168,40 @@ public class ProductService {
         }
     }
 
-    // ---------------- READ (unchanged) ----------------
+    // ---------------- READ ----------------
+    // List reads run in one read-only session so the page's payments, materials and
+    // inventory items are batch-loaded instead of fetched row by row.
 
+    @Transactional(readOnly = true)
     public ProductResponse getById(long id) throws ResourceNotFoundException {
-        Product p = productRepo.findById(id)
+        Product p = productRepo.findWithDetailById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found with ID: " + id));
         return ProductResponse.from(p);
     }
 
+    @Transactional(readOnly = true)
     public Page<ProductResponse> getAll(Pageable pageable) {
-        return productRepo.findAll(pageable).map(ProductResponse::from);
+        return productRepo.findAll(pageable).map(ProductResponse::listItem);
     }
 
 
+    @Transactional(readOnly = true)
     public Page<ProductResponse> findByType(ProductType productType, Pageable pageable) {
-        return productRepo.findByProductType(productType, pageable).map(ProductResponse::from);
+        return productRepo.findByProductType(productType, pageable).map(ProductResponse::listItem);
     }
 
     // ---------------- UPDATE ----------------
 
+    @Transactional
     public ProductResponse update(Long id, ProductUpdateDto dto) throws ResourceNotFoundException {
-        Product product = productRepo.findById(id)
+        Product product = productRepo.findByIdForUpdate(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found with ID: " + id));
+        FinanceRollupService.ProductContribution before = FinanceRollupService.ProductContribution.of(product);
 
         applyProductUpdates(product, dto);
 
         Product saved = productRepo.save(product);
+        rollupService.productChanged(before, FinanceRollupService.ProductContribution.of(saved));
 
         // ----- CREATE PAYMENT: RESTO -----
         if (dto.getAmount() != null) {
@@ -164,8 +212,13 @@ public class ProductService {
             pago.setPaymentDate(LocalDate.now());
 
             orderPaymentsRepo.save(pago);
+            saved.recordPayment(pago.getPaymentType(), pago.getAmount());
+            rollupService.paymentRecorded(pago.getPaymentDate(), pago.getAmount());
         }
+        cashForecast.productChanged(saved);
 
+        searchService.index(saved);
+        adminSummaryService.invalidate();
         return ProductResponse.from(saved);
     }
 
@@ -201,9 +254,11 @@ public class ProductService {
             Status prev = wo.getStatus();
             if (dto.getWorkOrderStatus() != null) wo.setStatus(dto.getWorkOrderStatus());
             wo.setUpdateAt(LocalDateTime.now());
+            statusCounters.transition(prev, wo.getStatus());
 
             if (Status.ENTREGADO.equals(dto.getWorkOrderStatus())
                     && !Status.ENTREGADO.equals(prev)) {
+                wo.setDeliveredAt(wo.getUpdateAt());
                 inventoryService.deductMaterialsForProduct(product.getId());
             }
         }
@@ -211,25 +266,65 @@ public class ProductService {
 
     // ---------------- DELETE ----------------
 
+    @Transactional
     public boolean delete(Long id) throws ResourceNotFoundException {
         Product product = productRepo.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found with ID: " + id));
+        rollupService.productChanged(FinanceRollupService.ProductContribution.of(product), null);
 
-        workOrderRepo.findByProductId(id).ifPresent(workOrderRepo::delete);
+        workOrderRepo.findByProductId(id).ifPresent(wo -> {
+            workOrderRepo.delete(wo);
+            statusCounters.removed(wo.getStatus());
+        });
 
         // delete ALL payments for this product (OneToMany)
         List<OrderPayments> payments = orderPaymentsRepo.findAllByProductId(id);
         if (!payments.isEmpty()) {
             orderPaymentsRepo.deleteAll(payments);
+            payments.forEach(pg -> rollupService.paymentRemoved(pg.getPaymentDate(), pg.getAmount()));
         }
 
         productRepo.delete(product);
+        cashForecast.productRemoved(id);
+        searchService.remove(id);
+        adminSummaryService.invalidate();
         return true;
     }
 
-    public void guardar(Product p) {
-        productRepo.save(p);
+    // ---------------- ETAGS ----------------
+    // Built from narrow version queries, never from the response. Today's date is part of
+    // every tag because daysLate moves with the calendar even when no row changes.
+
+    public String etagFor(long id) throws ResourceNotFoundException {
+        String versions = productRepo.findVersionTag(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Product not found with ID: " + id));
+        return "\"p" + id + "-" + tagSafe(versions) + "-" + LocalDate.now() + "\"";
+    }
+
+    /** Weak ETag shared by the product and work-order collection endpoints. */
+    public String listEtag() {
+        return "W/\"c" + changeCounter.current() + "-" + LocalDate.now() + "\"";
+    }
+
+    // ETag characters exclude spaces; drop the timestamp punctuation instead of escaping it
+    private static String tagSafe(String marker) {
+        return marker.replaceAll("[^0-9-]", "");
     }
+
+    /** Re-schedules an existing order by title; goes through the same hooks as update(). */
+    @Transactional
+    public Product reschedule(String titulo, LocalDate fechaEstimada) {
+        Product product = findByTitle(titulo);
+        FinanceRollupService.ProductContribution before = FinanceRollupService.ProductContribution.of(product);
+        product.setFechaEstimada(fechaEstimada);
+        Product saved = productRepo.save(product);
+        rollupService.productChanged(before, FinanceRollupService.ProductContribution.of(saved));
+        cashForecast.productChanged(saved);
+        searchService.index(saved);
+        adminSummaryService.invalidate();
+        return saved;
+    }
+    @Transactional(readOnly = true)
     public List<ProductResponse> getProductsDueThisWeek() {
         LocalDate today = LocalDate.now().with(ChronoField.DAY_OF_WEEK, 1);
         LocalDate endOfWeek = today.plusDays(7);
@@ -237,10 +332,29 @@ public class ProductService {
         List<Product> products = productRepo.findByFechaEstimadaBetween(today, endOfWeek);
 
         return products.stream()
-                .map(ProductResponse::from)
+                .map(ProductResponse::listItem)
                 .collect(Collectors.toList());
     }
 
+    public long countDueThisWeek() {
+        LocalDate today = LocalDate.now().with(ChronoField.DAY_OF_WEEK, 1);
+        return productRepo.countByFechaEstimadaBetween(today, today.plusDays(7));
+    }
+
+    public long countPastDue() {
+        return statusCounters.get(Status.ATRASADO);
+    }
+
+    public long countNotPickedUp() {
+        return statusCounters.get(Status.TERMINADO);
+    }
+
+    /** Title of the finished order that has waited longest for pickup, if any. */
+    public Optional<String> findOldestNotPickedUpTitle() {
+        return productRepo.findTitlesByWorkOrderStatusOldestFirst(Status.TERMINADO, Limit.of(1))
+                .stream().findFirst();
+    }
+
     public long countOrders() {
         return productRepo.count();
     }
@@ -253,50 +367,129 @@ public class ProductService {
     public Product findByTitle(String title) { return productRepo.findByTitulo(title) .orElseThrow(() -> new RuntimeException("Product not found")); }
 
     public Page<ProductResponse> searchByTitle(String query, Pageable pageable) {
-        return productRepo.searchByTitulo(query, pageable).map(ProductResponse::from);
+        return searchService.search(query, pageable);
+    }
+
+    public Page<ProductSummaryResponse> searchSummaries(String query, Pageable pageable) {
+        return searchService.search(query, pageable, ProductSummaryResponse::from);
     }
 
+    @Transactional(readOnly = true)
     public List<ProductResponse> getProductsPastDue() {
 
         List<Product> products = productRepo.findByWorkOrderStatus(Status.ATRASADO);
 
         return products.stream()
-                .map(ProductResponse::from)
+                .map(ProductResponse::listItem)
                 .collect(Collectors.toList());
 
     }
+    @Transactional(readOnly = true)
     public List<ProductResponse> getProductsNotPickedUp(){
         List<Product> products = productRepo.findByWorkOrderStatus(Status.TERMINADO);
 
         return products.stream()
-                .map(ProductResponse::from)
+                .map(ProductResponse::listItem)
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public Page<ProductResponse> searchWithFilters(
             String titulo, String productTypeStr, String material, String color,
-            String workOrderStatusStr, String from, String to, Pageable pageable) {
+            String workOrderStatusStr, String from, String to, Boolean outstanding, Pageable pageable) {
 
-        ProductType productType = null;
-        if (productTypeStr != null && !productTypeStr.isBlank()) {
-            try { productType = ProductType.valueOf(productTypeStr.toUpperCase()); } catch (Exception ignored) {}
-        }
+        ProductFilters f = ProductFilters.parse(titulo, productTypeStr, material, color, workOrderStatusStr, from, to);
 
-        Status workOrderStatus = null;
-        if (workOrderStatusStr != null && !workOrderStatusStr.isBlank()) {
-            try { workOrderStatus = Status.valueOf(workOrderStatusStr.toUpperCase()); } catch (Exception ignored) {}
-        }
+        return productRepo.filterProducts(
+                f.titulo(), f.productType(), f.material(), f.color(),
+                f.workOrderStatus(), f.from(), f.to(), outstanding, pageable
+        ).map(ProductResponse::listItem);
+    }
 
-        LocalDate fromDate = (from != null && !from.isBlank()) ? LocalDate.parse(from) : null;
-        LocalDate toDate = (to != null && !to.isBlank()) ? LocalDate.parse(to) : null;
+    // ---------------- SUMMARY (LEAN) READS ----------------
+    // One projection query + count; materials, payments and text columns are never read.
 
-        String tituloParam = (titulo != null && !titulo.isBlank()) ? titulo : null;
-        String materialParam = (material != null && !material.isBlank()) ? material : null;
-        String colorParam = (color != null && !color.isBlank()) ? color : null;
+    public Page<ProductSummaryResponse> getAllSummaries(Pageable pageable) {
+        return productRepo.filterSummaries(null, null, null, null, null, null, null, null, pageable);
+    }
 
-        return productRepo.filterProducts(
-                tituloParam, productType, materialParam, colorParam,
-                workOrderStatus, fromDate, toDate, pageable
-        ).map(ProductResponse::from);
+    public Page<ProductSummaryResponse> searchWithFiltersSummaries(
+            String titulo, String productTypeStr, String material, String color,
+            String workOrderStatusStr, String from, String to, Boolean outstanding, Pageable pageable) {
+
+        ProductFilters f = ProductFilters.parse(titulo, productTypeStr, material, color, workOrderStatusStr, from, to);
+
+        return productRepo.filterSummaries(
+                f.titulo(), f.productType(), f.material(), f.color(),
+                f.workOrderStatus(), f.from(), f.to(), outstanding, pageable
+        );
+    }
+
+    // ---------------- CURSOR (KEYSET) READS ----------------
+
+    @Transactional(readOnly = true)
+    public CursorPage<?> getAllAfter(String cursor, int size, ProductView view) {
+        Cursors.Position after = Cursors.decode(cursor);
+        List<Product> rows = Cursors.nullsLast(after, size + 1,
+                (keyed, limit) -> keyed == null
+                        ? productRepo.findFirstSlice(limit)
+                        : productRepo.findSliceAfter(keyed.keyAsDate(), keyed.id(), limit),
+                productRepo::findUndatedSliceAfter);
+        return toCursorPage(rows, size, view);
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<?> searchWithFiltersAfter(
+            String titulo, String productTypeStr, String material, String color,
+            String workOrderStatusStr, String from, String to, Boolean outstanding,
+            String cursor, int size, ProductView view) {
+
+        ProductFilters f = ProductFilters.parse(titulo, productTypeStr, material, color, workOrderStatusStr, from, to);
+        Cursors.Position after = Cursors.decode(cursor);
+
+        List<Product> rows = Cursors.nullsLast(after, size + 1,
+                (keyed, limit) -> keyed == null
+                        ? productRepo.filterProductsFirst(f.titulo(), f.productType(), f.material(), f.color(),
+                                f.workOrderStatus(), f.from(), f.to(), outstanding, limit)
+                        : productRepo.filterProductsAfter(f.titulo(), f.productType(), f.material(), f.color(),
+                                f.workOrderStatus(), f.from(), f.to(), outstanding,
+                                keyed.keyAsDate(), keyed.id(), limit),
+                (afterId, limit) -> productRepo.filterUndatedProductsAfter(f.titulo(), f.productType(),
+                        f.material(), f.color(), f.workOrderStatus(), f.from(), f.to(), outstanding, afterId, limit));
+        return toCursorPage(rows, size, view);
+    }
+
+    private static CursorPage<?> toCursorPage(List<Product> rows, int size, ProductView view) {
+        Function<Product, ?> mapper = (view == ProductView.SUMMARY)
+                ? ProductSummaryResponse::from
+                : ProductResponse::listItem;
+        return CursorPage.from(rows, size, mapper, p -> Cursors.encode(p.getStartDate(), p.getId()));
+    }
+
+    private record ProductFilters(String titulo, ProductType productType, String material, String color,
+                                  Status workOrderStatus, LocalDate from, LocalDate to) {
+
+        static ProductFilters parse(String titulo, String productTypeStr, String material, String color,
+                                    String workOrderStatusStr, String from, String to) {
+            ProductType productType = null;
+            if (productTypeStr != null && !productTypeStr.isBlank()) {
+                try { productType = ProductType.valueOf(productTypeStr.toUpperCase()); } catch (Exception ignored) {}
+            }
+
+            Status workOrderStatus = null;
+            if (workOrderStatusStr != null && !workOrderStatusStr.isBlank()) {
+                try { workOrderStatus = Status.valueOf(workOrderStatusStr.toUpperCase()); } catch (Exception ignored) {}
+            }
+
+            LocalDate fromDate = (from != null && !from.isBlank()) ? LocalDate.parse(from) : null;
+            LocalDate toDate = (to != null && !to.isBlank()) ? LocalDate.parse(to) : null;
+
+            String tituloParam = (titulo != null && !titulo.isBlank()) ? titulo : null;
+            String materialParam = (material != null && !material.isBlank()) ? material : null;
+            String colorParam = (color != null && !color.isBlank()) ? color : null;
+
+            return new ProductFilters(tituloParam, productType, materialParam, colorParam,
+                    workOrderStatus, fromDate, toDate);
+        }
     }
 }
@@ -4,10 +4,10 @@ import com.example.demo.dto.ProductTypeTemplateRequest;
 import com.example.demo.dto.ProductTypeTemplateResponse;
 import com.example.demo.model.*;
 import com.example.demo.repository.InventoryItemRepo;
-import com.example.demo.repository.ProductMaterialRepo;
 import com.example.demo.repository.ProductTypeTemplateRepo;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -16,14 +16,11 @@ public class ProductTypeTemplateService {
 
     private final ProductTypeTemplateRepo templateRepo;
     private final InventoryItemRepo inventoryItemRepo;
-    private final ProductMaterialRepo productMaterialRepo;
 
     public ProductTypeTemplateService(ProductTypeTemplateRepo templateRepo,
-                                      InventoryItemRepo inventoryItemRepo,
-                                      ProductMaterialRepo productMaterialRepo) {
+                                      InventoryItemRepo inventoryItemRepo) {
         this.templateRepo = templateRepo;
         this.inventoryItemRepo = inventoryItemRepo;
-        this.productMaterialRepo = productMaterialRepo;
     }
 
     public List<ProductTypeTemplateResponse> getAll() {
@@ -46,7 +43,9 @@ public class ProductTypeTemplateService {
         templateRepo.deleteById(id);
     }
 
+    /** Adds the type's template materials to the product; they are persisted with it by cascade. */
     public void applyTemplatesToProduct(Product p) {
+        if (p.getMaterials() == null) p.setMaterials(new ArrayList<>());
         if (p.getProductType() == null) return;
         List<ProductTypeTemplate> templates = templateRepo.findByProductType(p.getProductType());
         for (ProductTypeTemplate t : templates) {
@@ -54,7 +53,7 @@ public class ProductTypeTemplateService {
             pm.setProduct(p);
             pm.setInventoryItem(t.getInventoryItem());
             pm.setQuantityUsed(t.getQuantityUsed());
-            productMaterialRepo.save(pm);
+            p.getMaterials().add(pm);
         }
     }
 }
@@ -0,0 +1,232 @@
+package com.example.demo.service;
+
+import com.example.demo.model.Costs;
+import com.example.demo.model.JobWatermark;
+import com.example.demo.model.PaymentFrequency;
+import com.example.demo.model.RecurringCost;
+import com.example.demo.repository.CostRepo;
+import com.example.demo.repository.JobWatermarkRepo;
+import com.example.demo.repository.RecurringCostRepo;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Recurring costs as templates (recurring_costs) and generated occurrences (costos rows keyed by
+ * recurring_cost_id + occurrence_date). The nightly run is one indexed read of the due templates
+ * and one batched insert; the unique key makes a repeated or concurrent run a no-op. Every
+ * occurrence a template owes up to today is generated, so days the job didn't run are caught up
+ * by the next run, and a watermark records the last day completed.
+ */
+@Service
+public class RecurringCostService {
+
+    private static final Logger log = LoggerFactory.getLogger(RecurringCostService.class);
+
+    public static final String JOB_NAME = "recurring-costs";
+
+    private static final String PG_INSERT_OCCURRENCE = """
+        INSERT INTO costos (tipo, fecha, valor, fechacreado, frequencia, asunto, recurring_cost_id, occurrence_date)
+        VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+        ON CONFLICT (recurring_cost_id, occurrence_date) DO NOTHING
+        """;
+
+    private static final String MERGE_INSERT_OCCURRENCE = """
+        MERGE INTO costos c
+        USING (VALUES (CAST(? AS VARCHAR(255)), CAST(? AS DATE), CAST(? AS NUMERIC(12, 2)), CAST(? AS TIMESTAMP),
+                       CAST(? AS VARCHAR(255)), CAST(? AS VARCHAR(255)), CAST(? AS BIGINT), CAST(? AS DATE)))
+              AS s (tipo, fecha, valor, fechacreado, frequencia, asunto, recurring_cost_id, occurrence_date)
+        ON c.recurring_cost_id = s.recurring_cost_id AND c.occurrence_date = s.occurrence_date
+        WHEN NOT MATCHED THEN INSERT (tipo, fecha, valor, fechacreado, frequencia, asunto, recurring_cost_id, occurrence_date)
+             VALUES (s.tipo, s.fecha, s.valor, s.fechacreado, s.frequencia, s.asunto, s.recurring_cost_id, s.occurrence_date)
+        """;
+
+    private final RecurringCostRepo recurringCostRepo;
+    private final CostRepo costRepo;
+    private final JdbcTemplate jdbcTemplate;
+    private final FinanceRollupService rollupService;
+    private final CashForecastService cashForecast;
+    private final JobWatermarkRepo watermarkRepo;
+    private boolean postgres;
+
+    public RecurringCostService(RecurringCostRepo recurringCostRepo, CostRepo costRepo, JdbcTemplate jdbcTemplate,
+                                FinanceRollupService rollupService, CashForecastService cashForecast,
+                                JobWatermarkRepo watermarkRepo) {
+        this.recurringCostRepo = recurringCostRepo;
+        this.costRepo = costRepo;
+        this.jdbcTemplate = jdbcTemplate;
+        this.rollupService = rollupService;
+        this.cashForecast = cashForecast;
+        this.watermarkRepo = watermarkRepo;
+    }
+
+    @PostConstruct
+    void detectDatabase() {
+        String database = jdbcTemplate.execute(
+                (ConnectionCallback<String>) c -> c.getMetaData().getDatabaseProductName());
+        postgres = "PostgreSQL".equalsIgnoreCase(database);
+    }
+
+    public List<RecurringCost> findActive() {
+        return recurringCostRepo.findByActiveTrue();
+    }
+
+    /**
+     * Makes a just-saved recurring cost occurrence 0 of a new template (call inside the same
+     * transaction). The first generated occurrence is the next one from today on.
+     */
+    public RecurringCost register(Costs saved) {
+        RecurringCost t = new RecurringCost();
+        t.setCostType(saved.getCostType());
+        t.setAmount(saved.getAmount());
+        t.setReason(saved.getReason());
+        t.setFrequency(saved.getFrequency());
+        t.setAnchorDate(saved.getDate());
+        t.setCreatedAt(LocalDateTime.now());
+        t.setNextIndex(1);
+        t.advancePast(LocalDate.now().minusDays(1));
+        recurringCostRepo.save(t);
+
+        saved.setRecurringCostId(t.getId());
+        saved.setOccurrenceDate(saved.getDate());
+        cashForecast.recurringChanged(List.of(t));
+        return t;
+    }
+
+    /** Stops generating occurrences; the ones already in costos stay. */
+    @Transactional
+    public boolean deactivate(long id) {
+        return recurringCostRepo.findById(id).map(t -> {
+            t.setActive(false);
+            t.setNextDueDate(null);
+            cashForecast.recurringChanged(List.of(t));
+            return true;
+        }).orElse(false);
+    }
+
+    // ---------------- GENERATION ----------------
+
+    /** Last day the generator completed for; null before its first run. */
+    public LocalDate watermark() {
+        return watermarkRepo.findById(JOB_NAME).map(JobWatermark::getCompletedThrough).orElse(null);
+    }
+
+    /**
+     * Inserts every occurrence due on or before {@code today} of every active template, however
+     * many runs were missed, and moves the watermark to today. Returns rows inserted.
+     */
+    @Transactional
+    public int generateDue(LocalDate today) {
+        List<RecurringCost> due = recurringCostRepo.findByActiveTrueAndNextDueDateLessThanEqual(today);
+
+        List<Costs> rows = new ArrayList<>(due.size());
+        for (RecurringCost t : due) {
+            while (!t.getNextDueDate().isAfter(today)) {
+                rows.add(t.instance(t.getNextDueDate()));
+                t.setNextIndex(t.getNextIndex() + 1);
+                t.setNextDueDate(t.occurrence(t.getNextIndex()));
+            }
+            // dirty templates are flushed as one batched UPDATE at commit
+        }
+        watermarkRepo.save(new JobWatermark(JOB_NAME, today));
+        if (rows.isEmpty()) return 0;
+
+        String sql = postgres ? PG_INSERT_OCCURRENCE : MERGE_INSERT_OCCURRENCE;
+        int[][] counts = jdbcTemplate.batchUpdate(sql, rows, rows.size(), (ps, c) -> {
+            ps.setString(1, c.getCostType() != null ? c.getCostType().name() : null);
+            ps.setDate(2, Date.valueOf(c.getDate()));
+            ps.setBigDecimal(3, c.getAmount());
+            ps.setTimestamp(4, Timestamp.valueOf(c.getCreatedAt()));
+            ps.setString(5, c.getFrequency().name());
+            if (c.getReason() != null) ps.setString(6, c.getReason()); else ps.setNull(6, Types.VARCHAR);
+            ps.setLong(7, c.getRecurringCostId());
+            ps.setDate(8, Date.valueOf(c.getOccurrenceDate()));
+        });
+
+        // Rows skipped by the unique key were counted by whichever run inserted them
+        int inserted = 0;
+        for (int i = 0; i < rows.size(); i++) {
+            int n = counts[0][i];
+            if (n > 0 || n == Statement.SUCCESS_NO_INFO) {
+                rollupService.costAdded(rows.get(i));
+                inserted++;
+            }
+        }
+        cashForecast.recurringChanged(due);
+        log.info("Recurring costs through {}: {} templates due, {} occurrences inserted",
+                today, due.size(), inserted);
+        return inserted;
+    }
+
+    // ---------------- LEGACY DATA ----------------
+
+    /**
+     * Costs saved as recurring before templates existed were each their own series, and every
+     * "(Auto)" copy kept the frequency. Copies of one original are folded into one template,
+     * anchored on the earliest, with each existing row linked as the occurrence of its date.
+     */
+    @Transactional
+    public void migrateLegacy() {
+        List<Costs> legacy = costRepo.findByFrequencyNotAndRecurringCostIdIsNull(PaymentFrequency.ONE_TIME);
+        if (legacy.isEmpty()) return;
+
+        Map<List<Object>, List<Costs>> series = new LinkedHashMap<>();
+        for (Costs c : legacy) {
+            if (c.getDate() == null || c.getAmount() == null || c.getFrequency() == null) continue;
+            List<Object> key = List.of(baseReason(c.getReason()), Objects.toString(c.getCostType(), ""),
+                    c.getFrequency(), c.getAmount().stripTrailingZeros());
+            series.computeIfAbsent(key, k -> new ArrayList<>()).add(c);
+        }
+
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        for (List<Costs> rows : series.values()) {
+            rows.sort(Comparator.comparing(Costs::getDate));
+            Costs first = rows.get(0);
+            RecurringCost t = new RecurringCost();
+            t.setCostType(first.getCostType());
+            t.setAmount(first.getAmount());
+            t.setReason(baseReason(first.getReason()));
+            t.setFrequency(first.getFrequency());
+            t.setAnchorDate(first.getDate());
+            t.setCreatedAt(LocalDateTime.now());
+            t.setNextIndex(1);
+            LocalDate last = rows.get(rows.size() - 1).getDate();
+            t.advancePast(last.isAfter(yesterday) ? last : yesterday);
+            recurringCostRepo.save(t);
+
+            // Old runs could write the same day twice; only the first row of a date gets the key
+            Set<LocalDate> linked = new HashSet<>();
+            for (Costs c : rows) {
+                c.setRecurringCostId(t.getId());
+                if (linked.add(c.getDate())) c.setOccurrenceDate(c.getDate());
+            }
+        }
+        log.info("Recurring costs: {} legacy rows folded into {} templates", legacy.size(), series.size());
+        cashForecast.reloadRecurring();
+    }
+
+    private static String baseReason(String reason) {
+        String r = reason == null ? "" : reason;
+        while (r.endsWith(" (Auto)")) r = r.substring(0, r.length() - " (Auto)".length());
+        return r;
+    }
+}
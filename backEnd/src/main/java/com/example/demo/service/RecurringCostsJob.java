@@ -0,0 +1,38 @@
+package com.example.demo.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/** The nightly recurring-cost generation on demand; one chunk, under the same lease as the cron. */
+@Component
+public class RecurringCostsJob implements BackgroundJobHandler {
+
+    private final CostAutomationService costAutomationService;
+
+    public RecurringCostsJob(CostAutomationService costAutomationService) {
+        this.costAutomationService = costAutomationService;
+    }
+
+    @Override
+    public String type() {
+        return RecurringCostService.JOB_NAME;
+    }
+
+    @Override
+    public String description() {
+        return "Generate the recurring cost occurrences due up to today";
+    }
+
+    @Override
+    public List<Range> partition() {
+        return List.of(ALL);
+    }
+
+    @Override
+    public int run(Range range) {
+        // Busy elsewhere: fail the attempt so it's retried after the backoff
+        return costAutomationService.runNow().orElseThrow(() ->
+                new IllegalStateException("Recurring costs are being generated by another instance"));
+    }
+}
@@ -6,13 +6,12 @@ import com.example.demo.model.WorkOrder;
 import com.example.demo.repository.WorkOrderRepo;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 @Service
 public class WorkOrderService {
@@ -20,13 +19,22 @@ public class WorkOrderService {
     private final WorkOrderRepo workOrderRepository;
     private final InventoryService inventoryService;
     private final ProductMaterialService productMaterialService;
+    private final WorkOrderStatusCounters statusCounters;
+    private final AdminSummaryService adminSummaryService;
+    private final FinanceRollupService rollupService;
 
     public WorkOrderService(WorkOrderRepo workOrderRepository,
                              @Lazy InventoryService inventoryService,
-                             @Lazy ProductMaterialService productMaterialService) {
+                             @Lazy ProductMaterialService productMaterialService,
+                             WorkOrderStatusCounters statusCounters,
+                             AdminSummaryService adminSummaryService,
+                             FinanceRollupService rollupService) {
         this.workOrderRepository = workOrderRepository;
         this.inventoryService = inventoryService;
         this.productMaterialService = productMaterialService;
+        this.statusCounters = statusCounters;
+        this.adminSummaryService = adminSummaryService;
+        this.rollupService = rollupService;
     }
 
     public WorkOrder createForProduct(Product product) {
@@ -35,12 +43,20 @@ public class WorkOrderService {
         return workOrderRepository.save(order);
     }
 
+    @Transactional
     public WorkOrder updateStatus(Long id, Status status) {
         WorkOrder workOrder = workOrderRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("WorkOrder not found"));
+        Status prev = workOrder.getStatus();
+        // Delivered orders count towards COGS
+        FinanceRollupService.ProductContribution before = FinanceRollupService.ProductContribution.of(workOrder.getProduct());
         workOrder.setStatus(status);
         workOrder.setUpdateAt(LocalDateTime.now());
+        if (status == Status.ENTREGADO && prev != Status.ENTREGADO) workOrder.setDeliveredAt(workOrder.getUpdateAt());
         WorkOrder saved = workOrderRepository.save(workOrder);
+        statusCounters.transition(prev, status);
+        rollupService.productChanged(before, FinanceRollupService.ProductContribution.of(workOrder.getProduct()));
+        adminSummaryService.invalidate();
 
         if (status == Status.TERMINADO) {
             Long productId = workOrder.getProduct().getId();
@@ -61,19 +77,30 @@ public class WorkOrderService {
     }
 
     public long countByType(Status type) {
-        return workOrderRepository.findByStatus(type).size();
+        return statusCounters.get(type);
     }
 
     public long countDueBetween(LocalDate today, LocalDate endOfWeek) {
         return workOrderRepository.countFechaEntrega(today, endOfWeek);
     }
 
+    /**
+     * Moves CREADO / PRODUCCION orders of the id range whose delivery date has passed to ATRASADO,
+     * through updateStatus so counters and summaries follow. Returns how many were moved.
+     */
+    @Transactional
+    public int markOverdue(long fromId, long toId, LocalDate today) {
+        List<WorkOrder> overdue = workOrderRepository.findOverdue(fromId, toId,
+                List.of(Status.CREADO, Status.PRODUCCION), today);
+        for (WorkOrder wo : overdue) updateStatus(wo.getId(), Status.ATRASADO);
+        return overdue.size();
+    }
+
     public List<WorkOrder> getLateProducts() {
         return workOrderRepository.findByStatus(Status.ATRASADO);
     }
 
     public Map<String, Long> countOrdersByStatus() {
-        return workOrderRepository.findAll().stream()
-                .collect(Collectors.groupingBy(w -> w.getStatus().name(), Collectors.counting()));
+        return statusCounters.snapshot();
     }
 }
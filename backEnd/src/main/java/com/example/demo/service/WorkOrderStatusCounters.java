@@ -0,0 +1,109 @@
+package com.example.demo.service;
+
+import com.example.demo.model.Status;
+import com.example.demo.repository.WorkOrderRepo;
+import com.example.demo.utils.AfterCommit;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Work orders per status, seeded with one GROUP BY and then moved on every committed
+ * status transition, so status counts never scan work_orders. A periodic reseed corrects
+ * drift from writes that bypass the services (or from other instances).
+ * <p>
+ * Guarded like {@link FinanceAnalyticsSnapshot}: the reseed reads the {@link CommitStamps}
+ * counter and the counts in one REPEATABLE READ snapshot under this object's monitor, and a
+ * transition hook waits for the monitor and is dropped when the scan already counted its commit.
+ */
+@Component
+public class WorkOrderStatusCounters {
+
+    private static final String STAMP = "work_orders";
+
+    private final WorkOrderRepo workOrderRepo;
+    private final TransactionTemplate scanTx;
+    private final CommitStamps stamps;
+    private final Map<Status, AtomicLong> counts = new EnumMap<>(Status.class);
+    private volatile boolean seeded = false;
+    private long scannedStamp;   // guarded by the monitor
+
+    public WorkOrderStatusCounters(WorkOrderRepo workOrderRepo, PlatformTransactionManager transactionManager,
+                                   CommitStamps stamps) {
+        this.workOrderRepo = workOrderRepo;
+        this.scanTx = new TransactionTemplate(transactionManager);
+        this.scanTx.setReadOnly(true);
+        this.scanTx.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.stamps = stamps;
+        for (Status s : Status.values()) counts.put(s, new AtomicLong());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${workorders.status-counters.reseed-ms:600000}",
+            initialDelayString = "${workorders.status-counters.reseed-ms:600000}")
+    public void reseed() {
+        stamps.createRow(STAMP);
+        // Connection first, monitor second: transition hooks hold a pooled connection while they wait
+        scanTx.executeWithoutResult(tx -> {
+            synchronized (this) {
+                long seen = stamps.read(STAMP);   // first statement: fixes the snapshot the count reads
+                Map<Status, Long> fresh = new EnumMap<>(Status.class);
+                List<Object[]> rows = workOrderRepo.countGroupedByStatus();
+                for (Object[] r : rows) {
+                    if (r[0] != null) fresh.put((Status) r[0], (Long) r[1]);
+                }
+                for (Status s : Status.values()) counts.get(s).set(fresh.getOrDefault(s, 0L));
+                scannedStamp = seen;
+                seeded = true;
+            }
+        });
+    }
+
+    public long get(Status status) {
+        if (!seeded) reseed();
+        return counts.get(status).get();
+    }
+
+    /** Non-zero counts keyed by status name, in enum order. */
+    public Map<String, Long> snapshot() {
+        if (!seeded) reseed();
+        Map<String, Long> out = new LinkedHashMap<>();
+        counts.forEach((status, n) -> {
+            if (n.get() > 0) out.put(status.name(), n.get());
+        });
+        return out;
+    }
+
+    // ---------------- WRITE HOOKS (applied after commit) ----------------
+
+    public void created(Status status) {
+        transition(null, status);
+    }
+
+    public void removed(Status status) {
+        transition(status, null);
+    }
+
+    public void transition(Status from, Status to) {
+        if (from == to) return;
+        CommitStamps.Stamp stamp = stamps.take(STAMP);
+        AfterCommit.run(() -> apply(stamp, from, to));
+    }
+
+    // synchronized: waits out a running reseed
+    private synchronized void apply(CommitStamps.Stamp commit, Status from, Status to) {
+        if (commit.seenBy(scannedStamp)) return; // the last reseed already counted it
+        if (from != null) counts.get(from).decrementAndGet();
+        if (to != null) counts.get(to).incrementAndGet();
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.demo.utils;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.function.Supplier;
+
+/**
+ * ETag-based conditional GET. A matching If-None-Match gets an empty 304 before the body is
+ * loaded or serialized; otherwise the body is sent with the ETag. Responses are private and
+ * must be revalidated, so polling clients always ask but rarely download.
+ */
+public final class ConditionalGet {
+
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
+    private ConditionalGet() {}
+
+    public static <T> ResponseEntity<T> respond(WebRequest request, String etag, Supplier<? extends T> body) {
+        if (request.checkNotModified(etag)) return notModified(etag);
+        return ok(etag, body.get());
+    }
+
+    public static <T> ResponseEntity<T> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(REVALIDATE).build();
+    }
+
+    public static <T> ResponseEntity<T> ok(String etag, T body) {
+        return ResponseEntity.ok().eTag(etag).cacheControl(REVALIDATE).body(body);
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.demo.utils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads RFC 4180 CSV one record at a time, so an upload is never held in memory whole. Quoted
+ * fields may contain separators, doubled quotes and line breaks. The separator is taken from
+ * the header line: ',' unless it has more ';' or tabs (spreadsheets in Spanish locales).
+ */
+public final class CsvReader {
+
+    private final BufferedReader in;
+    private final char separator;
+    private long line = 1;
+    private long recordLine;
+    private int pushback = -1;
+
+    private CsvReader(BufferedReader in, char separator) {
+        this.in = in;
+        this.separator = separator;
+    }
+
+    public static CsvReader open(InputStream body) throws IOException {
+        BufferedReader in = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8), 64 * 1024);
+        in.mark(1);
+        if (in.read() != '\uFEFF') in.reset();   // BOM, as LedgerExportService writes
+        in.mark(8 * 1024);
+        String header = in.readLine();
+        in.reset();
+        return new CsvReader(in, header == null ? ',' : sniff(header));
+    }
+
+    private static char sniff(String header) {
+        long commas = header.chars().filter(c -> c == ',').count();
+        long semicolons = header.chars().filter(c -> c == ';').count();
+        long tabs = header.chars().filter(c -> c == '\t').count();
+        if (tabs > commas && tabs > semicolons) return '\t';
+        return semicolons > commas ? ';' : ',';
+    }
+
+    public char separator() {
+        return separator;
+    }
+
+    /** Line number the last record returned by {@link #next()} started on (1 = header). */
+    public long recordLine() {
+        return recordLine;
+    }
+
+    /** The next record's fields, or null at the end of the input. Blank lines are skipped. */
+    public List<String> next() throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean started = false;
+        recordLine = line;
+        while (true) {
+            int c = read();
+            if (c == -1) {
+                if (!started) return null;
+                fields.add(field.toString());
+                return fields;
+            }
+            if (quoted) {
+                if (c == '"') {
+                    int n = read();
+                    if (n == '"') field.append('"');
+                    else { quoted = false; pushback = n; }
+                } else {
+                    if (c == '\n') line++;
+                    field.append((char) c);
+                }
+                continue;
+            }
+            if (c == '\r') continue;
+            if (c == '\n') {
+                line++;
+                if (!started) { recordLine = line; continue; }
+                fields.add(field.toString());
+                return fields;
+            }
+            started = true;
+            if (c == '"' && field.isEmpty()) quoted = true;
+            else if (c == separator) { fields.add(field.toString()); field.setLength(0); }
+            else field.append((char) c);
+        }
+    }
+
+    private int read() throws IOException {
+        if (pushback != -1) {
+            int c = pushback;
+            pushback = -1;
+            return c;
+        }
+        return in.read();
+    }
+}
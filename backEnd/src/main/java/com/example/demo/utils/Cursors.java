@@ -0,0 +1,71 @@
+package com.example.demo.utils;
+
+import com.example.demo.exceptions.BadRequestException;
+import org.springframework.data.domain.Limit;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.BiFunction;
+
+/**
+ * Opaque keyset cursors: the sort key and the row id of the last row of a slice,
+ * encoded as base64url so clients treat them as tokens. A row without a sort key encodes
+ * as just its id ("key|id" otherwise), so the two can't be confused.
+ */
+public final class Cursors {
+
+    private Cursors() {}
+
+    /** key is null when the row had no sort key. */
+    public record Position(String key, long id) {
+        public LocalDate keyAsDate() {
+            if (key == null) return null;
+            try {
+                return LocalDate.parse(key);
+            } catch (DateTimeParseException e) {
+                throw new BadRequestException("Invalid cursor");
+            }
+        }
+    }
+
+    public static String encode(Object key, long id) {
+        String raw = key == null ? Long.toString(id) : key + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** Returns null for a missing/blank cursor, i.e. the first slice. */
+    public static Position decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) return null;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8);
+            int sep = raw.lastIndexOf('|');
+            if (sep < 0) return new Position(null, Long.parseLong(raw));
+            return new Position(raw.substring(0, sep), Long.parseLong(raw.substring(sep + 1)));
+        } catch (RuntimeException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+
+    /**
+     * One slice of a listing ordered by a nullable key with NULLS LAST, from two queries that
+     * can each walk an index: {@code keyed} returns rows with a key after {@code after} (the
+     * first ones when null), and once those run out {@code unkeyed} continues with the rows
+     * without one, by id descending, below the given id ({@code Long.MAX_VALUE} for the first).
+     */
+    public static <T> List<T> nullsLast(Position after, int limit,
+                                        BiFunction<Position, Limit, List<T>> keyed,
+                                        BiFunction<Long, Limit, List<T>> unkeyed) {
+        List<T> rows = new ArrayList<>(limit);
+        boolean inKeyed = after == null || after.key() != null;
+        if (inKeyed) rows.addAll(keyed.apply(after, Limit.of(limit)));
+        if (rows.size() < limit) {
+            long afterId = inKeyed ? Long.MAX_VALUE : after.id();
+            rows.addAll(unkeyed.apply(afterId, Limit.of(limit - rows.size())));
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.demo.bench;
+
+import com.example.demo.BackEnd;
+import com.example.demo.dto.FinanceDashboardResponse;
+import com.example.demo.service.FinanceAnalyticsSnapshot;
+import com.example.demo.service.FinanceRollupService;
+import com.example.demo.service.FinanceService;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link FinanceService#dashboard} answered from the in-memory day columns ({@code snapshot=true})
+ * against the SQL it replaces ({@code snapshot=false}): the parallel GROUP BY queries for an
+ * arbitrary range, the monthly rollup for whole months. The dashboard cache is off in both so
+ * every call computes.
+ * <p>
+ * Runs against in-memory H2, so the SQL side pays no network round trip and the gap is smaller
+ * than against the remote Postgres. Not part of the regular test run; start it with
+ * {@code mvn test -Dtest=FinanceDashboardBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FinanceDashboardBenchmark {
+
+    private static final int SELLERS = 8;
+    private static final int PRODUCTS = 20_000;
+    private static final int PAYMENTS = 30_000;
+    private static final int COSTS = 6_000;
+    private static final LocalDate FIRST_DAY = LocalDate.of(2023, 1, 1);
+    private static final int DAYS = 3 * 365;
+    private static final String[] COST_TYPES = {"ADS", "MATERIAL", "OTHERS", "RENT", "SALARY", "SERVICES", "TAX"};
+
+    @Param({"true", "false"})
+    public boolean snapshot;
+
+    // from/to; the second one is whole months, which the SQL side reads from the rollup
+    @Param({"2023-03-17/2025-08-09", "2024-01-01/2024-12-31"})
+    public String range;
+
+    private ConfigurableApplicationContext context;
+    private FinanceService financeService;
+    private LocalDate from;
+    private LocalDate to;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(BackEnd.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .run("--finance.analytics.snapshot.enabled=" + snapshot,
+                        "--finance.dashboard.cache.max-entries=0",
+                        "--logging.level.root=WARN");
+        seed(context.getBean(JdbcTemplate.class));
+        context.getBean(FinanceRollupService.class).rebuild();
+        context.getBean(FinanceAnalyticsSnapshot.class).reseed();
+        financeService = context.getBean(FinanceService.class);
+        String[] bounds = range.split("/");
+        from = LocalDate.parse(bounds[0]);
+        to = LocalDate.parse(bounds[1]);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public FinanceDashboardResponse dashboard() {
+        return financeService.dashboard(from, to);
+    }
+
+    private static void seed(JdbcTemplate jdbc) {
+        Random random = new Random(42);
+        List<Object[]> users = new ArrayList<>();
+        for (int i = 1; i <= SELLERS; i++) users.add(new Object[]{"seller" + i, "SELLER"});
+        jdbc.batchUpdate("INSERT INTO usuarios (username, app_user_role) VALUES (?, ?)", users);
+        List<Long> userIds = jdbc.queryForList("SELECT id FROM usuarios", Long.class);
+
+        List<Object[]> products = new ArrayList<>();
+        List<Object[]> workOrders = new ArrayList<>();
+        for (long id = 1; id <= PRODUCTS; id++) {
+            LocalDate start = FIRST_DAY.plusDays(random.nextInt(DAYS));
+            BigDecimal price = BigDecimal.valueOf(50_000 + random.nextInt(950_000), 2);
+            products.add(new Object[]{id, "Mueble " + id, start, price, 1 + random.nextInt(3),
+                    price.multiply(BigDecimal.valueOf(0.4)).setScale(2, RoundingMode.HALF_UP),
+                    userIds.get(random.nextInt(userIds.size()))});
+            workOrders.add(new Object[]{id, id, random.nextInt(3) == 0 ? "PRODUCCION" : "ENTREGADO",
+                    Timestamp.valueOf(start.plusDays(20).atStartOfDay())});
+        }
+        jdbc.batchUpdate("""
+                INSERT INTO products (id, titulo, startdate, precio, cantidad, cogs_amount, ownerid, version)
+                VALUES (?, ?, ?, ?, ?, ?, ?, 0)
+                """, products);
+        jdbc.batchUpdate("INSERT INTO work_orders (id, product_id, status, update_at, version) VALUES (?, ?, ?, ?, 0)",
+                workOrders);
+
+        List<Object[]> payments = new ArrayList<>();
+        for (long id = 1; id <= PAYMENTS; id++) {
+            payments.add(new Object[]{id, 1 + random.nextInt(PRODUCTS), FIRST_DAY.plusDays(random.nextInt(DAYS)),
+                    BigDecimal.valueOf(10_000 + random.nextInt(300_000), 2)});
+        }
+        jdbc.batchUpdate("INSERT INTO pagos (id, product_id, fecha, valor) VALUES (?, ?, ?, ?)", payments);
+
+        List<Object[]> costs = new ArrayList<>();
+        for (int i = 0; i < COSTS; i++) {
+            costs.add(new Object[]{"Costo " + i, FIRST_DAY.plusDays(random.nextInt(DAYS)),
+                    COST_TYPES[random.nextInt(COST_TYPES.length)], BigDecimal.valueOf(5_000 + random.nextInt(200_000), 2)});
+        }
+        jdbc.batchUpdate("INSERT INTO costos (asunto, fecha, tipo, valor) VALUES (?, ?, ?, ?)", costs);
+    }
+
+    // Entry point for surefire: the class name keeps it out of the default includes
+    @Test
+    void run() throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(FinanceDashboardBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.demo.controller;
+
+import com.example.demo.config.DeliveredAtBackfill;
+import com.example.demo.config.PaymentTotalsBackfill;
+import com.example.demo.dto.ProductCreateRequest;
+import com.example.demo.dto.ProductResponse;
+import com.example.demo.model.AppUser;
+import com.example.demo.model.AppUserRole;
+import com.example.demo.model.ProductType;
+import com.example.demo.repository.UserRepo;
+import com.example.demo.service.JwtTokenUtil;
+import com.example.demo.service.ProductService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Conditional GET on the product list: the ETag comes from the change counter, so a client
+ * revalidating gets 304 until something it lists is written, through JPA or a startup backfill.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ProductListEtagTest {
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private UserRepo userRepo;
+
+    @Autowired
+    private JwtTokenUtil jwtTokenUtil;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PaymentTotalsBackfill paymentTotalsBackfill;
+
+    @Autowired
+    private DeliveredAtBackfill deliveredAtBackfill;
+
+    private String token;
+    private ProductResponse product;
+
+    @BeforeEach
+    void seed() {
+        AppUser admin = userRepo.findByUsername("etag-admin")
+                .orElseGet(() -> userRepo.save(new AppUser("etag-admin", "secret", AppUserRole.ADMIN, null)));
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(admin, null, admin.getAuthorities()));
+        token = jwtTokenUtil.generateToken(admin.getUsername());
+        product = productService.createProduct(new ProductCreateRequest(null, "Mesa " + System.nanoTime(),
+                ProductType.MESA, "120x80", "roble", null, "natural", null, 1L, null, null, null, null, null,
+                new BigDecimal("1000.00"), null, new BigDecimal("300.00"), "1155550000"));
+    }
+
+    @AfterEach
+    void clearAuthentication() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void unchangedListAnswers304() throws Exception {
+        String etag = listEtag();
+
+        mvc.perform(get("/api/products").header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void writeThroughJpaChangesTheEtag() throws Exception {
+        String etag = listEtag();
+
+        productService.reschedule(product.titulo(), LocalDate.now().plusDays(30));
+
+        assertThat(listEtag()).isNotEqualTo(etag);
+    }
+
+    @Test
+    void paymentTotalsBackfillChangesTheEtag() throws Exception {
+        jdbcTemplate.update("UPDATE products SET total_paid = NULL WHERE id = ?", product.id());
+        String etag = listEtag();
+
+        paymentTotalsBackfill.run(null);
+
+        assertThat(listEtag()).isNotEqualTo(etag);
+    }
+
+    @Test
+    void deliveredAtBackfillChangesTheEtag() throws Exception {
+        jdbcTemplate.update("UPDATE work_orders SET status = 'ENTREGADO', delivered_at = NULL,"
+                + " update_at = CURRENT_TIMESTAMP WHERE product_id = ?", product.id());
+        String etag = listEtag();
+
+        deliveredAtBackfill.run(null);
+
+        assertThat(listEtag()).isNotEqualTo(etag);
+    }
+
+    private String listEtag() throws Exception {
+        MvcResult result = mvc.perform(get("/api/products").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isOk())
+                .andReturn();
+        String etag = result.getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etag).isNotBlank();
+        return etag;
+    }
+}
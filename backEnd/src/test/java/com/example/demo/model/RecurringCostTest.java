@@ -0,0 +1,82 @@
+package com.example.demo.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Occurrence k is anchor + k periods: a series anchored at the end of a month clamps in short
+ * months and goes back to its day afterwards instead of drifting.
+ */
+class RecurringCostTest {
+
+    @Test
+    void monthlySeriesAnchoredOnThe31stReturnsToItAfterShortMonths() {
+        LocalDate anchor = LocalDate.of(2025, 1, 31);
+
+        assertThat(RecurringCost.occurrence(anchor, PaymentFrequency.MONTHLY, 1)).isEqualTo("2025-02-28");
+        assertThat(RecurringCost.occurrence(anchor, PaymentFrequency.MONTHLY, 2)).isEqualTo("2025-03-31");
+        assertThat(RecurringCost.occurrence(anchor, PaymentFrequency.MONTHLY, 3)).isEqualTo("2025-04-30");
+        assertThat(RecurringCost.occurrence(anchor, PaymentFrequency.MONTHLY, 4)).isEqualTo("2025-05-31");
+        assertThat(RecurringCost.occurrence(LocalDate.of(2024, 1, 31), PaymentFrequency.MONTHLY, 1))
+                .isEqualTo("2024-02-29");
+    }
+
+    @Test
+    void yearlySeriesOnLeapDayFallsOnThe28thInOtherYears() {
+        LocalDate anchor = LocalDate.of(2024, 2, 29);
+
+        assertThat(RecurringCost.occurrence(anchor, PaymentFrequency.YEARLY, 1)).isEqualTo("2025-02-28");
+        assertThat(RecurringCost.occurrence(anchor, PaymentFrequency.YEARLY, 4)).isEqualTo("2028-02-29");
+    }
+
+    @Test
+    void weeklySeriesAddsWholeWeeks() {
+        assertThat(RecurringCost.occurrence(LocalDate.of(2025, 12, 29), PaymentFrequency.WEEKLY, 1))
+                .isEqualTo("2026-01-05");
+    }
+
+    @Test
+    void oneTimeCostsHaveNoOccurrences() {
+        assertThatThrownBy(() -> RecurringCost.occurrence(LocalDate.of(2025, 1, 1), PaymentFrequency.ONE_TIME, 1))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void advancePastMovesToTheFirstOccurrenceAfterTheDate() {
+        RecurringCost t = monthlyFrom(LocalDate.of(2025, 1, 31));
+
+        t.advancePast(LocalDate.of(2025, 2, 28));
+        assertThat(t.getNextIndex()).isEqualTo(2);
+        assertThat(t.getNextDueDate()).isEqualTo("2025-03-31");
+
+        t.advancePast(LocalDate.of(2025, 3, 30));
+        assertThat(t.getNextIndex()).isEqualTo(2);
+        assertThat(t.getNextDueDate()).isEqualTo("2025-03-31");
+
+        t.advancePast(LocalDate.of(2025, 6, 15));
+        assertThat(t.getNextIndex()).isEqualTo(5);
+        assertThat(t.getNextDueDate()).isEqualTo("2025-06-30");
+    }
+
+    @Test
+    void advancePastNeverMovesBack() {
+        RecurringCost t = monthlyFrom(LocalDate.of(2025, 1, 31));
+        t.advancePast(LocalDate.of(2025, 4, 30));
+
+        t.advancePast(LocalDate.of(2025, 1, 1));
+
+        assertThat(t.getNextDueDate()).isEqualTo("2025-05-31");
+    }
+
+    private static RecurringCost monthlyFrom(LocalDate anchor) {
+        RecurringCost t = new RecurringCost();
+        t.setFrequency(PaymentFrequency.MONTHLY);
+        t.setAnchorDate(anchor);
+        t.setNextIndex(1);
+        return t;
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.demo.repository;
+
+import com.example.demo.dto.ProductResponse;
+import com.example.demo.model.AppUser;
+import com.example.demo.model.AppUserRole;
+import com.example.demo.model.InventoryItem;
+import com.example.demo.model.InventoryUnit;
+import com.example.demo.model.Product;
+import com.example.demo.model.ProductMaterial;
+import com.example.demo.model.ProductType;
+import com.example.demo.model.Status;
+import com.example.demo.model.WorkOrder;
+import com.example.demo.service.CommitStamps;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A product list page, mapped to its response rows, costs the same number of prepared
+ * statements whatever the page size: work orders come with the page, materials and their
+ * inventory items are batch-loaded for the whole page.
+ */
+@DataJpaTest(showSql = false, properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import(CommitStamps.class) // the entity listener's dependency, outside the JPA slice
+class ProductListStatementCountTest {
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private ProductRepo productRepo;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @BeforeEach
+    void seed() {
+        AppUser owner = em.persist(new AppUser("seller", "secret", AppUserRole.SELLER, null));
+        InventoryItem wood = em.persist(item("Roble", "12.50"));
+        InventoryItem paint = em.persist(item("Laca", "4.00"));
+        for (int i = 0; i < 30; i++) {
+            Product p = new Product();
+            p.setTitulo("Mesa " + i);
+            p.setProductType(ProductType.MESA);
+            p.setPrecio(new BigDecimal("1000.00"));
+            p.setStartDate(LocalDate.of(2025, 1, 1).plusDays(i));
+            p.setOwner(owner);
+            em.persist(p);
+
+            WorkOrder wo = new WorkOrder();
+            wo.setProduct(p);
+            wo.setStatus(Status.PRODUCCION);
+            em.persist(wo);
+
+            em.persist(material(p, wood, "2"));
+            em.persist(material(p, paint, "0.5"));
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void findAllPageCostsTheSameAtEveryPageSize() {
+        Function<Pageable, Page<Product>> page = productRepo::findAll;
+
+        assertThat(statementsFor(page, 5)).isEqualTo(statementsFor(page, 25));
+    }
+
+    @Test
+    void filterPageCostsTheSameAtEveryPageSize() {
+        Function<Pageable, Page<Product>> page = pageable -> productRepo.filterProducts(
+                "mesa", null, null, null, Status.PRODUCCION, null, null, null, pageable);
+
+        assertThat(statementsFor(page, 5)).isEqualTo(statementsFor(page, 25));
+    }
+
+    private long statementsFor(Function<Pageable, Page<Product>> page, int size) {
+        Statistics stats = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        em.clear();
+        stats.clear();
+
+        List<ProductResponse> rows = page.apply(PageRequest.of(0, size, Sort.by("id")))
+                .map(ProductResponse::listItem)
+                .getContent();
+
+        assertThat(rows).hasSize(size);
+        assertThat(rows).allSatisfy(r -> assertThat(r.materials()).hasSize(2));
+        return stats.getPrepareStatementCount();
+    }
+
+    private static InventoryItem item(String name, String unitCost) {
+        InventoryItem item = new InventoryItem();
+        item.setName(name);
+        item.setUnit(InventoryUnit.values()[0]);
+        item.setUnitCost(new BigDecimal(unitCost));
+        return item;
+    }
+
+    private static ProductMaterial material(Product product, InventoryItem item, String quantity) {
+        ProductMaterial pm = new ProductMaterial();
+        pm.setProduct(product);
+        pm.setInventoryItem(item);
+        pm.setQuantityUsed(new BigDecimal(quantity));
+        return pm;
+    }
+}
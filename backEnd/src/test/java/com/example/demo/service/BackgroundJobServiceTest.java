@@ -0,0 +1,190 @@
+package com.example.demo.service;
+
+import com.example.demo.model.BackgroundJob;
+import com.example.demo.model.BackgroundJobChunk;
+import com.example.demo.model.BackgroundJobStatus;
+import com.example.demo.repository.BackgroundJobChunkRepo;
+import com.example.demo.repository.BackgroundJobRepo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Chunk retries: exponential backoff between attempts, FAILED once jobs.max-attempts is used up,
+ * and a chunk whose worker stopped renewing its lease is claimed and finished by another one.
+ */
+@SpringBootTest(properties = {
+        "jobs.workers=1",
+        "jobs.max-attempts=3",
+        "jobs.retry.base-seconds=30",
+        "jobs.retry.max-seconds=3600",
+        "jobs.poll-ms=3600000"   // the tests poll by hand
+})
+@ActiveProfiles("test")
+class BackgroundJobServiceTest {
+
+    @TestConfiguration
+    static class Handlers {
+        @Bean
+        ScriptedHandler scriptedHandler() {
+            return new ScriptedHandler();
+        }
+    }
+
+    /** One chunk of ids 1..10 that fails while {@code failing} is set. */
+    static class ScriptedHandler implements BackgroundJobHandler {
+        final AtomicInteger runs = new AtomicInteger();
+        volatile boolean failing;
+
+        @Override
+        public String type() {
+            return "test-scripted";
+        }
+
+        @Override
+        public String description() {
+            return "Test handler";
+        }
+
+        @Override
+        public List<Range> partition() {
+            return List.of(new Range(1L, 10L));
+        }
+
+        @Override
+        public int run(Range range) {
+            runs.incrementAndGet();
+            if (failing) throw new IllegalStateException("scripted failure");
+            return 10;
+        }
+    }
+
+    @Autowired
+    private BackgroundJobService jobs;
+
+    @Autowired
+    private ScriptedHandler handler;
+
+    @Autowired
+    private BackgroundJobRepo jobRepo;
+
+    @Autowired
+    private BackgroundJobChunkRepo chunkRepo;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void reset() {
+        handler.runs.set(0);
+        handler.failing = false;
+    }
+
+    @Test
+    void backoffDoublesFromTheBaseUpToTheCap() {
+        assertThat(jobs.backoffSeconds(1)).isEqualTo(30);
+        assertThat(jobs.backoffSeconds(2)).isEqualTo(60);
+        assertThat(jobs.backoffSeconds(3)).isEqualTo(120);
+        assertThat(jobs.backoffSeconds(7)).isEqualTo(1920);
+        assertThat(jobs.backoffSeconds(8)).isEqualTo(3600);
+        assertThat(jobs.backoffSeconds(1000)).isEqualTo(3600);
+    }
+
+    @Test
+    void failingChunkIsRetriedWithBackoffThenFailsTheJob() {
+        handler.failing = true;
+        BackgroundJob job = jobs.enqueue("test-scripted", "test");
+
+        BackgroundJobChunk chunk = awaitChunk(job.getId(), c -> queuedAfter(c, 1));
+        assertThat(chunk.getLastError()).contains("scripted failure");
+        assertThat(chunk.getNextAttemptAt()).isCloseTo(LocalDateTime.now().plusSeconds(30), within(5, ChronoUnit.SECONDS));
+
+        makeDue(chunk);
+        jobs.poll();
+        chunk = awaitChunk(job.getId(), c -> queuedAfter(c, 2));
+        assertThat(chunk.getNextAttemptAt()).isCloseTo(LocalDateTime.now().plusSeconds(60), within(5, ChronoUnit.SECONDS));
+
+        makeDue(chunk);
+        jobs.poll();
+        chunk = awaitChunk(job.getId(), c -> c.getStatus() == BackgroundJobStatus.FAILED);
+        assertThat(chunk.getAttempts()).isEqualTo(3);
+        assertThat(handler.runs.get()).isEqualTo(3);
+
+        BackgroundJob finished = jobRepo.findById(job.getId()).orElseThrow();
+        assertThat(finished.getStatus()).isEqualTo(BackgroundJobStatus.FAILED);
+        assertThat(finished.getFailedChunks()).isEqualTo(1);
+
+        // No attempts left: nothing is due any more
+        jobs.poll();
+        assertThat(handler.runs.get()).isEqualTo(3);
+    }
+
+    @Test
+    void chunkIsClaimedAgainOnceItsLeaseRunsOut() {
+        handler.failing = true;
+        BackgroundJob job = jobs.enqueue("test-scripted", "test");
+        BackgroundJobChunk chunk = awaitChunk(job.getId(), c -> queuedAfter(c, 1));
+        handler.failing = false;
+
+        // Another instance claimed it and stopped answering; its lease is still running
+        jdbcTemplate.update("UPDATE background_job_chunks SET status = 'RUNNING', owner_id = 'crashed',"
+                + " locked_until = ?, attempts = 2 WHERE id = ?",
+                Timestamp.valueOf(LocalDateTime.now().plusMinutes(5)), chunk.getId());
+        jobs.poll();
+        assertThat(handler.runs.get()).isEqualTo(1);
+        assertThat(chunkRepo.findById(chunk.getId()).orElseThrow().getOwnerId()).isEqualTo("crashed");
+
+        jdbcTemplate.update("UPDATE background_job_chunks SET locked_until = ? WHERE id = ?",
+                Timestamp.valueOf(LocalDateTime.now().minusSeconds(1)), chunk.getId());
+        jobs.poll();
+        chunk = awaitChunk(job.getId(), c -> c.getStatus() == BackgroundJobStatus.SUCCEEDED);
+
+        assertThat(chunk.getOwnerId()).isNotEqualTo("crashed");
+        assertThat(chunk.getAttempts()).isEqualTo(3);
+        assertThat(chunk.getItemsProcessed()).isEqualTo(10);
+        assertThat(handler.runs.get()).isEqualTo(2);
+        assertThat(jobRepo.findById(job.getId()).orElseThrow().getStatus()).isEqualTo(BackgroundJobStatus.SUCCEEDED);
+    }
+
+    private static boolean queuedAfter(BackgroundJobChunk chunk, int attempts) {
+        return chunk.getStatus() == BackgroundJobStatus.QUEUED && chunk.getAttempts() == attempts;
+    }
+
+    private void makeDue(BackgroundJobChunk chunk) {
+        jdbcTemplate.update("UPDATE background_job_chunks SET next_attempt_at = ? WHERE id = ?",
+                Timestamp.valueOf(LocalDateTime.now().minusSeconds(1)), chunk.getId());
+    }
+
+    // Chunks run on the worker pool; wait for the one of this job to get where the test expects
+    private BackgroundJobChunk awaitChunk(long jobId, Predicate<BackgroundJobChunk> state) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (true) {
+            BackgroundJobChunk chunk = jobs.chunks(jobId).get(0);
+            if (state.test(chunk)) return chunk;
+            assertThat(System.nanoTime()).as("chunk %d stuck in %s after %d attempts",
+                    chunk.getId(), chunk.getStatus(), chunk.getAttempts()).isLessThan(deadline);
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.CsvImportResult;
+import com.example.demo.exceptions.BadRequestException;
+import com.example.demo.model.AppUser;
+import com.example.demo.model.AppUserRole;
+import com.example.demo.model.CsvImport;
+import com.example.demo.model.CsvImportKind;
+import com.example.demo.model.CsvImportStatus;
+import com.example.demo.repository.CsvImportRepo;
+import com.example.demo.repository.UserRepo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Imports that stop part way (a broken upload, a bad header) are left INTERRUPTED with their
+ * committed batches, and the same file sent again with the same key inserts only the rest.
+ */
+@SpringBootTest(properties = "imports.batch-size=2")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class CsvImportServiceTest {
+
+    @Autowired
+    private CsvImportService importService;
+
+    @Autowired
+    private CsvImportRepo importRepo;
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private UserRepo userRepo;
+
+    @Autowired
+    private JwtTokenUtil jwtTokenUtil;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private String token;
+
+    @BeforeEach
+    void seed() {
+        AppUser admin = userRepo.findByUsername("import-admin")
+                .orElseGet(() -> userRepo.save(new AppUser("import-admin", "secret", AppUserRole.ADMIN, null)));
+        token = jwtTokenUtil.generateToken(admin.getUsername());
+    }
+
+    @Test
+    void brokenUploadIsResumedWithTheSameKey() throws Exception {
+        String tag = "csv-resume-" + System.nanoTime();
+        String file = costs(tag, 5);
+        // The connection drops after the third row: the first batch of two is committed
+        int cut = file.indexOf("2025-01-04");
+
+        assertThatThrownBy(() -> importService.importCosts(breaksAfter(file, cut), tag, "import-admin"))
+                .isInstanceOf(IOException.class);
+        CsvImport interrupted = importRepo.findByKindAndImportKey(CsvImportKind.COSTS, tag).orElseThrow();
+        assertThat(interrupted.getStatus()).isEqualTo(CsvImportStatus.INTERRUPTED);
+        assertThat(interrupted.getRowsDone()).isEqualTo(2);
+        assertThat(imported(tag)).isEqualTo(2);
+
+        mvc.perform(post("/api/admin/imports/costs").param("key", tag)
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                        .contentType("text/csv").content(file))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("COMPLETED"))
+                .andExpect(jsonPath("$.skipped").value(2))
+                .andExpect(jsonPath("$.inserted").value(3))
+                .andExpect(jsonPath("$.totalInserted").value(5));
+        assertThat(imported(tag)).isEqualTo(5);
+
+        // Completed: sending it once more changes nothing
+        mvc.perform(post("/api/admin/imports/costs").param("key", tag)
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                        .contentType("text/csv").content(file))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.inserted").value(0));
+        assertThat(imported(tag)).isEqualTo(5);
+    }
+
+    @Test
+    void badHeaderLeavesTheImportInterruptedNotRunning() throws Exception {
+        String tag = "csv-header-" + System.nanoTime();
+
+        assertThatThrownBy(() -> importService.importCosts(stream("fecha,importe\n2025-01-01,10\n"), tag, "import-admin"))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessageContaining("'valor'");
+        assertThat(importRepo.findByKindAndImportKey(CsvImportKind.COSTS, tag).orElseThrow().getStatus())
+                .isEqualTo(CsvImportStatus.INTERRUPTED);
+
+        CsvImportResult fixed = importService.importCosts(stream(costs(tag, 3)), tag, "import-admin");
+        assertThat(fixed.status()).isEqualTo("COMPLETED");
+        assertThat(fixed.inserted()).isEqualTo(3);
+    }
+
+    @Test
+    void semicolonFilesUseTheDecimalComma() throws Exception {
+        String tag = "csv-decimal-" + System.nanoTime();
+        String file = "fecha;valor;asunto\n"
+                + "2025-02-01;1.234,56;" + tag + "\n"
+                + "2025-02-02;\"12,5\";" + tag + "\n"
+                + "2025-02-03;1,234;" + tag + "\n";
+
+        CsvImportResult result = importService.importCosts(stream(file), null, "import-admin");
+
+        assertThat(result.inserted()).isEqualTo(2);
+        assertThat(result.errors()).singleElement()
+                .satisfies(e -> assertThat(e.message()).contains("more than 2 decimals"));
+        List<BigDecimal> amounts = jdbcTemplate.queryForList(
+                "SELECT valor FROM costos WHERE asunto = ? ORDER BY fecha", BigDecimal.class, tag);
+        assertThat(amounts).usingElementComparator(BigDecimal::compareTo)
+                .containsExactly(new BigDecimal("1234.56"), new BigDecimal("12.50"));
+    }
+
+    private static String costs(String tag, int rows) {
+        StringBuilder csv = new StringBuilder("fecha,valor,tipo,asunto\n");
+        for (int i = 1; i <= rows; i++) csv.append("2025-01-0").append(i).append(",100.00,MATERIAL,").append(tag).append('\n');
+        return csv.toString();
+    }
+
+    private long imported(String tag) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM costos WHERE asunto = ?", Long.class, tag);
+    }
+
+    private static InputStream stream(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // The first {@code length} bytes of the file, then the read fails as a dropped upload would
+    private static InputStream breaksAfter(String text, int length) {
+        InputStream sent = stream(text.substring(0, length));
+        return new InputStream() {
+            @Override
+            public int read() throws IOException {
+                int c = sent.read();
+                if (c == -1) throw new IOException("connection reset");
+                return c;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int n = sent.read(b, off, len);
+                if (n == -1) throw new IOException("connection reset");
+                return n;
+            }
+        };
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.CreatePaymentRequest;
+import com.example.demo.dto.ExpenseBreakdownRow;
+import com.example.demo.dto.FinanceDashboardResponse;
+import com.example.demo.dto.ProductCreateRequest;
+import com.example.demo.dto.ProductResponse;
+import com.example.demo.dto.ProductUpdateDto;
+import com.example.demo.model.AppUser;
+import com.example.demo.model.AppUserRole;
+import com.example.demo.model.CostType;
+import com.example.demo.model.Costs;
+import com.example.demo.model.ProductType;
+import com.example.demo.model.Status;
+import com.example.demo.repository.UserRepo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The nominal dashboard is served from three places (in-memory snapshot, monthly rollup, SQL
+ * over the base tables); after writes through the services all three must agree.
+ */
+@SpringBootTest(properties = "finance.analytics.snapshot.enabled=true")
+@ActiveProfiles("test")
+class FinanceDashboardPathsTest {
+
+    // Products always start today; payments and costs are dated later, clear of other tests' rows
+    private static final LocalDate FROM = LocalDate.now().withDayOfMonth(1);
+    private static final LocalDate TO = LocalDate.of(2031, 12, 31);
+
+    @Autowired
+    private FinanceService financeService;
+
+    @Autowired
+    private FinanceAnalyticsSnapshot snapshot;
+
+    @Autowired
+    private FinanceRollupService rollupService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private CostService costService;
+
+    @Autowired
+    private WorkOrderService workOrderService;
+
+    @Autowired
+    private UserRepo userRepo;
+
+    private FinanceDashboardResponse baseline;
+
+    @BeforeEach
+    void seed() throws Exception {
+        // Other tests share the database and write some rows in plain SQL: start all paths level
+        rollupService.rebuild();
+        snapshot.reseed();
+        baseline = financeService.dashboardFromQueries(FROM, TO);
+
+        actAs("paths-seller-a");
+        ProductResponse delivered = product("Mesa", 2, "1500.00");
+        ProductResponse repriced = product("Silla", 4, "320.50");
+        ProductResponse removed = product("Banco", 1, "99.99");
+        actAs("paths-seller-b");
+        ProductResponse paid = product("Cajonera", 1, "870.25");
+
+        paymentService.createPayment(new CreatePaymentRequest(new BigDecimal("400.00"), "PAGO", paid.id(), "2031-12-01", null));
+        paymentService.createPayment(new CreatePaymentRequest(new BigDecimal("250.10"), "PAGO", delivered.id(), "2031/03/15", null));
+        cost(CostType.RENT, LocalDate.of(2031, 1, 10), "1200.00");
+        cost(CostType.MATERIAL, LocalDate.of(2031, 6, 30), "310.45");
+        cost(null, LocalDate.of(2031, 6, 1), "55.00");
+
+        ProductUpdateDto price = new ProductUpdateDto();
+        price.setPrecio(new BigDecimal("350.00"));
+        productService.update(repriced.id(), price);
+        // Not delivered yet, so the cost moves no figure until the status change below picks it up
+        ProductUpdateDto cogs = new ProductUpdateDto();
+        cogs.setCogsAmount(new BigDecimal("640.30"));
+        productService.update(delivered.id(), cogs);
+        workOrderService.updateStatus(delivered.workOrderId(), Status.ENTREGADO);
+        productService.delete(removed.id());
+    }
+
+    @AfterEach
+    void clearAuthentication() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void snapshotRollupAndQueriesReturnTheSameDashboard() {
+        assertThat(snapshot.isReady()).isTrue();
+
+        Dashboard fromSnapshot = Dashboard.of(snapshot.dashboard(FROM, TO));
+        Dashboard fromRollup = Dashboard.of(financeService.dashboardFromRollup(FROM, TO, null));
+        Dashboard fromQueries = Dashboard.of(financeService.dashboardFromQueries(FROM, TO));
+
+        FinanceDashboardResponse queries = financeService.dashboardFromQueries(FROM, TO);
+        assertThat(queries.tInc().subtract(baseline.tInc())).isEqualByComparingTo("2720.25");
+        assertThat(queries.tDep().subtract(baseline.tDep())).isEqualByComparingTo("650.10");
+        assertThat(queries.tExp().subtract(baseline.tExp())).isEqualByComparingTo("1565.45");
+        assertThat(queries.tCogs().subtract(baseline.tCogs())).isEqualByComparingTo("640.30");
+        assertThat(fromQueries.userStats()).containsExactly("paths-seller-a 6 1850", "paths-seller-b 1 870.25");
+        assertThat(fromSnapshot).isEqualTo(fromQueries);
+        assertThat(fromRollup).isEqualTo(fromQueries);
+    }
+
+    // Scales and number types differ by path (cents, NUMERIC sums, BIGINT casts); compare values
+    private record Dashboard(List<String> totals, List<String> userStats) {
+
+        static Dashboard of(FinanceDashboardResponse r) {
+            List<String> breakdown = r.expenseBreakdown().stream()
+                    .sorted(Comparator.comparing(ExpenseBreakdownRow::name))
+                    .map(e -> e.name() + "=" + plain(e.value()))
+                    .toList();
+            List<String> totals = List.of(plain(r.tInc()), plain(r.tDep()), plain(r.tExp()), plain(r.tRev()),
+                    breakdown.toString(), plain(r.tCogs()), plain(r.grossProfit()), plain(r.netProfit()));
+            List<String> userStats = r.userStats().stream()
+                    .filter(u -> u.get("userName").toString().startsWith("paths-"))
+                    .map(Dashboard::userRow)
+                    .sorted()
+                    .toList();
+            return new Dashboard(totals, userStats);
+        }
+
+        private static String userRow(Map<String, Object> u) {
+            return u.get("userName") + " " + plain(new BigDecimal(u.get("unitsSold").toString()))
+                    + " " + plain(new BigDecimal(u.get("income").toString()));
+        }
+
+        private static String plain(BigDecimal v) {
+            return v.stripTrailingZeros().toPlainString();
+        }
+    }
+
+    private void actAs(String username) {
+        AppUser user = userRepo.findByUsername(username)
+                .orElseGet(() -> userRepo.save(new AppUser(username, "secret", AppUserRole.ADMIN, null)));
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+    }
+
+    private ProductResponse product(String title, long units, String price) {
+        return productService.createProduct(new ProductCreateRequest(null, title + " " + System.nanoTime(),
+                ProductType.MESA, null, "roble", null, null, null, units, null, null, null, null, null,
+                new BigDecimal(price), null, null, "1155550000"));
+    }
+
+    private void cost(CostType type, LocalDate date, String amount) {
+        Costs cost = new Costs();
+        cost.setCostType(type);
+        cost.setDate(date);
+        cost.setAmount(new BigDecimal(amount));
+        costService.create(cost);
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.CreatePaymentRequest;
+import com.example.demo.dto.ProductCreateRequest;
+import com.example.demo.dto.ProductResponse;
+import com.example.demo.dto.ProductUpdateDto;
+import com.example.demo.model.AppUser;
+import com.example.demo.model.AppUserRole;
+import com.example.demo.model.CostType;
+import com.example.demo.model.Costs;
+import com.example.demo.model.ProductType;
+import com.example.demo.model.Status;
+import com.example.demo.repository.UserRepo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The monthly rollup moved by the write hooks holds the same rows a full rebuild computes.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class FinanceRollupServiceTest {
+
+    @Autowired
+    private FinanceRollupService rollupService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private CostService costService;
+
+    @Autowired
+    private WorkOrderService workOrderService;
+
+    @Autowired
+    private UserRepo userRepo;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private AppUser sellerB;
+
+    @BeforeEach
+    void seed() {
+        // Other tests share the database and write some rows in plain SQL
+        rollupService.rebuild();
+        sellerB = user("rollup-seller-b");
+        AppUser sellerA = user("rollup-seller-a");
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(sellerA, null, sellerA.getAuthorities()));
+    }
+
+    @AfterEach
+    void clearAuthentication() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void incrementalRowsMatchARebuild() throws Exception {
+        ProductResponse delivered = product(2, "1500.00", "300.00");
+        ProductResponse reassigned = product(4, "320.50", null);
+        ProductResponse removed = product(1, "99.99", "50.00");
+
+        paymentService.createPayment(new CreatePaymentRequest(new BigDecimal("400.00"), "PAGO", delivered.id(), "2031-12-01", null));
+        paymentService.createPayment(new CreatePaymentRequest(new BigDecimal("25.10"), "PAGO", removed.id(), "2031-11-15", null));
+
+        ProductUpdateDto update = new ProductUpdateDto();
+        update.setPrecio(new BigDecimal("350.00"));
+        update.setCantidad(5L);
+        update.setAssignedUserId(sellerB.getId());
+        productService.update(reassigned.id(), update);
+
+        ProductUpdateDto cogs = new ProductUpdateDto();
+        cogs.setCogsAmount(new BigDecimal("640.30"));
+        productService.update(delivered.id(), cogs);
+        workOrderService.updateStatus(delivered.workOrderId(), Status.PRODUCCION);
+        workOrderService.updateStatus(delivered.workOrderId(), Status.ENTREGADO);
+
+        Costs rent = cost(CostType.RENT, LocalDate.of(2031, 1, 10), "1200.00");
+        cost(CostType.MATERIAL, LocalDate.of(2031, 6, 30), "310.45");
+        cost(null, LocalDate.of(2031, 6, 1), "55.00");
+        costService.delete(rent.getId());
+        productService.delete(removed.id());
+
+        Map<String, String> incremental = rollupRows();
+        rollupService.rebuild();
+
+        assertThat(incremental).isEqualTo(rollupRows());
+        assertThat(incremental).containsEntry(
+                LocalDate.now().withDayOfMonth(1) + " COGS  " + delivered.ownerId(), "640.3 640.3");
+    }
+
+    // Rows netted to zero stay behind incrementally; a rebuild never writes them
+    private Map<String, String> rollupRows() {
+        Map<String, String> rows = new TreeMap<>();
+        jdbcTemplate.query("""
+                SELECT month_start, metric, cost_type, seller_id, amount, amount_real
+                FROM finance_monthly_rollup WHERE amount <> 0 OR amount_real <> 0
+                """, rs -> {
+            rows.put(rs.getDate(1) + " " + rs.getString(2) + " " + rs.getString(3) + " " + rs.getLong(4),
+                    plain(rs.getBigDecimal(5)) + " " + plain(rs.getBigDecimal(6)));
+        });
+        return rows;
+    }
+
+    private static String plain(BigDecimal v) {
+        return v.stripTrailingZeros().toPlainString();
+    }
+
+    private AppUser user(String username) {
+        return userRepo.findByUsername(username)
+                .orElseGet(() -> userRepo.save(new AppUser(username, "secret", AppUserRole.ADMIN, null)));
+    }
+
+    private ProductResponse product(long units, String price, String deposit) {
+        return productService.createProduct(new ProductCreateRequest(null, "Mesa " + System.nanoTime(),
+                ProductType.MESA, null, "roble", null, null, null, units, null, null, null, null, null,
+                new BigDecimal(price), null, deposit != null ? new BigDecimal(deposit) : null, "1155550000"));
+    }
+
+    private Costs cost(CostType type, LocalDate date, String amount) {
+        Costs cost = new Costs();
+        cost.setCostType(type);
+        cost.setDate(date);
+        cost.setAmount(new BigDecimal(amount));
+        return costService.create(cost);
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.demo.service;
+
+import com.example.demo.repository.JobRunRepo;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two instances sharing job_locks and job_runs: a trigger runs once whichever of them fires it,
+ * and a lease is free or held by the database clock, never by either instance's own clock.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class JobLockServiceTest {
+
+    @Autowired
+    private JobLockService instanceA;
+
+    @Autowired
+    private JobRunRepo jobRunRepo;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void sameTriggerKeyRunsTheTaskOnce() throws Exception {
+        JobLockService instanceB = otherInstance();
+        String job = "test-job-" + System.nanoTime();
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+
+        CompletableFuture<Optional<Integer>> first = CompletableFuture.supplyAsync(() ->
+                instanceA.runExclusively(job, "cron:2026-01-01", () -> {
+                    running.countDown();
+                    await(finish);
+                    return runs.incrementAndGet();
+                }));
+        assertThat(running.await(10, TimeUnit.SECONDS)).isTrue();
+
+        // While A holds the lease, and after it released it: the trigger has had its run
+        assertThat(instanceB.runExclusively(job, "cron:2026-01-01", runs::incrementAndGet)).isEmpty();
+        finish.countDown();
+        assertThat(first.get(10, TimeUnit.SECONDS)).contains(1);
+        assertThat(instanceB.runExclusively(job, "cron:2026-01-01", runs::incrementAndGet)).isEmpty();
+        assertThat(instanceA.runExclusively(job, "cron:2026-01-01", runs::incrementAndGet)).isEmpty();
+
+        assertThat(runs.get()).isEqualTo(1);
+        // The next trigger is a new run
+        assertThat(instanceB.runExclusively(job, "cron:2026-01-02", runs::incrementAndGet)).contains(2);
+    }
+
+    @Test
+    void leaseIsMeasuredOnTheDatabaseClock() {
+        JobLockService instanceB = otherInstance();
+        String job = "test-job-" + System.nanoTime();
+        instanceA.runExclusively(job, null, () -> null);
+
+        // A crashed while holding the lease: B waits out the lease as the database counts it
+        jdbcTemplate.update("UPDATE job_locks SET owner_id = ?, locked_until = CURRENT_TIMESTAMP + INTERVAL '1' MINUTE"
+                + " WHERE job_name = ?", instanceA.ownerId(), job);
+        assertThat(instanceB.runExclusively(job, null, () -> "ran")).isEmpty();
+
+        jdbcTemplate.update("UPDATE job_locks SET locked_until = CURRENT_TIMESTAMP - INTERVAL '1' SECOND"
+                + " WHERE job_name = ?", job);
+        assertThat(instanceB.runExclusively(job, null, () -> {
+            // Taken for lease-seconds from the database's now
+            Timestamp at = jdbcTemplate.queryForObject("SELECT locked_at FROM job_locks WHERE job_name = ?", Timestamp.class, job);
+            Timestamp until = jdbcTemplate.queryForObject("SELECT locked_until FROM job_locks WHERE job_name = ?", Timestamp.class, job);
+            return Duration.between(at.toInstant(), until.toInstant());
+        })).contains(Duration.ofSeconds(600));
+        assertThat(jdbcTemplate.queryForObject("SELECT owner_id FROM job_locks WHERE job_name = ?", String.class, job))
+                .isEqualTo("instance-b");
+    }
+
+    private JobLockService otherInstance() {
+        return new JobLockService(jdbcTemplate, jobRunRepo, "instance-b", 600);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
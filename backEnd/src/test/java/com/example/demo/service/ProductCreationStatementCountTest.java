@@ -0,0 +1,113 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.ProductCreateRequest;
+import com.example.demo.dto.ProductResponse;
+import com.example.demo.model.AppUser;
+import com.example.demo.model.AppUserRole;
+import com.example.demo.model.InventoryItem;
+import com.example.demo.model.InventoryUnit;
+import com.example.demo.model.ProductType;
+import com.example.demo.model.ProductTypeTemplate;
+import com.example.demo.repository.InventoryItemRepo;
+import com.example.demo.repository.ProductTypeTemplateRepo;
+import com.example.demo.repository.UserRepo;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Creating an order costs the same number of Hibernate round trips however many template
+ * materials it gets: the product, its detail, work order, materials and deposit are inserted
+ * at one flush, each table as a single JDBC batch. Counts Hibernate statements only; the
+ * rollup upserts and the change-counter bump go through JdbcTemplate and are fixed per order.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+class ProductCreationStatementCountTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private UserRepo userRepo;
+
+    @Autowired
+    private InventoryItemRepo inventoryItemRepo;
+
+    @Autowired
+    private ProductTypeTemplateRepo templateRepo;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @BeforeEach
+    void seed() {
+        AppUser seller = userRepo.save(new AppUser("creator", "secret", AppUserRole.SELLER, null));
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(seller, null, seller.getAuthorities()));
+
+        addTemplates(ProductType.RATONA, 1);
+        addTemplates(ProductType.CRISTALERO, 12);
+    }
+
+    @AfterEach
+    void clearAuthentication() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void createProductIssuesTheSameStatementsWhateverTheMaterialCount() {
+        Statistics stats = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        stats.clear();
+        ProductResponse few = productService.createProduct(request(ProductType.RATONA));
+        long fewStatements = stats.getPrepareStatementCount();
+        long fewInserts = stats.getEntityInsertCount();
+
+        stats.clear();
+        ProductResponse many = productService.createProduct(request(ProductType.CRISTALERO));
+        long manyStatements = stats.getPrepareStatementCount();
+        long manyInserts = stats.getEntityInsertCount();
+
+        assertThat(few.materials()).hasSize(1);
+        assertThat(many.materials()).hasSize(12);
+        assertThat(manyInserts - fewInserts).isEqualTo(11);
+        assertThat(manyStatements).isEqualTo(fewStatements);
+        assertThat(stats.getTransactionCount()).isEqualTo(1);
+    }
+
+    private void addTemplates(ProductType type, int count) {
+        for (int i = 0; i < count; i++) {
+            InventoryItem item = new InventoryItem();
+            item.setName(type + " material " + i);
+            item.setUnit(InventoryUnit.values()[0]);
+            item.setUnitCost(new BigDecimal("3.25"));
+            item.setQuantityInStock(new BigDecimal("100"));
+            item = inventoryItemRepo.save(item);
+
+            ProductTypeTemplate template = new ProductTypeTemplate();
+            template.setProductType(type);
+            template.setInventoryItem(item);
+            template.setQuantityUsed(BigDecimal.ONE);
+            templateRepo.save(template);
+        }
+    }
+
+    private static ProductCreateRequest request(ProductType type) {
+        return new ProductCreateRequest(null, "Pedido " + type, type, "120x80", "roble", null, "natural", null,
+                1L, null, null, null, null, "Entregar por la tarde", new BigDecimal("50000.00"), null,
+                new BigDecimal("20000.00"), "1155550000");
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.demo.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The in-memory search used when the database has no pg_trgm: share of the query's trigrams
+ * found in the product, matches from 0.45 up, best first.
+ */
+class ProductSearchIndexTest {
+
+    private final ProductSearchIndex index = new ProductSearchIndex();
+
+    @BeforeEach
+    void seed() {
+        index.put(1, "Mesa de roble", "roble", "natural", null, "1155550001");
+        index.put(2, "Mesa blanca", "pino", "blanco", null, null);
+        index.put(3, "Silla", "roble", null, "Entregar sin armar", null);
+        index.put(4, "Cajonera", "melamina", "gris", null, null);
+    }
+
+    @Test
+    void ranksByShareOfQueryTrigramsFound() {
+        List<ProductSearchIndex.Hit> hits = index.search("mesa roble");
+
+        // 11 query trigrams: product 1 has all, 3 only "roble" (6), 2 only "mesa" (5)
+        assertThat(ids(hits)).containsExactly(1L, 3L, 2L);
+        assertThat(hits.get(0).score()).isEqualTo(1.0);
+        assertThat(hits.get(1).score()).isEqualTo(6 / 11.0);
+        assertThat(hits.get(2).score()).isEqualTo(5 / 11.0);
+    }
+
+    @Test
+    void toleratesOneLetterTyposAndAccents() {
+        assertThat(ids(index.search("robel"))).containsExactly(3L, 1L);
+        assertThat(ids(index.search("cajonra"))).containsExactly(4L);
+        assertThat(ids(index.search("CAJÓNERA"))).containsExactly(4L);
+    }
+
+    @Test
+    void dropsMatchesBelowTheThreshold() {
+        // "mesita" shares "  m", " me", "mes" with "mesa": 3 of 7 trigrams, under 0.45
+        assertThat(index.search("mesita")).isEmpty();
+        assertThat(index.search("escritorio")).isEmpty();
+        assertThat(index.search("  ")).isEmpty();
+    }
+
+    @Test
+    void searchesEveryIndexedField() {
+        assertThat(ids(index.search("armar"))).containsExactly(3L);
+        assertThat(ids(index.search("1155550001"))).containsExactly(1L);
+    }
+
+    @Test
+    void equalScoresPutTheNewestProductFirst() {
+        index.put(9, "Mesa blanca", "pino", "blanco", null, null);
+
+        assertThat(ids(index.search("blanca"))).containsExactly(9L, 2L);
+    }
+
+    @Test
+    void putReplacesAndRemoveForgets() {
+        index.put(2, "Banqueta", "pino", null, null, null);
+        index.remove(4);
+
+        assertThat(index.search("blanca")).isEmpty();
+        assertThat(ids(index.search("banqueta"))).containsExactly(2L);
+        assertThat(index.search("cajonera")).isEmpty();
+    }
+
+    private static List<Long> ids(List<ProductSearchIndex.Hit> hits) {
+        return hits.stream().map(ProductSearchIndex.Hit::id).toList();
+    }
+}
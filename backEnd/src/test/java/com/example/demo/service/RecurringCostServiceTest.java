@@ -0,0 +1,145 @@
+package com.example.demo.service;
+
+import com.example.demo.model.CostType;
+import com.example.demo.model.Costs;
+import com.example.demo.model.PaymentFrequency;
+import com.example.demo.model.RecurringCost;
+import com.example.demo.repository.CostRepo;
+import com.example.demo.repository.RecurringCostRepo;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Generating occurrences from templates (every one owed, each at most once) and folding costs
+ * saved before templates existed into templates.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class RecurringCostServiceTest {
+
+    @Autowired
+    private RecurringCostService recurringCostService;
+
+    @Autowired
+    private RecurringCostRepo recurringCostRepo;
+
+    @Autowired
+    private CostRepo costRepo;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void generateDueCatchesUpOnMonthEndsAndAddsNothingWhenRunAgain() {
+        // Dated years back, clear of the other tests' costs
+        RecurringCost t = template("Alquiler local", LocalDate.of(2019, 1, 31));
+        LocalDate today = LocalDate.of(2019, 4, 30);
+
+        int inserted = recurringCostService.generateDue(today);
+
+        assertThat(inserted).isGreaterThanOrEqualTo(3);
+        assertThat(occurrenceDates(t)).containsExactly(
+                LocalDate.of(2019, 2, 28), LocalDate.of(2019, 3, 31), LocalDate.of(2019, 4, 30));
+        RecurringCost moved = recurringCostRepo.findById(t.getId()).orElseThrow();
+        assertThat(moved.getNextIndex()).isEqualTo(4);
+        assertThat(moved.getNextDueDate()).isEqualTo("2019-05-31");
+        assertThat(recurringCostService.watermark()).isEqualTo(today);
+        assertThat(rollupExpense("2019-03-01")).isEqualByComparingTo("800.00");
+
+        // Same day again, and a run that still read the template before the first one moved it
+        assertThat(recurringCostService.generateDue(today)).isZero();
+        moved.setNextIndex(2);
+        moved.setNextDueDate(moved.occurrence(2));
+        recurringCostRepo.save(moved);
+        assertThat(recurringCostService.generateDue(today)).isZero();
+
+        assertThat(occurrenceDates(t)).hasSize(3);
+        assertThat(rollupExpense("2019-03-01")).isEqualByComparingTo("800.00");
+    }
+
+    @Test
+    void migrateLegacyFoldsAutoCopiesIntoOneTemplatePerSeries() {
+        List<Costs> rent = List.of(
+                legacy("Taller", CostType.RENT, "1000.00", LocalDate.of(2018, 1, 10)),
+                legacy("Taller (Auto)", CostType.RENT, "1000", LocalDate.of(2018, 2, 10)),
+                legacy("Taller (Auto) (Auto)", CostType.RENT, "1000.00", LocalDate.of(2018, 3, 10)),
+                // an old run wrote the same day twice
+                legacy("Taller (Auto)", CostType.RENT, "1000.00", LocalDate.of(2018, 3, 10)));
+        Costs raised = legacy("Taller", CostType.RENT, "1200.00", LocalDate.of(2018, 4, 10));
+        Costs internet = legacy("Internet taller", CostType.SERVICES, "50.00", LocalDate.of(2018, 1, 5));
+
+        recurringCostService.migrateLegacy();
+
+        List<Costs> rentRows = rent.stream().map(c -> costRepo.findById(c.getId()).orElseThrow()).toList();
+        long templateId = rentRows.get(0).getRecurringCostId();
+        assertThat(rentRows).allSatisfy(c -> assertThat(c.getRecurringCostId()).isEqualTo(templateId));
+        assertThat(rentRows).extracting(Costs::getOccurrenceDate).containsExactly(
+                LocalDate.of(2018, 1, 10), LocalDate.of(2018, 2, 10), LocalDate.of(2018, 3, 10), null);
+
+        RecurringCost t = recurringCostRepo.findById(templateId).orElseThrow();
+        assertThat(t.getReason()).isEqualTo("Taller");
+        assertThat(t.getAnchorDate()).isEqualTo("2018-01-10");
+        assertThat(t.getFrequency()).isEqualTo(PaymentFrequency.MONTHLY);
+        // Nothing is generated for the months it missed: the first occurrence from today on
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        assertThat(t.getNextDueDate()).isAfter(yesterday);
+        assertThat(t.getNextDueDate().minusMonths(1)).isBeforeOrEqualTo(yesterday);
+        assertThat(t.getNextDueDate().getDayOfMonth()).isEqualTo(10);
+
+        // Another amount or reason is another series
+        long raisedTemplate = costRepo.findById(raised.getId()).orElseThrow().getRecurringCostId();
+        long internetTemplate = costRepo.findById(internet.getId()).orElseThrow().getRecurringCostId();
+        assertThat(List.of(raisedTemplate, internetTemplate)).doesNotContain(templateId);
+        assertThat(raisedTemplate).isNotEqualTo(internetTemplate);
+
+        // Folded rows have a template now, so a second run finds nothing to do
+        long templates = recurringCostRepo.count();
+        recurringCostService.migrateLegacy();
+        assertThat(recurringCostRepo.count()).isEqualTo(templates);
+    }
+
+    private RecurringCost template(String reason, LocalDate anchor) {
+        RecurringCost t = new RecurringCost();
+        t.setCostType(CostType.RENT);
+        t.setAmount(new BigDecimal("800.00"));
+        t.setReason(reason);
+        t.setFrequency(PaymentFrequency.MONTHLY);
+        t.setAnchorDate(anchor);
+        t.setCreatedAt(LocalDateTime.now());
+        t.setNextIndex(1);
+        t.setNextDueDate(t.occurrence(1));
+        return recurringCostRepo.save(t);
+    }
+
+    // A cost saved as recurring before templates existed: no template id, no occurrence date
+    private Costs legacy(String reason, CostType type, String amount, LocalDate date) {
+        Costs c = new Costs();
+        c.setReason(reason);
+        c.setCostType(type);
+        c.setAmount(new BigDecimal(amount));
+        c.setDate(date);
+        c.setFrequency(PaymentFrequency.MONTHLY);
+        c.setCreatedAt(LocalDateTime.now());
+        return costRepo.save(c);
+    }
+
+    private List<LocalDate> occurrenceDates(RecurringCost t) {
+        return jdbcTemplate.queryForList("SELECT occurrence_date FROM costos WHERE recurring_cost_id = ?"
+                + " ORDER BY occurrence_date", LocalDate.class, t.getId());
+    }
+
+    private BigDecimal rollupExpense(String month) {
+        return jdbcTemplate.queryForObject("SELECT COALESCE(SUM(amount), 0) FROM finance_monthly_rollup"
+                + " WHERE metric = 'EXPENSE' AND month_start = CAST(? AS DATE)", BigDecimal.class, month);
+    }
+}
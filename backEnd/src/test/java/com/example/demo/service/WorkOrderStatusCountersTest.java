@@ -0,0 +1,111 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.ProductCreateRequest;
+import com.example.demo.dto.ProductResponse;
+import com.example.demo.model.AppUser;
+import com.example.demo.model.AppUserRole;
+import com.example.demo.model.ProductType;
+import com.example.demo.model.Status;
+import com.example.demo.repository.UserRepo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The in-memory status counts follow committed transitions and, across a reseed, count each
+ * commit once.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class WorkOrderStatusCountersTest {
+
+    @Autowired
+    private WorkOrderStatusCounters counters;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private WorkOrderService workOrderService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private UserRepo userRepo;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private ProductResponse product;
+
+    @BeforeEach
+    void seed() {
+        // Other tests share the database and change some statuses in plain SQL
+        counters.reseed();
+        AppUser admin = userRepo.findByUsername("counters-admin")
+                .orElseGet(() -> userRepo.save(new AppUser("counters-admin", "secret", AppUserRole.ADMIN, null)));
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(admin, null, admin.getAuthorities()));
+        product = productService.createProduct(new ProductCreateRequest(null, "Mesa " + System.nanoTime(),
+                ProductType.MESA, null, "roble", null, null, null, 1L, null, null, null, null, null,
+                new BigDecimal("500.00"), null, null, "1155550000"));
+    }
+
+    @AfterEach
+    void clearAuthentication() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void transitionsMoveTheCountsAfterCommit() {
+        workOrderService.updateStatus(product.workOrderId(), Status.PRODUCCION);
+        workOrderService.updateStatus(product.workOrderId(), Status.TERMINADO);
+
+        assertThat(counters.snapshot()).isEqualTo(countedInDatabase());
+    }
+
+    @Test
+    void transitionTheReseedAlreadyCountedIsNotAppliedAgain() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(tx -> {
+            // Registered first, so it runs before the counters' own after-commit hook: a scheduled reseed on
+            // another thread that sees this commit and takes the monitor ahead of the hook
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    CompletableFuture.runAsync(counters::reseed).join();
+                }
+            });
+            workOrderService.updateStatus(product.workOrderId(), Status.PRODUCCION);
+        });
+
+        assertThat(counters.snapshot()).isEqualTo(countedInDatabase());
+    }
+
+    private Map<String, Long> countedInDatabase() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (Status s : Status.values()) {
+            long n = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM work_orders WHERE status = ?", Long.class, s.name());
+            if (n > 0) counts.put(s.name(), n);
+        }
+        return counts;
+    }
+}
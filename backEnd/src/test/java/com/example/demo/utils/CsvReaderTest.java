@@ -0,0 +1,72 @@
+package com.example.demo.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CsvReaderTest {
+
+    @Test
+    void quotedFieldsKeepSeparatorsQuotesAndLineBreaks() throws IOException {
+        CsvReader csv = reader("fecha,asunto,valor\r\n"
+                + "2025-01-10,\"Flete, ida y vuelta\",100\r\n"
+                + "2025-01-11,\"Tabla \"\"pino\"\"\",200\r\n"
+                + "2025-01-12,\"Dos\nlineas\",300\r\n"
+                + "2025-01-13,,400");
+
+        assertThat(csv.next()).containsExactly("fecha", "asunto", "valor");
+        assertThat(csv.next()).containsExactly("2025-01-10", "Flete, ida y vuelta", "100");
+        assertThat(csv.next()).containsExactly("2025-01-11", "Tabla \"pino\"", "200");
+        assertThat(csv.next()).containsExactly("2025-01-12", "Dos\nlineas", "300");
+        assertThat(csv.recordLine()).isEqualTo(4);
+        // The line break inside the quotes counts: the next record starts on line 6
+        assertThat(csv.next()).containsExactly("2025-01-13", "", "400");
+        assertThat(csv.recordLine()).isEqualTo(6);
+        assertThat(csv.next()).isNull();
+    }
+
+    @Test
+    void blankLinesAreSkippedButCounted() throws IOException {
+        CsvReader csv = reader("a,b\n\n1,2\n\n");
+
+        csv.next();
+        assertThat(csv.next()).containsExactly("1", "2");
+        assertThat(csv.recordLine()).isEqualTo(3);
+        assertThat(csv.next()).isNull();
+    }
+
+    @Test
+    void byteOrderMarkIsNotPartOfTheFirstColumn() throws IOException {
+        CsvReader csv = reader("\uFEFFfecha,valor\n2025-01-10,100\n");
+
+        assertThat(csv.next()).containsExactly("fecha", "valor");
+        assertThat(csv.separator()).isEqualTo(',');
+    }
+
+    @Test
+    void separatorIsSniffedFromTheHeader() throws IOException {
+        CsvReader semicolons = reader("fecha;valor;asunto\n2025-01-10;1.234,56;Flete, ida\n");
+        assertThat(semicolons.separator()).isEqualTo(';');
+        semicolons.next();
+        assertThat(semicolons.next()).containsExactly("2025-01-10", "1.234,56", "Flete, ida");
+
+        CsvReader tabs = reader("fecha\tvalor\n2025-01-10\t12,5\n");
+        assertThat(tabs.separator()).isEqualTo('\t');
+        tabs.next();
+        assertThat(tabs.next()).containsExactly("2025-01-10", "12,5");
+    }
+
+    @Test
+    void emptyInputHasNoRecords() throws IOException {
+        assertThat(reader("").next()).isNull();
+    }
+
+    private static CsvReader reader(String text) throws IOException {
+        return CsvReader.open(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.demo.utils;
+
+import com.example.demo.exceptions.BadRequestException;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CursorsTest {
+
+    private record Row(LocalDate date, long id) {}
+
+    // Newest first, undated rows last: the order of the product and cost listings
+    private static final Comparator<Row> ORDER = Comparator
+            .comparing(Row::date, Comparator.nullsFirst(Comparator.<LocalDate>naturalOrder()))
+            .thenComparingLong(Row::id)
+            .reversed();
+
+    @Test
+    void roundTripsKeyedAndUnkeyedPositions() {
+        Cursors.Position dated = Cursors.decode(Cursors.encode(LocalDate.of(2025, 3, 9), 42));
+        Cursors.Position undated = Cursors.decode(Cursors.encode(null, 7));
+
+        assertThat(dated).isEqualTo(new Cursors.Position("2025-03-09", 42));
+        assertThat(dated.keyAsDate()).isEqualTo(LocalDate.of(2025, 3, 9));
+        assertThat(undated).isEqualTo(new Cursors.Position(null, 7));
+        assertThat(undated.keyAsDate()).isNull();
+    }
+
+    @Test
+    void keyMayContainTheSeparator() {
+        Cursors.Position p = Cursors.decode(Cursors.encode("a|b", 3));
+
+        assertThat(p).isEqualTo(new Cursors.Position("a|b", 3));
+    }
+
+    @Test
+    void blankCursorMeansFirstSlice() {
+        assertThat(Cursors.decode(null)).isNull();
+        assertThat(Cursors.decode("  ")).isNull();
+    }
+
+    @Test
+    void rejectsMalformedCursorsAsBadRequests() {
+        assertThatThrownBy(() -> Cursors.decode("%%%")).isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> Cursors.decode(Cursors.encode("2025-01-01", 1).substring(2)))
+                .isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> Cursors.decode(Cursors.encode("yesterday", 1)).keyAsDate())
+                .isInstanceOf(BadRequestException.class)
+                .hasMessage("Invalid cursor");
+    }
+
+    @Test
+    void nullsLastWalksDatedRowsThenUndatedOnesWithoutGapsOrRepeats() {
+        List<Row> table = new ArrayList<>();
+        LongStream.rangeClosed(1, 11).forEach(id ->
+                table.add(new Row(id % 3 == 0 ? null : LocalDate.of(2025, 1, 1).plusDays(id % 4), id)));
+        List<Row> expected = table.stream().sorted(ORDER).toList();
+
+        for (int size = 1; size <= 12; size++) {
+            List<Row> walked = new ArrayList<>();
+            String cursor = null;
+            while (true) {
+                List<Row> slice = Cursors.nullsLast(Cursors.decode(cursor), size + 1,
+                        (after, limit) -> keyed(table, after, limit),
+                        (afterId, limit) -> unkeyed(table, afterId, limit));
+                boolean more = slice.size() > size;
+                List<Row> page = more ? slice.subList(0, size) : slice;
+                walked.addAll(page);
+                if (!more) break;
+                Row last = page.get(page.size() - 1);
+                cursor = Cursors.encode(last.date(), last.id());
+            }
+            assertThat(walked).as("page size %d", size).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void nullsLastSkipsTheKeyedQueryOnceInTheUndatedTail() {
+        List<String> calls = new ArrayList<>();
+
+        Cursors.nullsLast(new Cursors.Position(null, 9), 5,
+                (after, limit) -> { calls.add("keyed"); return List.of(); },
+                (afterId, limit) -> { calls.add("unkeyed " + afterId + " " + limit.max()); return List.of(); });
+
+        assertThat(calls).containsExactly("unkeyed 9 5");
+    }
+
+    @Test
+    void nullsLastOnlyAsksTheUndatedQueryForWhatIsMissing() {
+        List<String> calls = new ArrayList<>();
+
+        Cursors.nullsLast(null, 5,
+                (after, limit) -> {
+                    calls.add("keyed " + limit.max());
+                    return List.of(new Row(LocalDate.of(2025, 1, 2), 2), new Row(LocalDate.of(2025, 1, 1), 1));
+                },
+                (afterId, limit) -> { calls.add("unkeyed " + afterId + " " + limit.max()); return List.of(); });
+
+        assertThat(calls).containsExactly("keyed 5", "unkeyed " + Long.MAX_VALUE + " 3");
+    }
+
+    // In-memory stand-ins for findFirstSlice/findSliceAfter and findUndatedSliceAfter
+    private static List<Row> keyed(List<Row> table, Cursors.Position after, Limit limit) {
+        LocalDate afterDate = after == null ? null : after.keyAsDate();
+        return table.stream()
+                .filter(r -> r.date() != null)
+                .filter(r -> after == null || r.date().isBefore(afterDate)
+                        || r.date().isEqual(afterDate) && r.id() < after.id())
+                .sorted(ORDER)
+                .limit(limit.max())
+                .toList();
+    }
+
+    private static List<Row> unkeyed(List<Row> table, long afterId, Limit limit) {
+        return table.stream()
+                .filter(r -> r.date() == null && r.id() < afterId)
+                .sorted(ORDER)
+                .limit(limit.max())
+                .toList();
+    }
+}